@@ -0,0 +1,29 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    jmhImplementation(project(":java"))
+    /* the library's own dependencies, used directly by some suites (e.g. to build msgpack or vcdiff input) */
+    jmhImplementation(libs.bundles.common)
+}
+
+/*
+Benchmarks are run with:
+
+    ./gradlew benchmarks:jmh
+
+A subset can be selected with -PjmhIncludes=<regex>, e.g. -PjmhIncludes=Multicaster
+and profilers added with -PjmhProfilers=<list>, e.g. -PjmhProfilers=gc to report allocation
+*/
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    findProperty("jmhIncludes")?.let { includes.set(listOf(it.toString())) }
+    findProperty("jmhProfilers")?.let { profilers.set(it.toString().split(",")) }
+}
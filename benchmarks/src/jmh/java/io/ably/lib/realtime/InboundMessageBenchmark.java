@@ -0,0 +1,90 @@
+package io.ably.lib.realtime;
+
+import io.ably.lib.types.AblyException;
+import io.ably.lib.types.ClientOptions;
+import io.ably.lib.types.Message;
+import io.ably.lib.types.ProtocolMessage;
+import io.ably.lib.types.RecoveryKeyContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of inbound channel messages on a client with N attached channels, through
+ * {@code ConnectionManager.onMessage}, each message advancing its channel's serial.
+ * <p>
+ * {@code inbound} is the current path, where the recovery key is maintained incrementally
+ * and encoded off the inbound thread; {@code inboundRebuildingRecoveryKey} adds the work
+ * that used to be done for every message, of collecting the serials of every attached
+ * channel and encoding the recovery key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InboundMessageBenchmark {
+
+    @Param({"1", "100", "1000", "5000"})
+    public int channelCount;
+
+    private AblyRealtime ably;
+    private String[] channelNames;
+    private long serial;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws AblyException {
+        ClientOptions options = new ClientOptions("not:a.key");
+        options.autoConnect = false;
+        ably = new AblyRealtime(options);
+        ably.connection.key = "benchmark-connection-key";
+        ably.connection.state = ConnectionState.connected;
+
+        channelNames = new String[channelCount];
+        for (int i = 0; i < channelCount; i++) {
+            channelNames[i] = "channel-" + i;
+            ProtocolMessage attached = new ProtocolMessage(ProtocolMessage.Action.attached, channelNames[i]);
+            attached.channelSerial = "serial-0";
+            ably.channels.get(channelNames[i]).onChannelMessage(attached);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ably.close();
+    }
+
+    @Benchmark
+    public void inbound() throws AblyException {
+        ably.connection.connectionManager.onMessage(null, nextMessage());
+    }
+
+    @Benchmark
+    public String inboundRebuildingRecoveryKey() throws AblyException {
+        ably.connection.connectionManager.onMessage(null, nextMessage());
+        return new RecoveryKeyContext(ably.connection.key, ably.connection.connectionManager.msgSerial, ably.getChannelSerials()).encode();
+    }
+
+    private ProtocolMessage nextMessage() {
+        ProtocolMessage message = new ProtocolMessage(ProtocolMessage.Action.message, channelNames[next]);
+        message.channelSerial = "serial-" + (++serial);
+        message.id = "benchmark:" + serial;
+        message.messages = new Message[] { new Message("event", "data") };
+        next = (next + 1) % channelCount;
+        return message;
+    }
+}
@@ -0,0 +1,92 @@
+package io.ably.lib.realtime;
+
+import io.ably.lib.types.PresenceMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of looking up members of a large presence set by clientId and connectionId,
+ * as done by {@code Presence.get(clientId, ...)}.
+ * <p>
+ * {@code linearScan} is the previous behaviour of filtering every member; {@code indexed*}
+ * use the secondary indexes. {@code updateMember} measures the overhead the indexes add
+ * to applying a presence update.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PresenceMapBenchmark {
+
+    /* each connection has this many clients */
+    private static final int CLIENTS_PER_CONNECTION = 4;
+
+    @Param({"1000", "10000", "100000"})
+    public int memberCount;
+
+    private Presence.PresenceMap map;
+    private String clientId;
+    private String connectionId;
+    private long serial;
+
+    @Setup
+    public void setup() {
+        map = new Presence.PresenceMap("benchmark-channel");
+        for (int i = 0; i < memberCount; i++) {
+            map.put(member(i, 0));
+        }
+        int target = memberCount / 2;
+        clientId = "client-" + target;
+        connectionId = "conn-" + target / CLIENTS_PER_CONNECTION;
+        serial = 1;
+    }
+
+    @Benchmark
+    public List<PresenceMessage> linearScan() {
+        List<PresenceMessage> result = new ArrayList<>();
+        for (PresenceMessage member : map.values()) {
+            if (member.clientId.equals(clientId)) {
+                result.add(member);
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<PresenceMessage> indexedByClientId() {
+        return map.find(clientId, null);
+    }
+
+    @Benchmark
+    public List<PresenceMessage> indexedByConnectionId() {
+        return map.find(null, connectionId);
+    }
+
+    @Benchmark
+    public boolean updateMember() {
+        return map.put(member((int) (serial % memberCount), serial++));
+    }
+
+    private static PresenceMessage member(int i, long serial) {
+        PresenceMessage message = new PresenceMessage(PresenceMessage.Action.present, "client-" + i);
+        message.connectionId = "conn-" + i / CLIENTS_PER_CONNECTION;
+        message.id = message.connectionId + ':' + serial + ':' + i % CLIENTS_PER_CONNECTION;
+        message.timestamp = serial;
+        return message;
+    }
+}
@@ -0,0 +1,73 @@
+package io.ably.lib.realtime;
+
+import io.ably.lib.types.PresenceMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a presence SYNC of a set of N members: starting the sync, applying a present
+ * message for each member, and ending the sync.
+ * <p>
+ * {@code resync} applies the sync to a map already holding the same members, as after a
+ * reattach, and so includes the newness check for every member; {@code initialSync}
+ * applies it to an empty map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PresenceSyncBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int memberCount;
+
+    private PresenceMessage[] sync;
+    private Presence.PresenceMap existing;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sync = new PresenceMessage[memberCount];
+        for (int i = 0; i < memberCount; i++) {
+            PresenceMessage message = new PresenceMessage(PresenceMessage.Action.present, "client-" + i);
+            message.connectionId = "conn-" + i / 4;
+            message.id = message.connectionId + ":0:" + i % 4;
+            message.timestamp = 1700000000000L;
+            sync[i] = message;
+        }
+        existing = new Presence.PresenceMap("benchmark-channel");
+        runSync(existing);
+    }
+
+    @Benchmark
+    public List<PresenceMessage> initialSync() {
+        return runSync(new Presence.PresenceMap("benchmark-channel"));
+    }
+
+    @Benchmark
+    public List<PresenceMessage> resync() {
+        return runSync(existing);
+    }
+
+    private List<PresenceMessage> runSync(Presence.PresenceMap map) {
+        map.startSync();
+        for (PresenceMessage message : sync) {
+            map.put(message);
+        }
+        return map.endSync();
+    }
+}
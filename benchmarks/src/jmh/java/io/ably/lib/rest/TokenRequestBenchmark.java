@@ -0,0 +1,100 @@
+package io.ably.lib.rest;
+
+import io.ably.lib.rest.Auth.TokenParams;
+import io.ably.lib.rest.Auth.TokenRequest;
+import io.ably.lib.types.AblyException;
+import io.ably.lib.types.ClientOptions;
+import io.ably.lib.util.Base64Coder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signed TokenRequests per second on one thread, so per core, for an auth server minting
+ * requests for its clients with {@link Auth#createTokenRequest}.
+ * <p>
+ * {@code createTokenRequest} signs with the client's {@link TokenRequestSigner};
+ * {@code createTokenRequestsBatch} mints {@value #BATCH_SIZE} requests in one call;
+ * {@code createTokenRequestWithNewMac} signs as was done previously, creating and
+ * initialising a Mac, formatting the nonce and concatenating the text for every request;
+ * it leaves out canonicalising the capability, which was also done for every request.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenRequestBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+    private static final String KEY = "appId.keyName:keySecret";
+
+    private AblyRest ably;
+    private TokenParams params;
+    private TokenParams[] batch;
+
+    @Setup(Level.Trial)
+    public void setup() throws AblyException {
+        ably = new AblyRest(new ClientOptions(KEY));
+        params = new TokenParams();
+        params.clientId = "user-1234";
+        params.capability = "{\"chat:*\":[\"publish\",\"subscribe\",\"presence\"]}";
+        params.ttl = 3600000;
+        batch = new TokenParams[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch[i] = params;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ably.close();
+    }
+
+    @Benchmark
+    public TokenRequest createTokenRequest() throws AblyException {
+        return ably.auth.createTokenRequest(params, null);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public TokenRequest[] createTokenRequestsBatch() throws AblyException {
+        return ably.auth.createTokenRequests(batch, null);
+    }
+
+    @Benchmark
+    public TokenRequest createTokenRequestWithNewMac() throws GeneralSecurityException {
+        TokenRequest request = new TokenRequest(params);
+        request.keyName = "appId.keyName";
+        request.timestamp = System.currentTimeMillis();
+        request.nonce = String.format(Locale.ROOT, "%016d", (long) (Math.random() * 1E16));
+        String signText = request.keyName + '\n'
+            + request.ttl + '\n'
+            + request.capability + '\n'
+            + request.clientId + '\n'
+            + request.timestamp + '\n'
+            + request.nonce + '\n';
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("keySecret".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        request.mac = new String(Base64Coder.encode(mac.doFinal(signText.getBytes(StandardCharsets.UTF_8))));
+        return request;
+    }
+}
@@ -0,0 +1,87 @@
+package io.ably.lib.types;
+
+import com.davidehrmann.vcdiff.VCDiffEncoderBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of applying a vcdiff delta to the previous message on a channel with delta
+ * compression enabled, as done by {@link BaseMessage#decode(ChannelOptions, DecodingContext)}.
+ * Each delta changes a small region of a payload of the given size.
+ * <p>
+ * {@code applyDelta} sets a new base before every delta; {@code applyDeltaChain} applies
+ * deltas to the result of the previous one, as on a channel receiving a stream of updates,
+ * where the context reuses its buffers. Run with {@code -prof gc} to compare allocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DeltaDecodeBenchmark {
+
+    @Param({"1024", "16384", "65536"})
+    public int payloadSize;
+
+    private final Message message = new Message();
+    private final DecodingContext context = new DecodingContext();
+    private final DecodingContext chainContext = new DecodingContext();
+    private byte[] base;
+    private byte[] delta;
+    private byte[] reverseDelta;
+    private boolean forward;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(42);
+        base = new byte[payloadSize];
+        random.nextBytes(base);
+        byte[] target = base.clone();
+        for (int i = payloadSize / 2; i < payloadSize / 2 + 16; i++) {
+            target[i] ^= 0x5a;
+        }
+        delta = encode(base, target);
+        reverseDelta = encode(target, base);
+        chainContext.setLastMessageData(base);
+        forward = true;
+    }
+
+    private static byte[] encode(byte[] from, byte[] to) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VCDiffEncoderBuilder.builder().withDictionary(from).buildSimple().encode(to, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Object applyDelta() throws MessageDecodeException {
+        context.setLastMessageData(base);
+        message.data = delta;
+        message.encoding = "vcdiff";
+        message.decode(null, context);
+        return message.data;
+    }
+
+    @Benchmark
+    public Object applyDeltaChain() throws MessageDecodeException {
+        message.data = forward ? delta : reverseDelta;
+        message.encoding = "vcdiff";
+        message.decode(null, chainContext);
+        forward = !forward;
+        return message.data;
+    }
+}
@@ -0,0 +1,98 @@
+package io.ably.lib.types;
+
+import com.google.gson.JsonParser;
+import io.ably.lib.util.Crypto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of decoding a batch of messages with many distinct names on a channel where only a
+ * few of the names are subscribed to, as done by {@code ChannelBase.onMessage}.
+ * <p>
+ * {@code decodeAll} decodes every message, as before; {@code decodeSubscribed} fully decodes
+ * only the subscribed messages and keeps the vcdiff base up to date for the others.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilteredSubscriptionBenchmark {
+
+    /* the channel carries this many distinct names, of which SUBSCRIBED_NAMES are subscribed to */
+    private static final int NAMES = 30;
+    private static final int SUBSCRIBED_NAMES = 3;
+
+    @Param({"plain", "cipher"})
+    public String encoding;
+
+    @Param({"100", "1024"})
+    public int payloadSize;
+
+    private final DecodingContext context = new DecodingContext();
+    private ChannelOptions options;
+    private Message[] messages;
+    private Object[] encodedData;
+    private String[] encodedEncodings;
+
+    @Setup
+    public void setup() throws AblyException {
+        options = "cipher".equals(encoding) ? ChannelOptions.withCipherKey(Crypto.generateRandomKey(256)) : null;
+        char[] value = new char[Math.max(0, payloadSize - 12)];
+        Arrays.fill(value, 'x');
+        String json = "{\"value\":\"" + new String(value) + "\"}";
+
+        messages = new Message[NAMES];
+        encodedData = new Object[NAMES];
+        encodedEncodings = new String[NAMES];
+        for (int i = 0; i < NAMES; i++) {
+            Message message = new Message("event-" + i, JsonParser.parseString(json));
+            message.encode(options);
+            messages[i] = message;
+            encodedData[i] = message.data;
+            encodedEncodings[i] = message.encoding;
+        }
+    }
+
+    @Benchmark
+    public Message[] decodeAll() throws MessageDecodeException {
+        for (int i = 0; i < NAMES; i++) {
+            Message message = reset(i);
+            message.decode(options, context);
+        }
+        return messages;
+    }
+
+    @Benchmark
+    public Message[] decodeSubscribed() throws MessageDecodeException {
+        for (int i = 0; i < NAMES; i++) {
+            Message message = reset(i);
+            if (i < SUBSCRIBED_NAMES) {
+                message.decode(options, context);
+            } else {
+                message.decodeDeltaBase(options, context);
+            }
+        }
+        return messages;
+    }
+
+    private Message reset(int i) {
+        Message message = messages[i];
+        message.data = encodedData[i];
+        message.encoding = encodedEncodings[i];
+        return message;
+    }
+}
@@ -0,0 +1,87 @@
+package io.ably.lib.types;
+
+import io.ably.lib.util.Base64Coder;
+import io.ably.lib.util.Crypto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link BaseMessage#decode(ChannelOptions, DecodingContext)} for each of the
+ * payload encodings received from Ably, for a range of payload sizes.
+ * <ul>
+ *     <li>{@code none}: a string payload with no encoding</li>
+ *     <li>{@code base64}: a binary payload as received over the JSON protocol</li>
+ *     <li>{@code json}: a JSON object payload</li>
+ *     <li>{@code cipher}: a binary payload encrypted with AES-128-CBC, as received over msgpack</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageDecodeBenchmark {
+
+    @Param({"none", "base64", "json", "cipher"})
+    public String encoding;
+
+    @Param({"100", "1024", "65536"})
+    public int payloadSize;
+
+    private final Message message = new Message();
+    private final DecodingContext context = new DecodingContext();
+    private ChannelOptions options;
+    private Object encodedData;
+    private String encodedEncoding;
+
+    @Setup
+    public void setup() throws AblyException {
+        byte[] payload = new byte[payloadSize];
+        Arrays.fill(payload, (byte) 'x');
+        switch (encoding) {
+            case "none":
+                encodedData = new String(payload);
+                break;
+            case "base64":
+                encodedData = new String(Base64Coder.encode(payload));
+                encodedEncoding = "base64";
+                break;
+            case "json":
+                char[] value = new char[Math.max(0, payloadSize - 12)];
+                Arrays.fill(value, 'x');
+                encodedData = "{\"value\":\"" + new String(value) + "\"}";
+                encodedEncoding = "json";
+                break;
+            case "cipher":
+                options = ChannelOptions.withCipherKey(Crypto.generateRandomKey(128));
+                Message plain = new Message("event", payload);
+                plain.encode(options);
+                encodedData = plain.data;
+                encodedEncoding = plain.encoding;
+                break;
+            default:
+                throw new IllegalArgumentException(encoding);
+        }
+    }
+
+    @Benchmark
+    public Object decode() throws MessageDecodeException {
+        message.data = encodedData;
+        message.encoding = encodedEncoding;
+        message.decode(options, context);
+        return message.data;
+    }
+}
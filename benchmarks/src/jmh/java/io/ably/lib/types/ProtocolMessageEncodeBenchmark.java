@@ -0,0 +1,70 @@
+package io.ably.lib.types;
+
+import io.ably.lib.util.ReusablePacker;
+import io.ably.lib.util.Serialisation;
+import org.msgpack.core.MessagePacker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of encoding an outbound publish {@link ProtocolMessage} to msgpack.
+ * <p>
+ * Run with the GC profiler to see allocation per publish:
+ * <pre>./gradlew benchmarks:jmh -PjmhIncludes=ProtocolMessageEncode -PjmhProfilers=gc</pre>
+ * and compare {@code gc.alloc.rate.norm} between the freshly allocated packer (the previous
+ * behaviour of every send), the per-thread pooled packer and the transport's reusable packer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolMessageEncodeBenchmark {
+
+    @Param({"16", "1024", "16384"})
+    public int payloadSize;
+
+    private ProtocolMessage message;
+    private final ReusablePacker transportPacker = new ReusablePacker();
+
+    @Setup
+    public void setup() {
+        message = new ProtocolMessage(ProtocolMessage.Action.message, "benchmark-channel");
+        message.msgSerial = 42L;
+        message.messages = new Message[] {new Message("event", new byte[payloadSize])};
+    }
+
+    @Benchmark
+    public byte[] freshPacker() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MessagePacker packer = Serialisation.msgpackPackerConfig.newPacker(out);
+        message.writeMsgpack(packer);
+        packer.flush();
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] pooledPackerToByteArray() throws AblyException {
+        return ProtocolSerializer.writeMsgpack(message);
+    }
+
+    @Benchmark
+    public ByteBuffer reusablePackerToByteBuffer() throws AblyException {
+        return ProtocolSerializer.writeMsgpack(message, transportPacker);
+    }
+}
@@ -0,0 +1,83 @@
+package io.ably.lib.types;
+
+import io.ably.lib.util.Serialisation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of encoding and decoding a {@link ProtocolMessage} carrying channel messages,
+ * in each of the wire formats, for a range of payload sizes. {@code decodeJsonReflective}
+ * is the reflective Gson binding that the streaming JSON reader replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolSerializerBenchmark {
+
+    @Param({"16", "1024", "16384", "65536"})
+    public int payloadSize;
+
+    @Param({"1", "10"})
+    public int messageCount;
+
+    private ProtocolMessage message;
+    private byte[] msgpack;
+    private String json;
+
+    @Setup
+    public void setup() throws AblyException {
+        char[] text = new char[payloadSize];
+        Arrays.fill(text, 'x');
+        message = new ProtocolMessage(ProtocolMessage.Action.message, "benchmark-channel");
+        message.id = "connection:0";
+        message.connectionId = "connection";
+        message.timestamp = 1700000000000L;
+        message.messages = new Message[messageCount];
+        for (int i = 0; i < messageCount; i++) {
+            message.messages[i] = new Message("event-" + i, new String(text));
+        }
+        msgpack = ProtocolSerializer.writeMsgpack(message);
+        json = new String(ProtocolSerializer.writeJSON(message), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] encodeMsgpack() throws AblyException {
+        return ProtocolSerializer.writeMsgpack(message);
+    }
+
+    @Benchmark
+    public ProtocolMessage decodeMsgpack() throws AblyException {
+        return ProtocolSerializer.readMsgpack(msgpack);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws AblyException {
+        return ProtocolSerializer.writeJSON(message);
+    }
+
+    @Benchmark
+    public ProtocolMessage decodeJson() throws AblyException {
+        return ProtocolSerializer.fromJSON(json);
+    }
+
+    @Benchmark
+    public ProtocolMessage decodeJsonReflective() {
+        return Serialisation.gson.fromJson(json, ProtocolMessage.class);
+    }
+}
@@ -0,0 +1,64 @@
+package io.ably.lib.util;
+
+import io.ably.lib.types.AblyException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decrypt throughput of a channel's {@link Crypto.ChannelCipherPool}, shared by four threads
+ * as when messages for one channel are decoded concurrently, against creating a new decipher
+ * for every message as {@code BaseMessage.decode} did previously.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ChannelCipherPoolBenchmark {
+
+    @Param({"100", "1024", "65536"})
+    public int payloadSize;
+
+    private Crypto.CipherParams params;
+    private Crypto.ChannelCipherPool pool;
+    private byte[] ciphertext;
+
+    @Setup
+    public void setup() throws AblyException {
+        params = Crypto.getDefaultParams(Crypto.generateRandomKey(256));
+        pool = Crypto.createChannelCipherPool(params);
+        byte[] plaintext = new byte[payloadSize];
+        Arrays.fill(plaintext, (byte) 'x');
+        ciphertext = pool.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public byte[] decryptPooled() throws AblyException {
+        return pool.decrypt(ciphertext);
+    }
+
+    @Benchmark
+    public byte[] decryptWithNewCipher() throws AblyException {
+        return Crypto.createChannelDecipher(params).decrypt(ciphertext);
+    }
+
+    @Benchmark
+    public byte[] encryptPooled() throws AblyException {
+        return pool.encrypt(ciphertext);
+    }
+}
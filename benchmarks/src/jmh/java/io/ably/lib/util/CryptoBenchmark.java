@@ -0,0 +1,74 @@
+package io.ably.lib.util;
+
+import io.ably.lib.types.AblyException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of AES-CBC encryption and decryption of message payloads with the channel ciphers.
+ * The {@code *WithNewCipher} variants include creating the cipher, as was done for every
+ * message by {@code BaseMessage.encode} and {@code decode} before they used the channel's
+ * {@link Crypto.ChannelCipherPool}; see {@link ChannelCipherPoolBenchmark} for the pool itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CryptoBenchmark {
+
+    @Param({"100", "1024", "65536"})
+    public int payloadSize;
+
+    @Param({"128", "256"})
+    public int keyLength;
+
+    private Crypto.CipherParams params;
+    private Crypto.EncryptingChannelCipher encipher;
+    private Crypto.DecryptingChannelCipher decipher;
+    private byte[] plaintext;
+    private byte[] ciphertext;
+
+    @Setup
+    public void setup() throws AblyException {
+        params = Crypto.getDefaultParams(Crypto.generateRandomKey(keyLength));
+        encipher = Crypto.createChannelEncipher(params);
+        decipher = Crypto.createChannelDecipher(params);
+        plaintext = new byte[payloadSize];
+        Arrays.fill(plaintext, (byte) 'x');
+        ciphertext = encipher.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws AblyException {
+        return encipher.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws AblyException {
+        return decipher.decrypt(ciphertext);
+    }
+
+    @Benchmark
+    public byte[] encryptWithNewCipher() throws AblyException {
+        return Crypto.createChannelEncipher(params).encrypt(plaintext);
+    }
+
+    @Benchmark
+    public byte[] decryptWithNewCipher() throws AblyException {
+        return Crypto.createChannelDecipher(params).decrypt(ciphertext);
+    }
+}
@@ -0,0 +1,101 @@
+package io.ably.lib.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message dispatch cost of {@link Multicaster} against listener count, compared with
+ * the previous implementation that took a lock and copied the member list for every
+ * dispatched message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MulticasterBenchmark {
+
+    interface Listener {
+        void onEvent(Object event);
+    }
+
+    static class SnapshotMulticaster extends Multicaster<Listener> implements Listener {
+        @Override
+        public void onEvent(Object event) {
+            final List<Listener> members = getMembers();
+            for (int i = 0; i < members.size(); i++)
+                members.get(i).onEvent(event);
+        }
+    }
+
+    /* The previous synchronized copy-per-dispatch implementation, kept for comparison */
+    static class LockingMulticaster implements Listener {
+        private final List<Listener> members = new ArrayList<>();
+
+        synchronized void add(Listener member) { members.add(member); }
+
+        synchronized List<Listener> getMembers() { return new ArrayList<>(members); }
+
+        @Override
+        public void onEvent(Object event) {
+            for (final Listener member : getMembers())
+                member.onEvent(event);
+        }
+    }
+
+    @Param({"1", "4", "16", "128"})
+    public int listenerCount;
+
+    private SnapshotMulticaster snapshot;
+    private LockingMulticaster locking;
+    private final Object event = new Object();
+
+    @Setup
+    public void setup(final Blackhole blackhole) {
+        snapshot = new SnapshotMulticaster();
+        locking = new LockingMulticaster();
+        for (int i = 0; i < listenerCount; i++) {
+            Listener listener = blackhole::consume;
+            snapshot.add(listener);
+            locking.add(listener);
+        }
+    }
+
+    @Benchmark
+    public void dispatchSnapshot() {
+        snapshot.onEvent(event);
+    }
+
+    @Benchmark
+    public void dispatchLocking() {
+        locking.onEvent(event);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void dispatchSnapshotContended() {
+        snapshot.onEvent(event);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void dispatchLockingContended() {
+        locking.onEvent(event);
+    }
+}
@@ -66,6 +66,8 @@ public class DebugOptions extends ClientOptions {
         copied.httpRequestTimeout = httpRequestTimeout;
         copied.httpMaxRetryDuration = httpMaxRetryDuration;
         copied.httpMaxRetryCount = httpMaxRetryCount;
+        copied.httpMaxConnectionsPerHost = httpMaxConnectionsPerHost;
+        copied.httpKeepAliveTimeout = httpKeepAliveTimeout;
         copied.realtimeRequestTimeout = realtimeRequestTimeout;
         copied.disconnectedRetryTimeout = disconnectedRetryTimeout;
         copied.suspendedRetryTimeout = suspendedRetryTimeout;
@@ -74,9 +76,18 @@ public class DebugOptions extends ClientOptions {
         copied.defaultTokenParams = defaultTokenParams;
         copied.channelRetryTimeout = channelRetryTimeout;
         copied.asyncHttpThreadpoolSize = asyncHttpThreadpoolSize;
+        copied.asyncHttpExecutor = asyncHttpExecutor;
         copied.pushFullWait = pushFullWait;
         copied.localStorage = localStorage;
         copied.addRequestIds = addRequestIds;
+        copied.asyncMessageDispatch = asyncMessageDispatch;
+        copied.messageDispatchExecutor = messageDispatchExecutor;
+        copied.messageDispatchQueueSize = messageDispatchQueueSize;
+        copied.messageDispatchOverflowPolicy = messageDispatchOverflowPolicy;
+        copied.maxInFlightMessages = maxInFlightMessages;
+        copied.inFlightWindowTimeout = inFlightWindowTimeout;
+        copied.metricsRecorder = metricsRecorder;
+        copied.tokenRenewalFraction = tokenRenewalFraction;
         copied.authCallback = authCallback;
         copied.authUrl = authUrl;
         copied.authMethod = authMethod;
@@ -2,6 +2,7 @@ package io.ably.lib.http;
 
 import io.ably.lib.types.ClientOptions;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -9,14 +10,17 @@ import java.util.concurrent.TimeUnit;
 import io.ably.lib.util.Log;
 
 /**
- * A HttpScheduler that uses a thread pool to run HTTP operations.
+ * A HttpScheduler that uses a thread pool to run HTTP operations, or the
+ * {@link ClientOptions#asyncHttpExecutor} if one is given.
  */
 public class AsyncHttpScheduler extends HttpScheduler {
     public AsyncHttpScheduler(HttpCore httpCore, ClientOptions options) {
-        super(httpCore, new CloseableThreadPoolExecutor(options));
+        super(httpCore, options.asyncHttpExecutor != null
+            ? new ExternalExecutor(options.asyncHttpExecutor)
+            : new CloseableThreadPoolExecutor(options));
     }
 
-    private AsyncHttpScheduler(HttpCore httpCore, CloseableExecutor executor) {
+    protected AsyncHttpScheduler(HttpCore httpCore, CloseableExecutor executor) {
         super(httpCore, executor);
     }
 
@@ -34,7 +38,29 @@ public class AsyncHttpScheduler extends HttpScheduler {
     }
 
     public void connect() {
-        ((CloseableThreadPoolExecutor) executor).connect();
+        if (executor instanceof CloseableThreadPoolExecutor) {
+            ((CloseableThreadPoolExecutor) executor).connect();
+        }
+    }
+
+    /**
+     * An executor supplied by the application, which is not shut down when the client is closed
+     */
+    private static class ExternalExecutor implements CloseableExecutor {
+        private final Executor executor;
+
+        ExternalExecutor(Executor executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute(final Runnable command) {
+            executor.execute(command);
+        }
+
+        @Override
+        public void close() {
+        }
     }
 
     private static class CloseableThreadPoolExecutor implements CloseableExecutor {
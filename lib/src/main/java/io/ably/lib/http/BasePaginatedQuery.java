@@ -156,10 +156,15 @@ public class BasePaginatedQuery<T> implements HttpCore.ResponseHandler<BasePagin
         if(error != null) {
             throw AblyException.fromErrorInfo(error);
         }
-        T[] responseContents = bodyHandler.handleResponseBody(response.contentType, response.body);
+        T[] responseContents = response.readBody(bodyHandler);
         return new BasePaginatedQuery.ResultPage(responseContents, response.getHeaderFields(HttpConstants.Headers.LINK));
     }
 
+    @Override
+    public boolean acceptsBodyStream() {
+        return bodyHandler instanceof HttpCore.StreamingBodyHandler;
+    }
+
     /****************
      * internal
      ****************/
@@ -222,6 +227,16 @@ public class BasePaginatedQuery<T> implements HttpCore.ResponseHandler<BasePagin
             });
         }
 
+        /**
+         * Iterate over the items of this page and all following pages,
+         * fetching up to prefetchPages pages ahead of the page being consumed.
+         * @param prefetchPages the maximum number of pages to hold ahead; at least 1
+         * @return A PaginatedResultIterator<T>, which should be closed if not iterated to the end
+         */
+        public PaginatedResultIterator<T> iterator(int prefetchPages) {
+            return new PaginatedResultIterator<T>(wrappedRequest, prefetchPages);
+        }
+
         /**
          * A ResultRequest that has already failed due to a previous condition.
          *
@@ -249,6 +264,11 @@ public class BasePaginatedQuery<T> implements HttpCore.ResponseHandler<BasePagin
             public void async(Callback<AsyncPaginatedResult<T>> callback) {
                 callback.onError(reason.errorInfo);
             }
+
+            @Override
+            public PaginatedResultIterator<T> iterator(int prefetchPages) {
+                return new PaginatedResultIterator<T>(reason);
+            }
         }
     }
 
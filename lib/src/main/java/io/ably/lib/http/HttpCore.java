@@ -4,6 +4,7 @@ import com.google.gson.JsonParseException;
 import io.ably.lib.debug.DebugOptions;
 import io.ably.lib.network.HttpBody;
 import io.ably.lib.network.FailedConnectionException;
+import io.ably.lib.network.HttpCallback;
 import io.ably.lib.network.HttpEngine;
 import io.ably.lib.network.HttpEngineConfig;
 import io.ably.lib.network.HttpEngineFactory;
@@ -22,9 +23,12 @@ import io.ably.lib.util.AgentHeaderCreator;
 import io.ably.lib.util.Base64Coder;
 import io.ably.lib.util.ClientOptionsUtils;
 import io.ably.lib.util.Log;
+import io.ably.lib.util.MetricsRecorder;
 import io.ably.lib.util.PlatformAgentProvider;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.net.HttpURLConnection;
 import java.net.URL;
@@ -32,6 +36,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * HttpCore performs authenticated HTTP synchronously. Internal; use Http or HttpScheduler instead.
@@ -113,7 +121,11 @@ public class HttpCore {
         } else {
             HttpEngineFactory engineFactory = HttpEngineFactory.getFirstAvailable();
             Log.v(TAG, String.format("Using %s HTTP Engine", engineFactory.getEngineType().name()));
-            this.engine = engineFactory.create(new HttpEngineConfig(ClientOptionsUtils.convertToProxyConfig(options)));
+            this.engine = engineFactory.create(HttpEngineConfig.builder()
+                .proxy(ClientOptionsUtils.convertToProxyConfig(options))
+                .maxConnectionsPerHost(options.httpMaxConnectionsPerHost)
+                .keepAliveTimeout(options.httpKeepAliveTimeout)
+                .build());
         }
     }
 
@@ -166,6 +178,90 @@ public class HttpCore {
         }
     }
 
+    /**
+     * Make an asynchronous HTTP request, retrying if necessary on WWW-Authenticate, without holding a thread
+     * while waiting for responses when the engine supports it (see {@link #isAsyncSupported()}).
+     *
+     * @param executor runs the steps that may block, which are obtaining or renewing a token
+     * @return a future completed with the result, or exceptionally with an AblyException
+     */
+    public <T> CompletableFuture<T> httpExecuteWithRetryAsync(final URL url, final String method, final Param[] headers, final RequestBody requestBody, final ResponseHandler<T> responseHandler, final boolean requireAblyAuth, final Executor executor) {
+        if (!requireAblyAuth) {
+            return attemptAsync(url, method, headers, requestBody, responseHandler, false, false, true, executor);
+        }
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        authorizeAsync(false, executor)
+            .thenCompose(ignored -> attemptAsync(url, method, headers, requestBody, responseHandler, true, true, true, executor))
+            .whenComplete((value, error) -> complete(result, value, error));
+        return result;
+    }
+
+    /**
+     * Whether the engine performs requests without blocking a thread while waiting for the response
+     */
+    public boolean isAsyncSupported() {
+        return engine.isAsyncSupported();
+    }
+
+    private <T> CompletableFuture<T> attemptAsync(final URL url, final String method, final Param[] headers, final RequestBody requestBody, final ResponseHandler<T> responseHandler,
+                                                  final boolean requireAblyAuth, final boolean renewPending, final boolean proxyAuthPending, final Executor executor) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        httpExecuteAsync(url, method, headers, requestBody, responseHandler).whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            if (error instanceof AuthRequiredException) {
+                AuthRequiredException are = (AuthRequiredException) error;
+                if (are.authChallenge != null && requireAblyAuth && are.expired && renewPending) {
+                    authorizeAsync(true, executor)
+                        .thenCompose(ignored -> attemptAsync(url, method, headers, requestBody, responseHandler, true, false, proxyAuthPending, executor))
+                        .whenComplete((retried, retryError) -> complete(result, retried, retryError));
+                    return;
+                }
+                if (are.proxyAuthChallenge != null && proxyAuthPending && proxyAuth != null) {
+                    try {
+                        proxyAuth.processAuthenticateHeaders(are.proxyAuthChallenge);
+                    } catch (AblyException e) {
+                        result.completeExceptionally(e);
+                        return;
+                    }
+                    attemptAsync(url, method, headers, requestBody, responseHandler, requireAblyAuth, renewPending, false, executor)
+                        .whenComplete((retried, retryError) -> complete(result, retried, retryError));
+                    return;
+                }
+            }
+            result.completeExceptionally(error);
+        });
+        return result;
+    }
+
+    private CompletableFuture<Void> authorizeAsync(final boolean renew, Executor executor) {
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    authorize(renew);
+                    result.complete(null);
+                } catch (Throwable t) {
+                    result.completeExceptionally(AblyException.fromThrowable(t));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(AblyException.fromThrowable(e));
+        }
+        return result;
+    }
+
+    /* completes the given future with the outcome of another, unwrapping the CompletionException of a dependent stage */
+    private static <T> void complete(CompletableFuture<T> future, T value, Throwable error) {
+        if (error == null) {
+            future.complete(value);
+        } else {
+            future.completeExceptionally((error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error);
+        }
+    }
+
     /**
      * Gets host for this HTTP client
      *
@@ -230,14 +326,104 @@ public class HttpCore {
      * @throws AblyException
      */
     <T> T httpExecute(URL url, String method, Param[] headers, RequestBody requestBody, boolean withCredentials, boolean withProxyCredentials, ResponseHandler<T> responseHandler) throws AblyException {
+        PreparedRequest prepared = prepareRequest(url, method, headers, requestBody, withCredentials, withProxyCredentials, acceptsBodyStream(responseHandler));
+        if (prepared.interceptedResponse != null) {
+            return handleResponse(prepared.credentialsIncluded, prepared.interceptedResponse, responseHandler);
+        }
+
+        final MetricsRecorder metrics = options.metricsRecorder;
+        final long start = (metrics != null) ? System.nanoTime() : 0;
+        Response response = null;
+
+        try {
+            response = toResponse(engine.call(prepared.request).execute());
+        } catch (Exception e) {
+            throw toAblyException(e);
+        } finally {
+            if (metrics != null) {
+                metrics.onHttpRequest(url.getHost(), method, (response != null) ? response.statusCode : 0, System.nanoTime() - start);
+            }
+        }
+
+        try {
+            prepared.onResponse(method, response);
+            return handleResponse(prepared.credentialsIncluded, response, responseHandler);
+        } finally {
+            response.closeBodyStream();
+        }
+    }
+
+    /**
+     * Make an asynchronous HTTP request, without holding a thread while waiting for the response.
+     * If the engine cannot perform requests asynchronously, the calling thread waits for the response.
+     *
+     * @return a future completed with the result, or exceptionally with an AblyException
+     */
+    <T> CompletableFuture<T> httpExecuteAsync(final URL url, final String method, Param[] headers, RequestBody requestBody, final ResponseHandler<T> responseHandler) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final PreparedRequest prepared;
+        try {
+            boolean withProxyCredentials = engine.isUsingProxy() && (proxyAuth != null);
+            /* the response is handled on the engine's callback thread, which must not block reading a streamed body,
+             * so the body is read in full by the engine before the callback */
+            prepared = prepareRequest(url, method, headers, requestBody, true, withProxyCredentials, false);
+            if (prepared.interceptedResponse != null) {
+                result.complete(handleResponse(prepared.credentialsIncluded, prepared.interceptedResponse, responseHandler));
+                return result;
+            }
+        } catch (Throwable t) {
+            result.completeExceptionally(AblyException.fromThrowable(t));
+            return result;
+        }
+
+        final MetricsRecorder metrics = options.metricsRecorder;
+        final long start = (metrics != null) ? System.nanoTime() : 0;
+        engine.call(prepared.request).enqueue(new HttpCallback() {
+            @Override
+            public void onResponse(HttpResponse rawResponse) {
+                Response response = null;
+                try {
+                    response = toResponse(rawResponse);
+                    if (metrics != null) {
+                        metrics.onHttpRequest(url.getHost(), method, response.statusCode, System.nanoTime() - start);
+                    }
+                    prepared.onResponse(method, response);
+                    result.complete(handleResponse(prepared.credentialsIncluded, response, responseHandler));
+                } catch (Throwable t) {
+                    result.completeExceptionally(AblyException.fromThrowable(t));
+                } finally {
+                    if (response != null) {
+                        response.closeBodyStream();
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                if (metrics != null) {
+                    metrics.onHttpRequest(url.getHost(), method, 0, System.nanoTime() - start);
+                }
+                result.completeExceptionally(toAblyException(error));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Builds the engine request, and offers it to any {@link DebugOptions.RawHttpListener}.
+     */
+    private PreparedRequest prepareRequest(URL url, String method, Param[] headers, RequestBody requestBody, boolean withCredentials, boolean withProxyCredentials, boolean streamResponse) throws AblyException {
         HttpRequest.HttpRequestBuilder requestBuilder = HttpRequest.builder();
+        /* a raw http listener is given the whole response, so the body is not streamed when there is one */
+        boolean hasRawHttpListener = (options instanceof DebugOptions) && ((DebugOptions) options).httpListener != null;
         /* prepare connection */
         requestBuilder
             .url(url)
             .method(method)
             .httpOpenTimeout(options.httpOpenTimeout)
             .httpReadTimeout(options.httpRequestTimeout)
-            .body(requestBody != null ? new HttpBody(requestBody.getContentType(), requestBody.getEncoded()) : null);
+            .body(requestBody != null ? new HttpBody(requestBody.getContentType(), requestBody.getEncoded()) : null)
+            .streamResponse(streamResponse && !hasRawHttpListener);
 
         Map<String, String> requestHeaders = collectRequestHeaders(url, method, headers, requestBody, withCredentials, withProxyCredentials);
         boolean credentialsIncluded = requestHeaders.containsKey(HttpConstants.Headers.AUTHORIZATION);
@@ -268,40 +454,26 @@ public class HttpCore {
             }
         }
 
-        DebugOptions.RawHttpListener rawHttpListener = null;
-        String id = null;
-
+        PreparedRequest prepared = new PreparedRequest(request, credentialsIncluded);
         if (options instanceof DebugOptions) {
-            rawHttpListener = ((DebugOptions) options).httpListener;
-            if (rawHttpListener != null) {
-                id = String.valueOf(Math.random()).substring(2);
-                Response response = rawHttpListener.onRawHttpRequest(id, request, (credentialsIncluded ? authHeader : null), requestProperties, requestBody);
-                if (response != null) {
-                    return handleResponse(credentialsIncluded, response, responseHandler);
-                }
+            prepared.rawHttpListener = ((DebugOptions) options).httpListener;
+            if (prepared.rawHttpListener != null) {
+                prepared.id = String.valueOf(Math.random()).substring(2);
+                prepared.interceptedResponse = prepared.rawHttpListener.onRawHttpRequest(prepared.id, request, (credentialsIncluded ? authHeader : null), requestProperties, requestBody);
             }
         }
+        return prepared;
+    }
 
+    private static boolean acceptsBodyStream(ResponseHandler<?> responseHandler) {
+        return responseHandler != null && responseHandler.acceptsBodyStream();
+    }
 
-        Response response;
-
-        try {
-            response = executeRequest(request);
-        } catch (FailedConnectionException exception) {
-            throw AblyException.fromThrowable(exception);
-        } catch (Exception e) {
-            if (e.getCause() instanceof IOException) {
-                throw AblyException.fromThrowable(e.getCause());
-            } else {
-                throw AblyException.fromThrowable(e);
-            }
-        }
-
-        if (rawHttpListener != null) {
-            rawHttpListener.onRawHttpResponse(id, method, response);
+    private static AblyException toAblyException(Throwable t) {
+        if (!(t instanceof FailedConnectionException) && t.getCause() instanceof IOException) {
+            return AblyException.fromThrowable(t.getCause());
         }
-
-        return handleResponse(credentialsIncluded, response, responseHandler);
+        return AblyException.fromThrowable(t);
     }
 
     private Map<String, String> collectRequestHeaders(URL url, String method, Param[] headers, RequestBody requestBody, boolean withCredentials, boolean withProxyCredentials) throws AblyException {
@@ -456,9 +628,7 @@ public class HttpCore {
     /**
      * Read the response for an HTTP request
      */
-    private Response executeRequest(HttpRequest request) {
-        HttpResponse rawResponse = engine.call(request).execute();
-
+    private Response toResponse(HttpResponse rawResponse) throws IOException {
         Response response = new Response();
         response.statusCode = rawResponse.getCode();
         response.statusLine = rawResponse.getMessage();
@@ -483,7 +653,22 @@ public class HttpCore {
         }
 
         response.contentType = rawResponse.getBody().getContentType();
-        response.body = rawResponse.getBody().getContent();
+        InputStream bodyStream = rawResponse.getBody().getStream();
+        if (bodyStream != null) {
+            if (response.statusCode >= 200 && response.statusCode < 300) {
+                /* left unread, for the response handler to parse as it reads */
+                response.bodyStream = bodyStream;
+                response.contentLength = -1;
+                return response;
+            }
+            try {
+                response.body = readFully(bodyStream);
+            } finally {
+                bodyStream.close();
+            }
+        } else {
+            response.body = rawResponse.getBody().getContent();
+        }
         response.contentLength = response.body == null ? 0 : response.body.length;
 
         if (Log.level <= Log.VERBOSE && response.body != null)
@@ -492,6 +677,16 @@ public class HttpCore {
         return response;
     }
 
+    static byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4 * 1024];
+        int bytesRead;
+        while ((bytesRead = inputStream.read(buffer)) > -1) {
+            outputStream.write(buffer, 0, bytesRead);
+        }
+        return outputStream.toByteArray();
+    }
+
     /**
      * [Internal Method]
      * <p>
@@ -519,6 +714,21 @@ public class HttpCore {
         T[] handleResponseBody(String contentType, byte[] body) throws AblyException;
     }
 
+    /**
+     * A BodyHandler that can also parse a response body as it is read, without it being
+     * buffered in full first. A streamed body is used only if the response handler asks for one
+     * (see {@link ResponseHandler#acceptsBodyStream()}) and the engine supports it.
+     *
+     * @param <T>
+     */
+    public interface StreamingBodyHandler<T> extends BodyHandler<T> {
+        /**
+         * @param contentType the content type of the response
+         * @param body the unread body; it is closed by the caller
+         */
+        T[] handleResponseStream(String contentType, InputStream body) throws AblyException;
+    }
+
     /**
      * Interface for an entity that performs type-specific processing on an httpCore response
      *
@@ -526,6 +736,14 @@ public class HttpCore {
      */
     public interface ResponseHandler<T> {
         T handleResponse(Response response, ErrorInfo error) throws AblyException;
+
+        /**
+         * Whether this handler reads a successful response with {@link Response#readBody(BodyHandler)},
+         * so the body may be left unread in {@link Response#bodyStream}.
+         */
+        default boolean acceptsBodyStream() {
+            return false;
+        }
     }
 
     /**
@@ -538,6 +756,43 @@ public class HttpCore {
         public String contentType;
         public int contentLength;
         public byte[] body;
+        /**
+         * The unread body of a successful response, when the response handler accepts one;
+         * body is then null, and contentLength is -1
+         */
+        public InputStream bodyStream;
+
+        /**
+         * Parses the body with the given handler, as it is read if the body is unread and the handler
+         * is a {@link StreamingBodyHandler}
+         */
+        public <T> T[] readBody(BodyHandler<T> bodyHandler) throws AblyException {
+            if (bodyStream != null) {
+                if (bodyHandler instanceof StreamingBodyHandler) {
+                    return ((StreamingBodyHandler<T>) bodyHandler).handleResponseStream(contentType, bodyStream);
+                }
+                try {
+                    body = readFully(bodyStream);
+                    contentLength = body.length;
+                } catch (IOException e) {
+                    throw AblyException.fromThrowable(e);
+                } finally {
+                    closeBodyStream();
+                }
+            }
+            return bodyHandler.handleResponseBody(contentType, body);
+        }
+
+        void closeBodyStream() {
+            if (bodyStream != null) {
+                try {
+                    bodyStream.close();
+                } catch (IOException e) {
+                    /* the response has been read as far as it is needed */
+                }
+                bodyStream = null;
+            }
+        }
 
         /**
          * Returns the value of the named header field.
@@ -571,6 +826,29 @@ public class HttpCore {
         }
     }
 
+    /**
+     * An engine request, with the state needed to handle its response
+     */
+    private static class PreparedRequest {
+        final HttpRequest request;
+        final boolean credentialsIncluded;
+        DebugOptions.RawHttpListener rawHttpListener;
+        String id;
+        /* a response supplied by the RawHttpListener instead of making the request */
+        Response interceptedResponse;
+
+        PreparedRequest(HttpRequest request, boolean credentialsIncluded) {
+            this.request = request;
+            this.credentialsIncluded = credentialsIncluded;
+        }
+
+        void onResponse(String method, Response response) {
+            if (rawHttpListener != null) {
+                rawHttpListener.onRawHttpResponse(id, method, response);
+            }
+        }
+    }
+
     /**
      * Exception signifying that an httpCore request failed with a WWW-Authenticate response
      */
@@ -191,11 +191,6 @@ public class HttpScheduler implements AutoCloseable {
             this.requireAblyAuth = requireAblyAuth;
         }
 
-        private String extendMessage(String msg) {
-            return Param.getFirst(params, "request_id") == null ?
-                msg : String.format(Locale.ROOT, "%s request_id=%s", msg, Param.getFirst(params, "request_id"));
-        }
-
         @Override
         public void run() {
             String preferredHost = httpCore.hosts.getPreferredHost();
@@ -213,20 +208,20 @@ public class HttpScheduler implements AutoCloseable {
                     break;
                 } catch (AblyException.HostFailedException e) {
                     if(--retryCountRemaining < 0) {
-                        e.errorInfo.message = extendMessage(e.errorInfo.message);
+                        e.errorInfo.message = extendMessage(params, e.errorInfo.message);
                         setError(e.errorInfo);
                         break;
                     }
-                    Log.d(TAG, extendMessage("Connection failed to host `" + candidateHost + "`. Searching for new host..."));
+                    Log.d(TAG, extendMessage(params, "Connection failed to host `" + candidateHost + "`. Searching for new host..."));
                     candidateHost = httpCore.hosts.getFallback(candidateHost);
                     if (candidateHost == null) {
-                        e.errorInfo.message = extendMessage(e.errorInfo.message);
+                        e.errorInfo.message = extendMessage(params, e.errorInfo.message);
                         setError(e.errorInfo);
                         break;
                     }
-                    Log.d(TAG, extendMessage("Switched to `" + candidateHost + "`."));
+                    Log.d(TAG, extendMessage(params, "Switched to `" + candidateHost + "`."));
                 } catch(AblyException e) {
-                    e.errorInfo.message = extendMessage(e.errorInfo.message);
+                    e.errorInfo.message = extendMessage(params, e.errorInfo.message);
                     setError(e.errorInfo);
                     break;
                 } finally {
@@ -447,8 +442,16 @@ public class HttpScheduler implements AutoCloseable {
         return request;
     }
 
+    /**
+     * Appends the request id, if the request has one, to a message about the request
+     */
+    static String extendMessage(Param[] params, String msg) {
+        return Param.getFirst(params, "request_id") == null ?
+            msg : String.format(Locale.ROOT, "%s request_id=%s", msg, Param.getFirst(params, "request_id"));
+    }
+
     protected final CloseableExecutor executor;
-    private final HttpCore httpCore;
+    final HttpCore httpCore;
     private final Clock clock;
 
     protected static final String TAG = HttpScheduler.class.getName();
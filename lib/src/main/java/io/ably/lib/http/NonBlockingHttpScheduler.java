@@ -0,0 +1,179 @@
+package io.ably.lib.http;
+
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+
+import io.ably.lib.types.AblyException;
+import io.ably.lib.types.Callback;
+import io.ably.lib.types.ClientOptions;
+import io.ably.lib.types.Param;
+import io.ably.lib.util.Log;
+
+/**
+ * An async HttpScheduler for HTTP engines that perform requests without blocking
+ * (see {@link HttpCore#isAsyncSupported()}).
+ * <p>
+ * Each operation, including its reauthentication on WWW-Authenticate and its retries on fallback
+ * hosts, is composed of CompletableFutures over the engine's asynchronous calls. A thread from the
+ * executor is used only to obtain a token or to call the callback, and never while waiting on the
+ * network, so the number of requests in flight is not bounded by the size of the executor.
+ */
+public class NonBlockingHttpScheduler extends AsyncHttpScheduler {
+    public NonBlockingHttpScheduler(HttpCore httpCore, ClientOptions options) {
+        super(httpCore, options);
+    }
+
+    private NonBlockingHttpScheduler(HttpCore httpCore, CloseableExecutor executor) {
+        super(httpCore, executor);
+    }
+
+    @Override
+    public AsyncHttpScheduler exchangeHttpCore(HttpCore httpCore) {
+        return new NonBlockingHttpScheduler(httpCore, this.executor);
+    }
+
+    /**
+     * Shuts down the executor, unless it was supplied by the application.
+     * Unlike {@link HttpScheduler#close()} this throws only AblyException, so a try-with-resources
+     * statement using this scheduler need not handle InterruptedException.
+     */
+    @Override
+    public void close() throws AblyException {
+        try {
+            super.close();
+        } catch (AblyException e) {
+            throw e;
+        } catch (Exception e) {
+            throw AblyException.fromThrowable(e);
+        }
+    }
+
+    @Override
+    public <T> Future<T> httpExecute(
+            final URL url,
+            final String method,
+            final Param[] headers,
+            final HttpCore.RequestBody requestBody,
+            final HttpCore.ResponseHandler<T> responseHandler,
+            final Callback<T> callback) {
+
+        return deliver(httpCore.httpExecuteWithRetryAsync(url, method, headers, requestBody, responseHandler, false, executor), callback);
+    }
+
+    @Override
+    public <T> Future<T> ablyHttpExecuteWithRetry(
+            final String host,
+            final String path,
+            final String method,
+            final Param[] headers,
+            final Param[] params,
+            final HttpCore.RequestBody requestBody,
+            final HttpCore.ResponseHandler<T> responseHandler,
+            final boolean requireAblyAuth,
+            final Callback<T> callback) {
+
+        URL url = HttpUtils.buildURL(httpCore.scheme, host, httpCore.port, path, params);
+        return deliver(httpCore.httpExecuteWithRetryAsync(url, method, headers, requestBody, responseHandler, requireAblyAuth, executor), callback);
+    }
+
+    @Override
+    public <T> Future<T> ablyHttpExecuteWithFallback(
+            final String path,
+            final String method,
+            final Param[] headers,
+            final Param[] params,
+            final HttpCore.RequestBody requestBody,
+            final HttpCore.ResponseHandler<T> responseHandler,
+            final boolean requireAblyAuth,
+            final Callback<T> callback) {
+
+        final String preferredHost = httpCore.hosts.getPreferredHost();
+        final int retryCount = (httpCore.hosts.fallbackHostsRemaining(preferredHost) > 0) ? httpCore.options.httpMaxRetryCount : 0;
+        final FallbackRequest<T> request = new FallbackRequest<>(path, method, headers, params, requestBody, responseHandler, requireAblyAuth, preferredHost);
+        request.attempt(preferredHost, retryCount);
+        return deliver(request.result, callback);
+    }
+
+    /**
+     * A request to an Ably endpoint specified by path, which moves on to the next fallback host
+     * each time a host fails, until it succeeds or runs out of retries.
+     */
+    private class FallbackRequest<T> {
+        private final String path;
+        private final String method;
+        private final Param[] headers;
+        private final Param[] params;
+        private final HttpCore.RequestBody requestBody;
+        private final HttpCore.ResponseHandler<T> responseHandler;
+        private final boolean requireAblyAuth;
+        private final String preferredHost;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private FallbackRequest(String path, String method, Param[] headers, Param[] params, HttpCore.RequestBody requestBody,
+                                HttpCore.ResponseHandler<T> responseHandler, boolean requireAblyAuth, String preferredHost) {
+            this.path = path;
+            this.method = method;
+            this.headers = headers;
+            this.params = params;
+            this.requestBody = requestBody;
+            this.responseHandler = responseHandler;
+            this.requireAblyAuth = requireAblyAuth;
+            this.preferredHost = preferredHost;
+        }
+
+        private void attempt(final String candidateHost, final int retryCountRemaining) {
+            if (result.isDone()) {
+                /* cancelled */
+                return;
+            }
+            URL url = HttpUtils.buildURL(httpCore.scheme, candidateHost, httpCore.port, path, params);
+            httpCore.httpExecuteWithRetryAsync(url, method, headers, requestBody, responseHandler, requireAblyAuth, executor)
+                .whenComplete((value, error) -> {
+                    if (error == null) {
+                        if (!candidateHost.equals(preferredHost)) {
+                            httpCore.hosts.setPreferredHost(candidateHost, true);
+                        }
+                        result.complete(value);
+                        return;
+                    }
+                    AblyException e = AblyException.fromThrowable(unwrap(error));
+                    if (e instanceof AblyException.HostFailedException && retryCountRemaining > 0) {
+                        Log.d(TAG, extendMessage(params, "Connection failed to host `" + candidateHost + "`. Searching for new host..."));
+                        String fallbackHost = httpCore.hosts.getFallback(candidateHost);
+                        if (fallbackHost != null) {
+                            Log.d(TAG, extendMessage(params, "Switched to `" + fallbackHost + "`."));
+                            attempt(fallbackHost, retryCountRemaining - 1);
+                            return;
+                        }
+                    }
+                    e.errorInfo.message = extendMessage(params, e.errorInfo.message);
+                    result.completeExceptionally(e);
+                });
+        }
+    }
+
+    /**
+     * Calls the callback, on the executor, once the operation completes, unless it was cancelled
+     */
+    private <T> Future<T> deliver(final CompletableFuture<T> future, final Callback<T> callback) {
+        if (callback != null) {
+            future.whenCompleteAsync((value, error) -> {
+                if (future.isCancelled()) {
+                    return;
+                }
+                if (error == null) {
+                    callback.onSuccess(value);
+                } else {
+                    callback.onError(AblyException.fromThrowable(unwrap(error)).errorInfo);
+                }
+            }, executor);
+        }
+        return future;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+    }
+}
@@ -0,0 +1,164 @@
+package io.ably.lib.http;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import io.ably.lib.types.AblyException;
+import io.ably.lib.types.BasePaginatedResult;
+import io.ably.lib.types.Callback;
+import io.ably.lib.types.ErrorInfo;
+
+/**
+ * An iterator over the items of every page of a paginated query.
+ * <p>
+ * Pages are requested with the async HttpScheduler, following each page's
+ * next link, so a page is fetched and decoded on a worker thread while
+ * the caller is still consuming the items of an earlier page. At most
+ * prefetchPages pages are held in addition to the page being consumed;
+ * once that many are waiting, no further page is requested until the
+ * caller moves on to the next one.
+ * <p>
+ * hasNext() blocks until the next page has arrived. If a page request fails,
+ * hasNext() and next() throw a RuntimeException whose cause is the AblyException.
+ * Call close() to stop prefetching when abandoning the iteration early.
+ *
+ * @param <T>
+ */
+public class PaginatedResultIterator<T> implements Iterator<T>, AutoCloseable {
+
+    /**
+     * Construct an iterator and request the first page
+     *
+     * @param firstPage the request for the first page of the query
+     * @param prefetchPages the maximum number of pages to hold ahead of the page being consumed; at least 1
+     */
+    public PaginatedResultIterator(Http.Request<BasePaginatedResult<T>> firstPage, int prefetchPages) {
+        if (prefetchPages < 1) {
+            throw new IllegalArgumentException("prefetchPages must be at least 1");
+        }
+        this.prefetchPages = prefetchPages;
+        this.nextRequest = firstPage;
+        fetchIfNeeded();
+    }
+
+    /**
+     * Construct an iterator for a query that has already failed
+     */
+    PaginatedResultIterator(AblyException error) {
+        this.prefetchPages = 1;
+        this.error = error;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (items == null || index >= items.length) {
+            BasePaginatedResult<T> page = takePage();
+            if (page == null) {
+                items = null;
+                return false;
+            }
+            items = page.items();
+            index = 0;
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return items[index++];
+    }
+
+    /**
+     * Stop requesting pages and discard any pages already fetched
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            pages.clear();
+            nextRequest = null;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Wait for the next page, and request a further page now that there is room for it
+     * @return the page, or null if there are no more pages
+     */
+    private BasePaginatedResult<T> takePage() {
+        BasePaginatedResult<T> page;
+        synchronized (this) {
+            while (pages.isEmpty() && fetching && !closed && error == null) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e.getMessage(), AblyException.fromThrowable(e));
+                }
+            }
+            page = pages.poll();
+            if (page == null) {
+                if (error != null && !closed) {
+                    throw new RuntimeException(error.getMessage(), error);
+                }
+                return null;
+            }
+        }
+        fetchIfNeeded();
+        return page;
+    }
+
+    /**
+     * Request the next page, unless a request is already in flight, there is no room to hold
+     * the page, or there are no more pages
+     */
+    private void fetchIfNeeded() {
+        Http.Request<BasePaginatedResult<T>> request;
+        synchronized (this) {
+            if (fetching || closed || error != null || nextRequest == null || pages.size() >= prefetchPages) {
+                return;
+            }
+            request = nextRequest;
+            nextRequest = null;
+            fetching = true;
+        }
+        request.async(new Callback<BasePaginatedResult<T>>() {
+            @Override
+            public void onSuccess(BasePaginatedResult<T> page) {
+                synchronized (PaginatedResultIterator.this) {
+                    fetching = false;
+                    if (!closed && page != null) {
+                        pages.add(page);
+                        nextRequest = page.hasNext() ? page.next() : null;
+                    }
+                    PaginatedResultIterator.this.notifyAll();
+                }
+                fetchIfNeeded();
+            }
+
+            @Override
+            public void onError(ErrorInfo reason) {
+                synchronized (PaginatedResultIterator.this) {
+                    fetching = false;
+                    error = AblyException.fromErrorInfo(reason);
+                    PaginatedResultIterator.this.notifyAll();
+                }
+            }
+        });
+    }
+
+    private final int prefetchPages;
+    private final ArrayDeque<BasePaginatedResult<T>> pages = new ArrayDeque<>();
+    private Http.Request<BasePaginatedResult<T>> nextRequest;
+    private boolean fetching;
+    private boolean closed;
+    private AblyException error;
+
+    /* the page being consumed; accessed by the consuming thread only */
+    private T[] items;
+    private int index;
+}
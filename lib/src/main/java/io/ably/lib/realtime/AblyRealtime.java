@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import io.ably.lib.liveobjects.LiveObjectsPlugin;
 import io.ably.lib.rest.AblyRest;
@@ -16,6 +17,7 @@ import io.ably.lib.types.ErrorInfo;
 import io.ably.lib.types.ProtocolMessage;
 import io.ably.lib.types.ReadOnlyMap;
 import io.ably.lib.types.RecoveryKeyContext;
+import io.ably.lib.util.BackgroundExecutor;
 import io.ably.lib.util.InternalMap;
 import io.ably.lib.util.Log;
 import io.ably.lib.util.StringUtils;
@@ -50,6 +52,17 @@ public class AblyRealtime extends AblyRest {
     @Nullable
     private final LiveObjectsPlugin liveObjectsPlugin;
 
+    /**
+     * Executor shared by the channels' ordered message dispatch queues;
+     * null unless {@link ClientOptions#asyncMessageDispatch} is set.
+     */
+    final Executor messageDispatchExecutor;
+
+    /**
+     * The serials of the attached channels, kept up to date by the channels, for the recovery key
+     */
+    final RecoveryKeyState recoveryKeyState = new RecoveryKeyState();
+
     /**
      * Constructs a Realtime client object using an Ably API key or token string.
      * <p>
@@ -70,6 +83,7 @@ public class AblyRealtime extends AblyRest {
      */
     public AblyRealtime(ClientOptions options) throws AblyException {
         super(options);
+        messageDispatchExecutor = createMessageDispatchExecutor(options);
         final InternalChannels channels = new InternalChannels();
         this.channels = channels;
 
@@ -88,6 +102,17 @@ public class AblyRealtime extends AblyRest {
         if(options.autoConnect) connection.connect();
     }
 
+    private static Executor createMessageDispatchExecutor(ClientOptions options) throws AblyException {
+        if (!options.asyncMessageDispatch) return null;
+        if (options.messageDispatchQueueSize <= 0) {
+            throw AblyException.fromErrorInfo(new ErrorInfo("messageDispatchQueueSize must be positive", 400, 40000));
+        }
+        if (options.messageDispatchExecutor != null) return options.messageDispatchExecutor;
+
+        /* idle threads exit, so the pool needs no explicit shutdown when the client is closed */
+        return BackgroundExecutor.newPool("ably-dispatch", Runtime.getRuntime().availableProcessors());
+    }
+
     /**
      * Calls {@link Connection#connect} and causes the connection to open,
      * entering the connecting state. Explicitly calling connect() is unnecessary
@@ -144,6 +169,22 @@ public class AblyRealtime extends AblyRest {
         connection.connectionManager.onAuthUpdatedAsync(token,authUpdateResult);
     }
 
+    /**
+     * Token renewed ahead of its expiry; a connected connection is upgraded to it in place (RTC8a),
+     * while any other connection will use it when it next connects
+     */
+    @Override
+    protected void onTokenRenewed(String token) {
+        if(connection.state != ConnectionState.connected) {
+            return;
+        }
+        connection.connectionManager.onAuthUpdatedAsync(token, (success, errorInfo) -> {
+            if(!success) {
+                Log.w(TAG, "Unable to upgrade connection to renewed token: " + errorInfo);
+            }
+        });
+    }
+
     /**
      * Authentication error occurred
      */
@@ -239,13 +280,8 @@ public class AblyRealtime extends AblyRest {
 
         @Override
         public void onMessage(ProtocolMessage msg) {
-            String channelName = msg.channel;
-            Channel channel = null;
-            synchronized(this) {
-                if (channels.containsKey(channelName)) {
-                    channel = channels.get(channelName);
-                }
-            }
+            /* a single lookup on the concurrent map, so routing takes no lock that application threads contend for */
+            Channel channel = (msg.channel != null) ? map.get(msg.channel) : null;
             if(channel == null) {
                 Log.e(TAG, "Received channel message for non-existent channel");
                 return;
@@ -301,13 +337,7 @@ public class AblyRealtime extends AblyRest {
     }
 
     protected Map<String, String> getChannelSerials() {
-        Map<String, String> channelSerials = new HashMap<>();
-        for (Channel channel : this.channels.values()) {
-            if (channel.state == ChannelState.attached) {
-                channelSerials.put(channel.name, channel.properties.channelSerial);
-            }
-        }
-        return channelSerials;
+        return recoveryKeyState.getChannelSerials();
     }
 
     /********************
@@ -13,6 +13,7 @@ import io.ably.lib.http.BasePaginatedQuery;
 import io.ably.lib.http.Http;
 import io.ably.lib.http.HttpCore;
 import io.ably.lib.http.HttpUtils;
+import io.ably.lib.http.PaginatedResultIterator;
 import io.ably.lib.liveobjects.RealtimeObject;
 import io.ably.lib.liveobjects.LiveObjectsPlugin;
 import io.ably.lib.rest.MessageEditsMixin;
@@ -50,8 +51,10 @@ import io.ably.lib.util.CollectionUtils;
 import io.ably.lib.util.EventEmitter;
 import io.ably.lib.util.Listeners;
 import io.ably.lib.util.Log;
+import io.ably.lib.util.MetricsRecorder;
 import io.ably.lib.util.AblyTimer;
 import io.ably.lib.util.ReconnectionStrategy;
+import io.ably.lib.util.SerialExecutor;
 import io.ably.lib.util.StringUtils;
 import io.ably.lib.util.SystemClock;
 import org.jetbrains.annotations.Blocking;
@@ -171,6 +174,13 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
             properties.channelSerial = null;
         }
 
+        // RTN16g: only attached channels are recovered
+        if (newState == ChannelState.attached) {
+            ably.recoveryKeyState.setChannelSerial(this, name, properties.channelSerial);
+        } else {
+            ably.recoveryKeyState.removeChannel(this, name);
+        }
+
         if(notifyStateChange) {
             /* broadcast state change */
             emit(newState, stateChange);
@@ -238,6 +248,7 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
      * */
     synchronized void transferQueuedPresenceMessages(List<QueuedMessage> messagesToTransfer) {
         state = ChannelState.attaching;
+        ably.recoveryKeyState.removeChannel(this, name);
         if (messagesToTransfer != null) {
             for (QueuedMessage queuedMessage : messagesToTransfer) {
                 PresenceMessage[] presenceMessages = queuedMessage.msg.presence;
@@ -897,8 +908,28 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
      * internal
      *
      */
+    /**
+     * Decodes the messages of a protocol message on the calling (transport) thread, and delivers them
+     * either directly or, if {@link io.ably.lib.types.ClientOptions#asyncMessageDispatch} is set, on this
+     * channel's ordered dispatch queue. Decoding stays on the transport thread in either case, so the
+     * delta base and the decode failure recovery (RTL18, RTL20) are only ever touched by that thread.
+     */
     private void onMessage(final ProtocolMessage protocolMessage) {
         Log.v(TAG, "onMessage(); channel = " + name);
+        final int decodedCount = decodeMessages(protocolMessage);
+        if (messageDispatcher == null) {
+            deliverMessages(protocolMessage, decodedCount);
+        } else if (decodedCount > 0) {
+            dispatchMessages(protocolMessage, decodedCount);
+        }
+    }
+
+    /**
+     * Decodes the messages of a protocol message, starting decode failure recovery if a delta cannot be applied.
+     * @return the number of messages decoded, which is less than the number in the protocol message if
+     * recovery was started; the messages after the one that failed are skipped
+     */
+    private int decodeMessages(final ProtocolMessage protocolMessage) {
         final Message[] messages = protocolMessage.messages;
         final Message firstMessage = messages[0];
         final Message lastMessage = messages[messages.length - 1];
@@ -907,9 +938,13 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
         if (null != deltaExtras && !deltaExtras.getFrom().equals(this.lastPayloadMessageId)) {
             Log.e(TAG, String.format(Locale.ROOT, "Delta message decode failure - previous message not available. Message id = %s, channel = %s", firstMessage.id, name));
             startDecodeFailureRecovery();
-            return;
+            return 0;
         }
 
+        final MetricsRecorder metrics = ably.options.metricsRecorder;
+        long decodeNanos = 0;
+        int deliveredCount = 0;
+
         for(int i = 0; i < messages.length; i++) {
             final Message msg = messages[i];
 
@@ -928,8 +963,18 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
             // (TM8a)
             if(msg.annotations.summary == null) msg.annotations.summary = new Summary(new HashMap<>());
 
+            /* messages no listener will receive are decoded only as far as the vcdiff base requires */
+            final MessageMulticaster listeners = eventListeners.get(msg.name);
+            final boolean delivered = !this.listeners.isEmpty() || (listeners != null && !listeners.isEmpty());
+
+            if (delivered) ++deliveredCount;
+
+            final long decodeStart = (metrics != null) ? clock.nanoTime() : 0;
             try {
-                if (msg.data != null) msg.decode(options, decodingContext);
+                if (msg.data != null) {
+                    if (delivered) msg.decode(options, decodingContext);
+                    else msg.decodeDeltaBase(options, decodingContext);
+                }
             } catch (MessageDecodeException e) {
                 if (e.errorInfo.code == 40018) {
                     Log.e(TAG, String.format(Locale.ROOT, "Delta message decode failure - %s. Message id = %s, channel = %s", e.errorInfo.message, msg.id, name));
@@ -942,27 +987,84 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
                         Log.v(TAG, String.format(Locale.ROOT, "Delta recovery in progress - message skipped. Message id = %s, channel = %s", jIdToLog, name));
                     }
 
-                    return;
+                    return i;
                 }
                 else {
                     Log.e(TAG, String.format(Locale.ROOT, "Message decode failure - %s. Message id = %s, channel = %s", e.errorInfo.message, msg.id, name));
                 }
             }
-
-            /* broadcast */
-            final MessageMulticaster listeners = eventListeners.get(msg.name);
-            if(listeners != null)
-                listeners.onMessage(msg);
+            if (metrics != null) decodeNanos += clock.nanoTime() - decodeStart;
         }
 
         lastPayloadMessageId = lastMessage.id;
         lastPayloadProtocolMessageChannelSerial = protocolMessage.channelSerial;
 
+        if (metrics != null) metrics.onChannelMessages(name, messages.length, deliveredCount, decodeNanos);
+        return messages.length;
+    }
+
+    /**
+     * Delivers decoded messages to the listeners subscribed to their names; and, if every message of the
+     * protocol message was decoded, to the listeners subscribed to all messages.
+     */
+    private void deliverMessages(final ProtocolMessage protocolMessage, final int decodedCount) {
+        final Message[] messages = protocolMessage.messages;
+        for (int i = 0; i < decodedCount; i++) {
+            final MessageMulticaster listeners = eventListeners.get(messages[i].name);
+            if (listeners != null)
+                listeners.onMessage(messages[i]);
+        }
+        if (decodedCount < messages.length) {
+            return;
+        }
         for (final Message msg : messages) {
             this.listeners.onMessage(msg);
         }
     }
 
+    private void dispatchMessages(final ProtocolMessage protocolMessage, final int decodedCount) {
+        boolean queued = messageDispatcher.offer(new Runnable() {
+            @Override
+            public void run() {
+                if (state != ChannelState.attached) {
+                    /* RTL17: the channel left the attached state after this message was queued */
+                    Log.v(TAG, "dispatchMessages(): channel no longer attached; message skipped; channel = " + name);
+                    return;
+                }
+                deliverMessages(protocolMessage, decodedCount);
+            }
+        });
+        if (queued) {
+            dispatchOverflowing = false;
+        } else if (!dispatchOverflowing) {
+            /* report the start of each run of discarded messages, rather than every message */
+            dispatchOverflowing = true;
+            Log.w(TAG, "dispatchMessages(): dispatch queue full; messages discarded; channel = " + name);
+            emitUpdate(new ErrorInfo("Messages discarded; channel message dispatch queue is full", 500, 50000), false);
+        }
+    }
+
+    /**
+     * Returns queue depth and backpressure counters for this channel's message dispatch queue,
+     * or null if {@link io.ably.lib.types.ClientOptions#asyncMessageDispatch} is not enabled.
+     */
+    public SerialExecutor.Stats getMessageDispatchStats() {
+        return messageDispatcher == null ? null : messageDispatcher.getStats();
+    }
+
+    /**
+     * Returns the number, size and decode time of the vcdiff deltas received on this channel, and
+     * the bytes they saved over full payloads. Deltas are received only when requested with the
+     * {@code delta} channel parameter.
+     */
+    public DecodingContext.DeltaStats getDeltaStats() {
+        return decodingContext.getDeltaStats();
+    }
+
+    /**
+     * Reattaches to resume from the last message decoded (RTL18). Called on the transport thread only,
+     * so at most one recovery is started however many messages fail to decode.
+     */
     private void startDecodeFailureRecovery() {
         if (this.decodeFailureRecoveryInProgress) {
             return;
@@ -988,9 +1090,11 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
     private static class MessageMulticaster extends io.ably.lib.util.Multicaster<MessageListener> implements MessageListener {
         @Override
         public void onMessage(Message message) {
-            for (final MessageListener member : getMembers())
+            /* indexed loop over the immutable snapshot avoids an iterator per message */
+            final List<MessageListener> members = getMembers();
+            for (int i = 0; i < members.size(); i++)
                 try {
-                    member.onMessage(message);
+                    members.get(i).onMessage(message);
                 } catch (Throwable t) {
                     Log.e(TAG, "Unexpected exception calling listener", t);
                 }
@@ -1030,7 +1134,6 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
      * @param data the message payload
      * @throws AblyException
      */
-    @NonBlocking
     public void publish(String name, Object data) throws AblyException {
         publish(name, data, (Callback<PublishResult>) null);
     }
@@ -1043,7 +1146,6 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
      * @param message A {@link Message} object.
      * @throws AblyException
      */
-    @NonBlocking
     public void publish(Message message) throws AblyException {
         publish(message, (Callback<PublishResult>) null);
     }
@@ -1056,7 +1158,6 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
      * @param messages An array of {@link Message} objects.
      * @throws AblyException
      */
-    @NonBlocking
     public void publish(Message[] messages) throws AblyException {
         publish(messages, (Callback<PublishResult>) null);
     }
@@ -1077,7 +1178,6 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
      * @deprecated Use {@link #publish(String, Object, Callback)} instead.
      */
     @Deprecated
-    @NonBlocking
     public void publish(String name, Object data, CompletionListener listener) throws AblyException {
         Log.v(TAG, "publish(String, Object); channel = " + this.name + "; event = " + name);
         publish(new Message[] {new Message(name, data)}, listener);
@@ -1098,7 +1198,6 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
      * This callback is invoked on a background thread.
      * @throws AblyException
      */
-    @NonBlocking
     public void publish(String name, Object data, Callback<PublishResult> callback) throws AblyException {
         Log.v(TAG, "publish(String, Object); channel = " + this.name + "; event = " + name);
         publish(new Message[] {new Message(name, data)}, callback);
@@ -1117,7 +1216,6 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
      * @deprecated Use {@link #publish(Message, Callback)} instead.
      */
     @Deprecated
-    @NonBlocking
     public void publish(Message message, CompletionListener listener) throws AblyException {
         Log.v(TAG, "publish(Message); channel = " + this.name + "; event = " + message.name);
         publish(new Message[] {message}, listener);
@@ -1135,7 +1233,6 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
      * This callback is invoked on a background thread.
      * @throws AblyException
      */
-    @NonBlocking
     public void publish(Message message, Callback<PublishResult> callback) throws AblyException {
         Log.v(TAG, "publish(Message); channel = " + this.name + "; event = " + message.name);
         publish(new Message[] {message}, callback);
@@ -1154,13 +1251,17 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
      * @deprecated Use {@link #publish(Message[], Callback)} instead.
      */
     @Deprecated
-    @NonBlocking
-    public synchronized void publish(Message[] messages, CompletionListener listener) throws AblyException {
+    public void publish(Message[] messages, CompletionListener listener) throws AblyException {
         publish(messages, Listeners.fromCompletionListener(listener));
     }
 
-    @NonBlocking
-    public synchronized void publish(Message[] messages, Callback<PublishResult> listener) throws AblyException {
+    public void publish(Message[] messages, Callback<PublishResult> listener) throws AblyException {
+        /* wait for room in the in-flight window, if one is configured, without holding the channel lock */
+        ably.connection.connectionManager.awaitPublishCapacity();
+        publishImpl(messages, listener);
+    }
+
+    private synchronized void publishImpl(Message[] messages, Callback<PublishResult> listener) throws AblyException {
         Log.v(TAG, "publish(Message[]); channel = " + this.name);
         ConnectionManager connectionManager = ably.connection.connectionManager;
         ConnectionManager.State connectionState = connectionManager.getConnectionState();
@@ -1180,6 +1281,14 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
             callCompletionListenerError(listener, e.errorInfo);
             return;
         }
+        if(publishBatcher != null) {
+            publishBatcher.publish(messages, listener);
+        } else {
+            sendMessages(messages, listener);
+        }
+    }
+
+    private void sendMessages(Message[] messages, Callback<PublishResult> listener) throws AblyException {
         ProtocolMessage msg = new ProtocolMessage(Action.message, this.name);
         msg.messages = messages;
         switch(state) {
@@ -1187,7 +1296,30 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
         case suspended:
             throw AblyException.fromErrorInfo(new ErrorInfo("Unable to publish in failed or suspended state", 400, 40000));
         default:
-            connectionManager.send(msg, queueMessages, listener);
+            ably.connection.connectionManager.send(msg, ably.options.queueMessages, listener);
+        }
+    }
+
+    /**
+     * Replaces the publish batcher to match the given options, sending anything batched under the old ones.
+     */
+    private synchronized void updatePublishBatcher(ChannelOptions options) {
+        if(publishBatcher != null) {
+            publishBatcher.dispose();
+            publishBatcher = null;
+        }
+        if(options != null && options.publishBatchInterval > 0) {
+            publishBatcher = new PublishBatcher(new PublishBatcher.Sink() {
+                @Override
+                public void send(Message[] messages, Callback<PublishResult> listener) throws AblyException {
+                    sendMessages(messages, listener);
+                }
+
+                @Override
+                public int maxMessageSize() {
+                    return ably.connection.connectionManager.maxMessageSize;
+                }
+            }, clock.newTimer("publish-batch-timer"), options.publishBatchInterval, options.publishBatchMaxSize);
         }
     }
 
@@ -1580,6 +1712,23 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
         historyImpl(http, params).async(callback);
     }
 
+    /**
+     * Iterates over the historical {@link Message} objects for the channel, across all pages of the result.
+     * The next page is requested, and decoded on a background thread, while the current page is being consumed.
+     * @param params the request params, as for {@link #history(Param[])}.
+     * @param prefetchPages the maximum number of pages fetched ahead of the page being consumed, at least 1.
+     * This bounds the number of messages held in memory to (prefetchPages + 1) * limit.
+     * @return A {@link PaginatedResultIterator} over {@link Message} objects. It should be closed if not iterated to the end.
+     * A failed page request is thrown from hasNext() as a RuntimeException whose cause is the {@link AblyException}.
+     */
+    public PaginatedResultIterator<Message> historyIterator(Param[] params, int prefetchPages) {
+        return historyIterator(ably.http, params, prefetchPages);
+    }
+
+    PaginatedResultIterator<Message> historyIterator(Http http, Param[] params, int prefetchPages) {
+        return historyImpl(http, params).iterator(prefetchPages);
+    }
+
     private BasePaginatedQuery.ResultRequest<Message> historyImpl(Http http, Param[] params) {
         try {
             params = replacePlaceholderParams((Channel) this, params);
@@ -1617,6 +1766,7 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
     public void setOptions(ChannelOptions options, CompletionListener listener) throws AblyException {
         this.options = options;
         this.messageEditsMixin = new MessageEditsMixin(basePath, ably.options, options, ably.auth);
+        updatePublishBatcher(options);
         if(this.shouldReattachToSetOptions(options)) {
             this.attach(true, listener);
         } else {
@@ -1685,6 +1835,9 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
         this.attachResume = false;
         state = ChannelState.initialized;
         this.decodingContext = new DecodingContext();
+        this.messageDispatcher = ably.messageDispatchExecutor != null
+            ? new SerialExecutor(ably.messageDispatchExecutor, ably.options.messageDispatchQueueSize, ably.options.messageDispatchOverflowPolicy)
+            : null;
         this.liveObjectsPlugin = liveObjectsPlugin;
         if (liveObjectsPlugin != null) {
             this.object = liveObjectsPlugin.getInstance(name);
@@ -1706,6 +1859,9 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
                 Locale.ROOT, "Setting channel serial for channelName - %s, previous - %s, current - %s",
                 name, properties.channelSerial, msg.channelSerial));
             properties.channelSerial = msg.channelSerial;
+            if (state == ChannelState.attached) {
+                ably.recoveryKeyState.setChannelSerial(this, name, msg.channelSerial);
+            }
         }
 
         switch(msg.action) {
@@ -1822,6 +1978,12 @@ public abstract class ChannelBase extends EventEmitter<ChannelEvent, ChannelStat
     private Set<ChannelMode> modes;
     private String lastPayloadMessageId;
     private String lastPayloadProtocolMessageChannelSerial;
-    private boolean decodeFailureRecoveryInProgress;
+    private volatile boolean decodeFailureRecoveryInProgress;
     private final DecodingContext decodingContext;
+    /* null unless ClientOptions.asyncMessageDispatch is set */
+    private final SerialExecutor messageDispatcher;
+    /* whether the last message dispatched was discarded, or caused one to be; accessed on the transport thread only */
+    private boolean dispatchOverflowing;
+    /* null unless ChannelOptions.publishBatchInterval is set */
+    private PublishBatcher publishBatcher;
 }
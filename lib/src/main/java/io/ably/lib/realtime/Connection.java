@@ -4,11 +4,16 @@ import io.ably.lib.liveobjects.LiveObjectsPlugin;
 import io.ably.lib.realtime.ConnectionStateListener.ConnectionStateChange;
 import io.ably.lib.transport.ConnectionManager;
 import io.ably.lib.types.AblyException;
+import io.ably.lib.types.Callback;
 import io.ably.lib.types.ErrorInfo;
-import io.ably.lib.types.RecoveryKeyContext;
+import io.ably.lib.util.AblyTimer;
 import io.ably.lib.util.EventEmitter;
 import io.ably.lib.util.Log;
 import io.ably.lib.util.PlatformAgentProvider;
+import io.ably.lib.util.SystemClock;
+
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Enables the management of a connection to Ably.
@@ -51,6 +56,9 @@ public class Connection extends EventEmitter<ConnectionEvent, ConnectionStateLis
      * for more information.
      * <p>
      * Spec: RTN16m
+     * <p>
+     * After channel messages this is refreshed at most every {@link #RECOVERY_KEY_REFRESH_INTERVAL}
+     * milliseconds, so it can briefly lag behind the key returned by {@link #createRecoveryKey()}.
      * @deprecated use createRecoveryKey method instead.
      */
     @Deprecated
@@ -73,7 +81,7 @@ public class Connection extends EventEmitter<ConnectionEvent, ConnectionStateLis
             return null; // RTN16g2
         }
 
-        return new RecoveryKeyContext(key, connectionManager.msgSerial, ably.getChannelSerials()).encode();
+        return ably.recoveryKeyState.encode(key, connectionManager.msgSerial);
     }
 
     /**
@@ -107,6 +115,19 @@ public class Connection extends EventEmitter<ConnectionEvent, ConnectionStateLis
         connectionManager.ping(listener);
     }
 
+    /**
+     * When connected, sends a heartbeat ping to the Ably server and calls back with the round-trip time
+     * in milliseconds once the heartbeat is echoed by the server, or with an error if not connected,
+     * or if no echo arrives within the timeout.
+     * Pending pings do not hold a thread, so this is cheap enough to call periodically to track latency.
+     * @param callback A callback to be notified of the round-trip time in milliseconds, or of failure.
+     * <p>
+     * Spec: RTN13
+     */
+    public void ping(Callback<Long> callback) {
+        connectionManager.ping(callback);
+    }
+
     /**
      * Causes the connection to close, entering the {@link ConnectionState#closing} state.
      * Once closed, the library does not attempt to re-establish the connection without an explicit call to {@link Connection#connect}.
@@ -127,6 +148,7 @@ public class Connection extends EventEmitter<ConnectionEvent, ConnectionStateLis
         this.ably = ably;
         this.state = ConnectionState.initialized;
         this.connectionManager = new ConnectionManager(ably, this, channels, platformAgentProvider, liveObjectsPlugin);
+        this.recoveryKeyTimer = SystemClock.clockFrom(ably.options).newTimer("recovery-key-timer");
     }
 
     public void onConnectionStateChange(ConnectionStateChange stateChange) {
@@ -144,6 +166,23 @@ public class Connection extends EventEmitter<ConnectionEvent, ConnectionStateLis
         }
     }
 
+    /**
+     * Schedules a refresh of the deprecated {@link #recoveryKey} field after a channel message has
+     * updated a channel serial. The message only marks the serials changed; the key is encoded once
+     * per {@link #RECOVERY_KEY_REFRESH_INTERVAL} for any number of messages that arrive in between.
+     */
+    public void onChannelSerialsChanged() {
+        if (recoveryKeyRefreshPending.compareAndSet(false, true)) {
+            recoveryKeyTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    recoveryKeyRefreshPending.set(false);
+                    recoveryKey = createRecoveryKey();
+                }
+            }, RECOVERY_KEY_REFRESH_INTERVAL);
+        }
+    }
+
     public void emitUpdate(ErrorInfo errorInfo) {
         if (state == ConnectionState.connected)
             emit(ConnectionEvent.update, ConnectionStateListener.ConnectionStateChange.createUpdateEvent(errorInfo));
@@ -167,4 +206,12 @@ public class Connection extends EventEmitter<ConnectionEvent, ConnectionStateLis
     private static final String TAG = Connection.class.getName();
     final AblyRealtime ably;
     public final ConnectionManager connectionManager;
+    private final AblyTimer recoveryKeyTimer;
+    private final AtomicBoolean recoveryKeyRefreshPending = new AtomicBoolean();
+
+    /**
+     * The longest time in milliseconds that the deprecated {@link #recoveryKey} field lags behind
+     * the channel serials of received messages.
+     */
+    public static final long RECOVERY_KEY_REFRESH_INTERVAL = 100L;
 }
@@ -4,6 +4,7 @@ import io.ably.lib.http.BasePaginatedQuery;
 import io.ably.lib.http.Http;
 import io.ably.lib.http.HttpCore;
 import io.ably.lib.http.HttpUtils;
+import io.ably.lib.http.PaginatedResultIterator;
 import io.ably.lib.transport.ConnectionManager;
 import io.ably.lib.types.AblyException;
 import io.ably.lib.types.AsyncPaginatedResult;
@@ -22,10 +23,10 @@ import io.ably.lib.util.StringUtils;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
@@ -68,14 +69,14 @@ public class Presence {
      * @return An array of {@link PresenceMessage} objects.
      * @throws AblyException
      */
-    public synchronized PresenceMessage[] get(Param... params) throws AblyException {
+    public PresenceMessage[] get(Param... params) throws AblyException {
         if (channel.state == ChannelState.failed) {
             throw AblyException.fromErrorInfo(new ErrorInfo("channel operation failed (invalid channel state)", 90001));
         }
 
         channel.attach();
         try {
-            Collection<PresenceMessage> values = presence.get(params);
+            Collection<PresenceMessage> values = presence.get(channel, params);
             return values.toArray(new PresenceMessage[values.size()]);
         } catch (InterruptedException e) {
             Log.v(TAG, String.format(Locale.ROOT, "Channel %s: get() operation interrupted", channel.name));
@@ -98,7 +99,7 @@ public class Presence {
      * @return An array of {@link PresenceMessage} objects.
      * @throws AblyException
      */
-    public synchronized PresenceMessage[] get(boolean wait) throws AblyException {
+    public PresenceMessage[] get(boolean wait) throws AblyException {
         return get(new Param(GET_WAITFORSYNC, String.valueOf(wait)));
     }
 
@@ -118,7 +119,7 @@ public class Presence {
      * @return An array of {@link PresenceMessage} objects.
      * @throws AblyException
      */
-    public synchronized PresenceMessage[] get(String clientId, boolean wait) throws AblyException {
+    public PresenceMessage[] get(String clientId, boolean wait) throws AblyException {
         return get(new Param(GET_WAITFORSYNC, String.valueOf(wait)), new Param(GET_CLIENTID, clientId));
     }
 
@@ -328,6 +329,7 @@ public class Presence {
     /* End sync and emit leave messages for residual members */
     private void endSync() {
         List<PresenceMessage> residualMembers = presence.endSync();
+        syncComplete = true;
         for (PresenceMessage member: residualMembers) {         // RTP19
             member.action = PresenceMessage.Action.leave;
             member.id = null;
@@ -437,9 +439,10 @@ public class Presence {
     private static class Multicaster extends io.ably.lib.util.Multicaster<PresenceListener> implements PresenceListener {
         @Override
         public void onPresenceMessage(PresenceMessage message) {
-            for (final PresenceListener member : getMembers())
+            final List<PresenceListener> members = getMembers();
+            for (int i = 0; i < members.size(); i++)
                 try {
-                    member.onPresenceMessage(message);
+                    members.get(i).onPresenceMessage(message);
                 } catch(Throwable t) {}
         }
     }
@@ -837,6 +840,23 @@ public class Presence {
         historyImpl(http, params).async(callback);
     }
 
+    /**
+     * Iterates over the historical {@link PresenceMessage} objects for the channel, across all pages of the result.
+     * The next page is requested, and decoded on a background thread, while the current page is being consumed.
+     * @param params the request params, as for {@link #history(Param[])}.
+     * @param prefetchPages the maximum number of pages fetched ahead of the page being consumed, at least 1.
+     * This bounds the number of presence messages held in memory to (prefetchPages + 1) * limit.
+     * @return A {@link PaginatedResultIterator} over {@link PresenceMessage} objects. It should be closed if not iterated to the end.
+     * A failed page request is thrown from hasNext() as a RuntimeException whose cause is the {@link AblyException}.
+     */
+    public PaginatedResultIterator<PresenceMessage> historyIterator(Param[] params, int prefetchPages) {
+        return historyIterator(channel.ably.http, params, prefetchPages);
+    }
+
+    PaginatedResultIterator<PresenceMessage> historyIterator(Http http, Param[] params, int prefetchPages) {
+        return historyImpl(http, params).iterator(prefetchPages);
+    }
+
     private BasePaginatedQuery.ResultRequest<PresenceMessage> historyImpl(Http http, Param[] params) {
         try {
             params = Channel.replacePlaceholderParams(channel, params);
@@ -932,7 +952,7 @@ public class Presence {
      * Spec: RTP17g
      */
     void enterInternalMembers() {
-        for (final PresenceMessage item: internalPresence.members.values()) {
+        for (final PresenceMessage item: internalPresence.values()) {
             try {
                 enterClientWithId(item.id, item.clientId, item.data, new CompletionListener() {
                     @Override
@@ -987,23 +1007,36 @@ public class Presence {
      * this map keeps "witness" entries, with absent Action, to remember the
      * fact that a leave event has been seen for a member. These entries are
      * cleared once the last set of updates of a sync sequence have been received.
-     *
+     * <p>
+     * Each member is held with the fields needed for the newness check (RTP2b) parsed
+     * once, when it is inserted. Members not seen during a sync are found by generation:
+     * every sync bumps the generation, and a member is stamped with the current generation
+     * whenever it is seen, so no copy of the key set is taken when a sync starts.
+     * Readers are served from an immutable snapshot of the members, rebuilt on demand
+     * after the set changes. Lookups by clientId or connectionId use secondary indexes
+     * that are kept up to date as members are added and removed.
      */
-    private class PresenceMap {
+    static class PresenceMap {
+
+        private final String channelName;
+
+        PresenceMap(String channelName) {
+            this.channelName = channelName;
+        }
 
         /**
          * Wait for sync to be complete. If we are in attaching state wait for initial sync to
          * complete as well. Return false if wait was interrupted because channel transitioned to
          * state other than attached or attaching
          */
-        synchronized void waitForSync() throws AblyException, InterruptedException {
+        synchronized void waitForSync(ChannelBase channel) throws AblyException, InterruptedException {
             boolean syncIsComplete = false;    /* temporary variable to avoid potential race conditions */
             while (channel.state == ChannelState.attaching) {
                 wait();
             }
             if (channel.state == ChannelState.attached) {
                 do {
-                    syncIsComplete = !syncInProgress && syncComplete;
+                    syncIsComplete = isSyncComplete();
                     if (!syncIsComplete) {
                         wait();
                     }
@@ -1030,7 +1063,7 @@ public class Presence {
             throw AblyException.fromErrorInfo(new ErrorInfo(errorMessage, errorCode));
         }
 
-        synchronized Collection<PresenceMessage> get(Param[] params) throws AblyException, InterruptedException {
+        Collection<PresenceMessage> get(ChannelBase channel, Param[] params) throws AblyException, InterruptedException {
             boolean waitForSync = true;
             String clientId = null;
             String connectionId = null;
@@ -1049,19 +1082,58 @@ public class Presence {
                 }
             }
 
-            HashSet<PresenceMessage> result = new HashSet<>();
-            if (waitForSync)
-                waitForSync();
+            /* only take the lock to wait if the sync is not already known to be complete */
+            if (waitForSync && !(channel.state == ChannelState.attached && isSyncComplete()))
+                waitForSync(channel);
 
-            for (PresenceMessage member: members.values()) {
-                if ((clientId == null || member.clientId.equals(clientId)) &&
-                        (connectionId == null || member.connectionId.equals(connectionId)))
-                    result.add(member);
-            }
+            if (clientId == null && connectionId == null)
+                return values();
 
+            return find(clientId, connectionId);
+        }
+
+        /**
+         * Returns the members with the given clientId and/or connectionId, looked up in the
+         * secondary indexes so the cost is proportional to the number of matching members.
+         */
+        synchronized List<PresenceMessage> find(String clientId, String connectionId) {
+            Map<String, Member> candidates = clientId != null ? byClientId.get(clientId) : byConnectionId.get(connectionId);
+            if (candidates == null)
+                return Collections.emptyList();
+
+            List<PresenceMessage> result = new ArrayList<>(candidates.size());
+            for (Member member: candidates.values()) {
+                if ((clientId == null || clientId.equals(member.message.clientId)) &&
+                        (connectionId == null || connectionId.equals(member.message.connectionId)))
+                    result.add(member.message);
+            }
             return result;
         }
 
+        /**
+         * Returns an immutable snapshot of the members, including any absent witnesses of a sync in progress.
+         */
+        List<PresenceMessage> values() {
+            List<PresenceMessage> current = snapshot;
+            if (current == null) {
+                synchronized (this) {
+                    current = snapshot;
+                    if (current == null) {
+                        List<PresenceMessage> values = new ArrayList<>(members.size());
+                        for (Member member : members.values()) {
+                            values.add(member.message);
+                        }
+                        snapshot = current = Collections.unmodifiableList(values);
+                    }
+                }
+            }
+            return current;
+        }
+
+        boolean isSyncComplete() {
+            return !syncInProgress && syncComplete;
+        }
+
         /**
          * Add or update the presence state for a member
          * @param item
@@ -1070,66 +1142,25 @@ public class Presence {
          */
         synchronized boolean put(PresenceMessage item) {
             String key = memberKey(item);
-            /* we've seen this member, so do not remove it at the end of sync */
-            if(residualMembers != null)
-                residualMembers.remove(key);
-
-            /* check if there is a newer existing member (or absent witness) */
-            if (hasNewerItem(key, item))
-                return false;
+            Member member = new Member(item, syncGeneration);
+            Member existing = members.get(key);
+            if (existing != null) {
+                /* we've seen this member, so do not remove it at the end of sync */
+                existing.generation = syncGeneration;
+
+                /* check if there is a newer existing member (or absent witness) */
+                if (existing.isNewerThan(member))
+                    return false;
+            }
 
-            members.put(key, item);
+            if (existing != null)
+                unindex(key, existing);
+            members.put(key, member);
+            index(key, member);
+            snapshot = null;
             return true;
         }
 
-        /**
-         * Determine if there is a newer item already in the map
-         * @param key key used to search the item in the map
-         * @param item new presence message to be added
-         * @return true if there is a newer item
-         */
-        synchronized boolean hasNewerItem(String key, PresenceMessage item) {
-            PresenceMessage existingItem = members.get(key);
-            if(existingItem == null)
-                return false;
-
-            /*
-             * (RTP2b1) If either presence message has a connectionId which is not an initial substring
-             * of its id, compare them by timestamp numerically. (This will be the case when one of them
-             * is a 'synthesized leave' event sent by realtime to indicate a connection disconnected
-             * unexpectedly 15s ago. Such messages will have an id that does not correspond to its
-             * connectionId, as it wasn't actually published by that connection
-             */
-            if(item.connectionId != null && existingItem.connectionId != null &&
-                    (!item.id.startsWith(item.connectionId) || !existingItem.id.startsWith(existingItem.connectionId)))
-                return existingItem.timestamp >= item.timestamp;
-
-            /*
-             * (RTP2b2) Else split the id of both presence messages (which will be of the form
-             * connid:msgSerial:index, e.g. aaaaaa:0:0) on the separator :, and parse the latter two as
-             * integers. Compare them first by msgSerial numerically, then (if @msgSerial@s are equal) by
-             * index numerically, larger being newer in both cases
-             */
-            String[] itemComponents = item.id.split(":", 3);
-            String[] existingItemComponents = existingItem.id.split(":", 3);
-
-            if(itemComponents.length < 3 || existingItemComponents.length < 3)
-                return false;
-
-            try {
-                long messageSerial = Long.parseLong(itemComponents[1]);
-                long messageIndex = Long.parseLong(itemComponents[2]);
-                long existingMessageSerial = Long.parseLong(existingItemComponents[1]);
-                long existingMessageIndex = Long.parseLong(existingItemComponents[2]);
-
-                return existingMessageSerial > messageSerial ||
-                        (existingMessageSerial == messageSerial && existingMessageIndex >= messageIndex);
-            }
-            catch(NumberFormatException e) {
-                return false;
-            }
-        }
-
         /**
          * Remove a member.
          * @param item
@@ -1137,12 +1168,15 @@ public class Presence {
          */
         synchronized boolean remove(PresenceMessage item) {
             String key = memberKey(item);
-            if (hasNewerItem(key, item))
-                return false;
-            PresenceMessage existingItem = members.remove(key);
-            if(existingItem != null && existingItem.action == PresenceMessage.Action.absent)
+            Member existing = members.get(key);
+            if (existing == null)
+                return true;
+            if (existing.isNewerThan(new Member(item, syncGeneration)))
                 return false;
-            return true;
+            members.remove(key);
+            unindex(key, existing);
+            snapshot = null;
+            return existing.message.action != PresenceMessage.Action.absent;
         }
 
         /**
@@ -1151,10 +1185,11 @@ public class Presence {
          * the last.
          */
         synchronized void startSync() {
-            Log.v(TAG, "startSync(); channel = " + channel.name + "; syncInProgress = " + syncInProgress);
+            Log.v(TAG, "startSync(); channel = " + channelName + "; syncInProgress = " + syncInProgress);
             /* we might be called multiple times while a sync is in progress */
             if(!syncInProgress) {
-                residualMembers = new HashSet<String>(members.keySet());
+                /* members not stamped with the new generation by the end of the sync are residual */
+                ++syncGeneration;
                 syncInProgress = true;
             }
         }
@@ -1163,29 +1198,27 @@ public class Presence {
          * Finish a sync sequence. Returns "residual" items that were removed as a part of a sync
          */
         synchronized List<PresenceMessage> endSync() {
-            Log.v(TAG, "endSync(); channel = " + channel.name + "; syncInProgress = " + syncInProgress);
+            Log.v(TAG, "endSync(); channel = " + channelName + "; syncInProgress = " + syncInProgress);
             ArrayList<PresenceMessage> removedEntries = new ArrayList<>();
             if(syncInProgress) {
-                /* we can now strip out the absent members, as we have
-                 * received all of the out-of-order sync messages */
-                for(Iterator<Map.Entry<String, PresenceMessage>> it = members.entrySet().iterator(); it.hasNext();) {
-                    Map.Entry<String, PresenceMessage> entry = it.next();
-                    if(entry.getValue().action == PresenceMessage.Action.absent) {
+                for(Iterator<Map.Entry<String, Member>> it = members.entrySet().iterator(); it.hasNext();) {
+                    Map.Entry<String, Member> entry = it.next();
+                    Member member = entry.getValue();
+                    if(member.message.action == PresenceMessage.Action.absent) {
+                        /* we can now strip out the absent members, as we have
+                         * received all of the out-of-order sync messages */
                         it.remove();
+                        unindex(entry.getKey(), member);
+                    } else if(member.generation != syncGeneration) {
+                        /* any members that were present at the start of the sync,
+                         * and have not been seen in sync, can be removed;
+                         * clone presence message as it still can be in the internal presence map */
+                        it.remove();
+                        unindex(entry.getKey(), member);
+                        removedEntries.add((PresenceMessage) member.message.clone());
                     }
                 }
-                /* any members that were present at the start of the sync,
-                 * and have not been seen in sync, can be removed */
-                for(String itemKey: residualMembers) {
-                    PresenceMessage removedMember = members.remove(itemKey);
-                    /* This null check is added as a potential fix for an issue that
-                     * could not be reproduced, reported here https://github.com/ably/ably-java/issues/853 */
-                    if(removedMember != null) {
-                        /* clone presence message as it still can be in the internal presence map */
-                        removedEntries.add((PresenceMessage) removedMember.clone());
-                    }
-                }
-                residualMembers = null;
+                snapshot = null;
 
                 /* finish, notifying any waiters */
                 syncInProgress = false;
@@ -1200,8 +1233,43 @@ public class Presence {
          */
         synchronized void clear() {
             members.clear();
-            if(residualMembers != null)
-                residualMembers.clear();
+            byClientId.clear();
+            byConnectionId.clear();
+            snapshot = null;
+        }
+
+        /* must be called holding the lock */
+        private void index(String key, Member member) {
+            addToIndex(byClientId, member.message.clientId, key, member);
+            addToIndex(byConnectionId, member.message.connectionId, key, member);
+        }
+
+        /* must be called holding the lock */
+        private void unindex(String key, Member member) {
+            removeFromIndex(byClientId, member.message.clientId, key);
+            removeFromIndex(byConnectionId, member.message.connectionId, key);
+        }
+
+        private static void addToIndex(Map<String, Map<String, Member>> index, String value, String key, Member member) {
+            if (value == null)
+                return;
+            Map<String, Member> indexed = index.get(value);
+            if (indexed == null) {
+                indexed = new HashMap<>(4);
+                index.put(value, indexed);
+            }
+            indexed.put(key, member);
+        }
+
+        private static void removeFromIndex(Map<String, Map<String, Member>> index, String value, String key) {
+            if (value == null)
+                return;
+            Map<String, Member> indexed = index.get(value);
+            if (indexed != null) {
+                indexed.remove(key);
+                if (indexed.isEmpty())
+                    index.remove(value);
+            }
         }
 
         /**
@@ -1215,12 +1283,94 @@ public class Presence {
             return item.memberKey();
         }
 
-        private boolean syncInProgress;
-        private Collection<String> residualMembers;
-        private final HashMap<String, PresenceMessage> members = new HashMap<String, PresenceMessage>();
+        volatile boolean syncInProgress;
+        private volatile boolean syncComplete;
+        private int syncGeneration;
+        private volatile List<PresenceMessage> snapshot;
+        private final HashMap<String, Member> members = new HashMap<>();
+        /* secondary indexes: clientId or connectionId to the members having it, by member key */
+        private final HashMap<String, Map<String, Member>> byClientId = new HashMap<>();
+        private final HashMap<String, Map<String, Member>> byConnectionId = new HashMap<>();
     }
 
-    private class InternalPresenceMap extends PresenceMap {
+    /**
+     * A member of a {@link PresenceMap}, with the parts of its id needed for the newness check.
+     */
+    static final class Member {
+        final PresenceMessage message;
+        /* RTP2b1: the id does not start with the connectionId, as for a synthesized leave */
+        final boolean synthesized;
+        /* RTP2b2: whether the id has the form connid:msgSerial:index with numeric msgSerial and index */
+        final boolean hasSerial;
+        final long msgSerial;
+        final long index;
+        /* the sync generation in which this member was last seen */
+        int generation;
+
+        Member(PresenceMessage message, int generation) {
+            this.message = message;
+            this.generation = generation;
+            String id = message.id;
+            this.synthesized = id != null && message.connectionId != null && !id.startsWith(message.connectionId);
+
+            long msgSerial = -1, index = -1;
+            int first = id == null ? -1 : id.indexOf(':');
+            int second = first < 0 ? -1 : id.indexOf(':', first + 1);
+            if (second >= 0) {
+                msgSerial = parseNumber(id, first + 1, second);
+                index = parseNumber(id, second + 1, id.length());
+            }
+            this.hasSerial = msgSerial >= 0 && index >= 0;
+            this.msgSerial = msgSerial;
+            this.index = index;
+        }
+
+        /**
+         * Determine if this member is newer than the given one (RTP2b)
+         */
+        boolean isNewerThan(Member item) {
+            /*
+             * (RTP2b1) If either presence message has a connectionId which is not an initial substring
+             * of its id, compare them by timestamp numerically. (This will be the case when one of them
+             * is a 'synthesized leave' event sent by realtime to indicate a connection disconnected
+             * unexpectedly 15s ago. Such messages will have an id that does not correspond to its
+             * connectionId, as it wasn't actually published by that connection
+             */
+            if (item.message.connectionId != null && message.connectionId != null && (item.synthesized || synthesized))
+                return message.timestamp >= item.message.timestamp;
+
+            /*
+             * (RTP2b2) Else compare the msgSerial and index parsed from the id of both presence messages
+             * (which will be of the form connid:msgSerial:index, e.g. aaaaaa:0:0), first by msgSerial
+             * numerically, then (if msgSerials are equal) by index numerically, larger being newer in both cases
+             */
+            if (!hasSerial || !item.hasSerial)
+                return false;
+            return msgSerial > item.msgSerial || (msgSerial == item.msgSerial && index >= item.index);
+        }
+
+        /* parses a non-negative decimal number from the given range; -1 if the range is not such a number */
+        private static long parseNumber(String value, int start, int end) {
+            if (start >= end || end - start > 18) {
+                return -1;
+            }
+            long result = 0;
+            for (int i = start; i < end; i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                result = result * 10 + (c - '0');
+            }
+            return result;
+        }
+    }
+
+    static class InternalPresenceMap extends PresenceMap {
+        InternalPresenceMap(String channelName) {
+            super(channelName);
+        }
+
         /**
          * Get the member key for the internal PresenceMessage.
          * Spec: RTP17h
@@ -1232,8 +1382,8 @@ public class Presence {
         }
     }
 
-    private final PresenceMap presence = new PresenceMap();
-    private final PresenceMap internalPresence = new InternalPresenceMap(); // RTP17
+    private final PresenceMap presence;
+    private final PresenceMap internalPresence; // RTP17
 
     /************************************
      * general
@@ -1241,6 +1391,8 @@ public class Presence {
 
     Presence(Channel channel) {
         this.channel = channel;
+        this.presence = new PresenceMap(channel.name);
+        this.internalPresence = new InternalPresenceMap(channel.name);
     }
 
     private static final String TAG = Channel.class.getName();
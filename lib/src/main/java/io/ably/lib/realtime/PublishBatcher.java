@@ -0,0 +1,314 @@
+package io.ably.lib.realtime;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimerTask;
+
+import io.ably.lib.types.AblyException;
+import io.ably.lib.types.Callback;
+import io.ably.lib.types.ErrorInfo;
+import io.ably.lib.types.Message;
+import io.ably.lib.types.PublishResult;
+import io.ably.lib.util.AblyTimer;
+import io.ably.lib.util.Log;
+import io.ably.lib.util.TimerInstance;
+
+/**
+ * Coalesces the messages of successive publish calls on a channel into a single
+ * protocol message, so that a high rate of small publishes costs one msgSerial,
+ * one pending-queue entry and one transport frame per batch rather than per call.
+ * <p>
+ * A batch is sent when the configured interval has elapsed since its first publish,
+ * or as soon as adding another publish would take it beyond the byte budget. The budget
+ * is the smaller of the configured size and the {@code maxMessageSize} advertised by the
+ * server, measured as in TO3l8 (name, data, clientId and extras).
+ * <p>
+ * The messages of one publish call are never split across batches. The ACK for a batch
+ * carries one serial per message; these are handed back to each publisher's callback
+ * in the same order as their messages.
+ */
+final class PublishBatcher {
+
+    private static final String TAG = PublishBatcher.class.getName();
+
+    /**
+     * Destination for completed batches.
+     */
+    interface Sink {
+        void send(Message[] messages, Callback<PublishResult> listener) throws AblyException;
+        int maxMessageSize();
+    }
+
+    private final Sink sink;
+    private final AblyTimer timer;
+    private final long interval;
+    private final int maxSize;
+
+    private final List<Message> messages = new ArrayList<>();
+    private final List<Callback<PublishResult>> listeners = new ArrayList<>();
+    private final List<Integer> counts = new ArrayList<>();
+    private int size;
+    private long batchId;
+    private TimerInstance flushTask;
+
+    /* batches taken from the current one, in order, waiting to be sent; sending is set while a thread sends them */
+    private final ArrayDeque<ClosedBatch> closedBatches = new ArrayDeque<>();
+    private boolean sending;
+
+    /**
+     * @param interval the time, in milliseconds, a batch is held open for further publishes
+     * @param maxSize the byte budget for a batch; 0 to use only the server's maxMessageSize
+     */
+    PublishBatcher(Sink sink, AblyTimer timer, long interval, int maxSize) {
+        this.sink = sink;
+        this.timer = timer;
+        this.interval = interval;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Adds already encoded messages to the current batch, sending it first if they would not fit.
+     */
+    void publish(Message[] published, Callback<PublishResult> listener) {
+        int publishSize = 0;
+        for (Message message : published) {
+            publishSize += messageSize(message);
+        }
+        synchronized (this) {
+            int budget = budget();
+            if (!messages.isEmpty() && size + publishSize > budget) {
+                closeBatch();
+            }
+            messages.addAll(Arrays.asList(published));
+            listeners.add(listener);
+            counts.add(published.length);
+            size += publishSize;
+            if (size >= budget) {
+                closeBatch();
+            } else if (flushTask == null && !scheduleFlush()) {
+                closeBatch();
+            }
+        }
+        sendClosedBatches();
+    }
+
+    /**
+     * Sends the current batch, if any, immediately; or, if another thread is sending a batch,
+     * leaves it for that thread to send next.
+     */
+    void flush() {
+        synchronized (this) {
+            closeBatch();
+        }
+        sendClosedBatches();
+    }
+
+    /**
+     * Sends any pending batch and stops the flush timer.
+     */
+    void dispose() {
+        flush();
+        timer.cancel();
+    }
+
+    private int budget() {
+        int serverMax = sink.maxMessageSize();
+        if (serverMax <= 0) {
+            return maxSize > 0 ? maxSize : Integer.MAX_VALUE;
+        }
+        return maxSize > 0 ? Math.min(maxSize, serverMax) : serverMax;
+    }
+
+    private boolean scheduleFlush() {
+        final long id = batchId;
+        try {
+            flushTask = timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    synchronized (PublishBatcher.this) {
+                        /* the batch this was scheduled for may already have been sent */
+                        if (id != batchId) {
+                            return;
+                        }
+                        flushTask = null;
+                        closeBatch();
+                    }
+                    sendClosedBatches();
+                }
+            }, interval);
+            return true;
+        } catch (Throwable t) {
+            /* the timer is unusable, e.g. because the runtime is exiting; send without waiting */
+            Log.e(TAG, "scheduleFlush(): unable to schedule batch flush", t);
+            return false;
+        }
+    }
+
+    /* must be called holding the lock; the batch is sent by sendClosedBatches once the lock is released */
+    private void closeBatch() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        ++batchId;
+        if (messages.isEmpty()) {
+            return;
+        }
+        Message[] batch = messages.toArray(new Message[0]);
+        BatchListener listener = new BatchListener(new ArrayList<>(listeners), toIntArray(counts));
+        messages.clear();
+        listeners.clear();
+        counts.clear();
+        size = 0;
+        closedBatches.add(new ClosedBatch(batch, listener));
+    }
+
+    /**
+     * Sends closed batches, without holding the lock, so publishers are not held up by the send.
+     * Batches are sent one at a time in the order they were closed: a thread that finds another
+     * already sending leaves its batch for that thread to send.
+     */
+    private void sendClosedBatches() {
+        ClosedBatch closed;
+        synchronized (this) {
+            if (sending || (closed = closedBatches.poll()) == null) {
+                return;
+            }
+            sending = true;
+        }
+        try {
+            while (closed != null) {
+                try {
+                    sink.send(closed.messages, closed.listener);
+                } catch (AblyException e) {
+                    closed.listener.onError(e.errorInfo);
+                }
+                synchronized (this) {
+                    closed = closedBatches.poll();
+                    if (closed == null) {
+                        sending = false;
+                    }
+                }
+            }
+        } finally {
+            if (closed != null) {
+                /* the sink threw unexpectedly; leave the remaining batches to the next send */
+                synchronized (this) {
+                    sending = false;
+                }
+            }
+        }
+    }
+
+    private static int[] toIntArray(List<Integer> values) {
+        int[] result = new int[values.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = values.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Size of an encoded message as counted against maxMessageSize (TO3l8).
+     */
+    static int messageSize(Message message) {
+        int size = utf8Length(message.name) + utf8Length(message.clientId);
+        Object data = message.data;
+        if (data instanceof byte[]) {
+            size += ((byte[]) data).length;
+        } else if (data instanceof String) {
+            size += utf8Length((String) data);
+        } else if (data != null) {
+            size += utf8Length(data.toString());
+        }
+        if (message.extras != null) {
+            size += utf8Length(message.extras.toString());
+        }
+        return size;
+    }
+
+    private static int utf8Length(String value) {
+        if (value == null) {
+            return 0;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return value.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return value.length();
+    }
+
+    private static class ClosedBatch {
+        final Message[] messages;
+        final BatchListener listener;
+
+        ClosedBatch(Message[] messages, BatchListener listener) {
+            this.messages = messages;
+            this.listener = listener;
+        }
+    }
+
+    /**
+     * Listener for a whole batch, which hands each publisher the serials of its own messages.
+     */
+    static class BatchListener implements Callback<PublishResult> {
+        private final List<Callback<PublishResult>> listeners;
+        private final int[] counts;
+
+        BatchListener(List<Callback<PublishResult>> listeners, int[] counts) {
+            this.listeners = listeners;
+            this.counts = counts;
+        }
+
+        @Override
+        public void onSuccess(PublishResult result) {
+            int offset = 0;
+            for (int i = 0; i < listeners.size(); i++) {
+                PublishResult publisherResult = null;
+                if (result != null) {
+                    publisherResult = new PublishResult(slice(result.serials, offset, counts[i]));
+                }
+                offset += counts[i];
+                Callback<PublishResult> listener = listeners.get(i);
+                if (listener == null) {
+                    continue;
+                }
+                try {
+                    listener.onSuccess(publisherResult);
+                } catch (Throwable t) {
+                    Log.e(TAG, "Unexpected exception calling publish listener", t);
+                }
+            }
+        }
+
+        @Override
+        public void onError(ErrorInfo reason) {
+            for (Callback<PublishResult> listener : listeners) {
+                if (listener == null) {
+                    continue;
+                }
+                try {
+                    listener.onError(reason);
+                } catch (Throwable t) {
+                    Log.e(TAG, "Unexpected exception calling publish listener", t);
+                }
+            }
+        }
+
+        private static String[] slice(String[] serials, int offset, int count) {
+            if (serials == null) {
+                return null;
+            }
+            String[] result = new String[count];
+            int available = Math.max(0, Math.min(count, serials.length - offset));
+            if (available > 0) {
+                System.arraycopy(serials, offset, result, 0, available);
+            }
+            return result;
+        }
+    }
+}
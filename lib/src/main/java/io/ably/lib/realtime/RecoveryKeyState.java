@@ -0,0 +1,87 @@
+package io.ably.lib.realtime;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import io.ably.lib.types.RecoveryKeyContext;
+
+/**
+ * The channelSerial of every attached channel, for the recovery key (RTN16g).
+ * <p>
+ * Channels update their own slot as they attach, detach and receive messages, so creating
+ * a recovery key does not visit every channel. The encoded key is cached, and encoded again
+ * only once the serials, the connection key or the msgSerial have changed.
+ */
+class RecoveryKeyState {
+
+    /* sorted, so the key is encoded in the same order as RecoveryKeyContext orders it */
+    private final TreeMap<String, String> channelSerials = new TreeMap<>();
+    private final HashMap<String, ChannelSlot> channelSlots = new HashMap<>();
+    private boolean dirty = true;
+
+    private String encoded;
+    private String encodedConnectionKey;
+    private long encodedMsgSerial;
+
+    /**
+     * Set the serial of an attached channel, adding the channel if it was not attached.
+     * The slot for the name is owned by the given channel from then on.
+     */
+    synchronized void setChannelSerial(ChannelBase channel, String channelName, String channelSerial) {
+        ChannelSlot slot = channelSlots.get(channelName);
+        if (slot == null) {
+            channelSlots.put(channelName, new ChannelSlot(channel, channelSerial));
+            channelSerials.put(channelName, channelSerial);
+            dirty = true;
+            return;
+        }
+        slot.owner = channel;
+        if (!Objects.equals(slot.serial, channelSerial)) {
+            slot.serial = channelSerial;
+            channelSerials.put(channelName, channelSerial);
+            dirty = true;
+        }
+    }
+
+    /**
+     * Remove a channel that is no longer attached. The slot is left in place if it is owned by
+     * another channel, such as one of the same name got after this channel was released.
+     */
+    synchronized void removeChannel(ChannelBase channel, String channelName) {
+        ChannelSlot slot = channelSlots.get(channelName);
+        if (slot != null && slot.owner == channel) {
+            channelSlots.remove(channelName);
+            channelSerials.remove(channelName);
+            dirty = true;
+        }
+    }
+
+    synchronized Map<String, String> getChannelSerials() {
+        return new HashMap<>(channelSerials);
+    }
+
+    synchronized String encode(String connectionKey, long msgSerial) {
+        if (dirty || encoded == null || msgSerial != encodedMsgSerial || !connectionKey.equals(encodedConnectionKey)) {
+            encoded = new RecoveryKeyContext(connectionKey, msgSerial, channelSerials).encode();
+            encodedConnectionKey = connectionKey;
+            encodedMsgSerial = msgSerial;
+            dirty = false;
+        }
+        return encoded;
+    }
+
+    /**
+     * The channel instance that last set the serial of a name
+     */
+    private static class ChannelSlot {
+        ChannelBase owner;
+        String serial;
+
+        ChannelSlot(ChannelBase owner, String serial) {
+            this.owner = owner;
+            this.serial = serial;
+        }
+    }
+}
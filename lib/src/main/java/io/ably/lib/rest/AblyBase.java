@@ -10,6 +10,7 @@ import io.ably.lib.http.AsyncHttpPaginatedQuery;
 import io.ably.lib.http.AsyncPaginatedQuery;
 import io.ably.lib.http.HttpPaginatedQuery;
 import io.ably.lib.http.HttpUtils;
+import io.ably.lib.http.NonBlockingHttpScheduler;
 import io.ably.lib.http.PaginatedQuery;
 import io.ably.lib.platform.Platform;
 import io.ably.lib.push.Push;
@@ -117,7 +118,11 @@ public abstract class AblyBase implements AutoCloseable {
         this.platformAgentProvider = platformAgentProvider;
         auth = new Auth(this, options);
         httpCore = new HttpCore(options, auth, this.platformAgentProvider);
-        http = new Http(new AsyncHttpScheduler(httpCore, options), new SyncHttpScheduler(httpCore));
+        /* with an engine that does not block on I/O, async operations do not hold a pool thread while in flight */
+        AsyncHttpScheduler asyncHttp = httpCore.isAsyncSupported()
+            ? new NonBlockingHttpScheduler(httpCore, options)
+            : new AsyncHttpScheduler(httpCore, options);
+        http = new Http(asyncHttp, new SyncHttpScheduler(httpCore));
 
         channels = new InternalChannels();
 
@@ -135,6 +140,7 @@ public abstract class AblyBase implements AutoCloseable {
      */
     @Override
     public void close() throws Exception {
+        auth.close();
         http.close();
     }
 
@@ -508,6 +514,15 @@ public abstract class AblyBase implements AutoCloseable {
         //this must be overriden by subclass
     }
 
+    /**
+     * The token has been renewed ahead of its expiry; see {@link ClientOptions#tokenRenewalFraction}.
+     * Overridden by AblyRealtime to upgrade the connection to the new token
+     * @param token new token
+     */
+    protected void onTokenRenewed(String token) {
+        /* Default is to do nothing. Overridden by subclass. */
+    }
+
     /**
      * Authentication error occurred
      */
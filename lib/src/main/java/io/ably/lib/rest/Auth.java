@@ -1,15 +1,11 @@
 package io.ably.lib.rest;
 
 import java.net.URL;
-import java.nio.charset.Charset;
-import java.security.GeneralSecurityException;
 import java.util.HashMap;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
-
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
+import java.util.TimerTask;
+import java.util.concurrent.Executor;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -26,11 +22,14 @@ import io.ably.lib.types.ClientOptions;
 import io.ably.lib.types.ErrorInfo;
 import io.ably.lib.types.NonRetriableTokenException;
 import io.ably.lib.types.Param;
+import io.ably.lib.util.AblyTimer;
+import io.ably.lib.util.BackgroundExecutor;
 import io.ably.lib.util.Base64Coder;
 import io.ably.lib.util.Clock;
 import io.ably.lib.util.Log;
 import io.ably.lib.util.Serialisation;
 import io.ably.lib.util.SystemClock;
+import io.ably.lib.util.TimerInstance;
 
 /**
  * Token-generation and authentication operations for the Ably API.
@@ -888,77 +887,103 @@ public class Auth {
      * @throws AblyException
      */
     public TokenRequest createTokenRequest(TokenParams params, AuthOptions options) throws AblyException {
+        return createTokenRequests(new TokenParams[] { params }, options)[0];
+    }
+
+    /**
+     * Creates and signs an Ably {@link TokenRequest} for each of the specified {@link TokenParams},
+     * as {@link #createTokenRequest} does for one. The requests share one timestamp, so the server
+     * time is queried at most once for the batch when {@link AuthOptions#queryTime} is set.
+     * Use this to mint TokenRequests for many clients at once.
+     * <p>
+     * Spec: RSA9
+     * @param params : An array of {@link TokenParams} objects; a null element stands for the client library stored params.
+     * @param options : An {@link AuthOptions} object.
+     * @return An array of {@link TokenRequest} objects, in the order of the given params.
+     * @throws AblyException
+     */
+    public TokenRequest[] createTokenRequests(TokenParams[] params, AuthOptions options) throws AblyException {
         /* Spec: RSA9h */
         options = (options == null) ? this.authOptions : options.copy();
-        params = (params == null) ? this.tokenParams : params.copy();
+        TokenRequestSigner signer = signerFor(options.key);
+
+        TokenRequest[] requests = new TokenRequest[params.length];
+        long timestamp = 0;
+        for(int i = 0; i < params.length; i++) {
+            TokenParams requestParams = (params[i] == null) ? this.tokenParams : params[i].copy();
+            requestParams.capability = canonicalCapability(requestParams.capability);
+            TokenRequest request = new TokenRequest(requestParams);
+
+            /* clientId */
+            if (request.clientId == null) request.clientId = ably.options.clientId;
+
+            /* timestamp */
+            if(request.timestamp == 0) {
+                if(timestamp == 0) timestamp = tokenRequestTimestamp(options);
+                request.timestamp = timestamp;
+            }
 
-        params.capability = Capability.c14n(params.capability);
-        TokenRequest request = new TokenRequest(params);
-
-        String key = options.key;
-        if(key == null)
-            throw AblyException.fromErrorInfo(new ErrorInfo("No key specified", 401, 40101));
-
-        String[] keyParts = key.split(":");
-        if(keyParts.length != 2)
-            throw AblyException.fromErrorInfo(new ErrorInfo("Invalid key specified", 401, 40101));
-
-        String keyName = keyParts[0], keySecret = keyParts[1];
-        if(request.keyName == null)
-            request.keyName = keyName;
-        else if(!request.keyName.equals(keyName))
-            throw AblyException.fromErrorInfo(new ErrorInfo("Incompatible keys specified", 401, 40102));
-
-        /* expires */
-        String ttlText = (request.ttl == 0) ? "" : String.valueOf(request.ttl);
-
-        /* capability */
-        String capabilityText = (request.capability == null) ? "" : request.capability;
-
-        /* clientId */
-        if (request.clientId == null) request.clientId = ably.options.clientId;
-        String clientIdText = (request.clientId == null) ? "" : request.clientId;
-
-        /* timestamp */
-        if(request.timestamp == 0) {
-            if(options.queryTime) {
-                long oldNanoTimeDelta = nanoTimeDelta;
-                long currentNanoTimeDelta = clock.currentTimeMillis() - clock.nanoTime()/(1000*1000);
-
-                if (timeDelta != Long.MAX_VALUE) {
-                    /* system time changed by more than 500ms since last time? */
-                    if(Math.abs(oldNanoTimeDelta - currentNanoTimeDelta) > 500)
-                        timeDelta = Long.MAX_VALUE;
-                }
+            requests[i] = signer.sign(request);
+        }
 
-                if (timeDelta != Long.MAX_VALUE) {
-                    request.timestamp = timestamp() + timeDelta;
-                    nanoTimeDelta = currentNanoTimeDelta;
-                } else {
-                    request.timestamp = ably.time();
-                    timeDelta = request.timestamp - timestamp();
-                }
-            }
-            else {
-                request.timestamp = timestamp();
-            }
+        if (Log.level <= Log.INFO) {
+            Log.i("Auth.createTokenRequests()", "generated " + requests.length + " signed request(s)");
+        }
+        return requests;
+    }
+
+    /**
+     * The signer for the given key; the signer, and so its Macs, are reused for as long as the key is
+     */
+    private TokenRequestSigner signerFor(String key) throws AblyException {
+        TokenRequestSigner signer = this.signer;
+        if(signer == null || !signer.hasKey(key)) {
+            this.signer = signer = new TokenRequestSigner(key);
         }
+        return signer;
+    }
 
-        /* nonce */
-        request.nonce = random();
+    /**
+     * The canonical form of a capability; the last one is remembered, since requests
+     * minted in quick succession usually give the same capability
+     */
+    private String canonicalCapability(String capability) throws AblyException {
+        String[] last = lastCapability;
+        if(last != null && last[0].equals(capability)) {
+            return last[1];
+        }
+        String canonical = Capability.c14n(capability);
+        if(capability != null && canonical != null) {
+            lastCapability = new String[] { capability, canonical };
+        }
+        return canonical;
+    }
 
-        String signText
-            = request.keyName + '\n'
-            + ttlText + '\n'
-            + capabilityText + '\n'
-            + clientIdText + '\n'
-            + request.timestamp + '\n'
-            + request.nonce + '\n';
+    /**
+     * The timestamp of a TokenRequest made now; the server time if queryTime is set
+     */
+    private long tokenRequestTimestamp(AuthOptions options) throws AblyException {
+        if(!options.queryTime) {
+            return timestamp();
+        }
+        long oldNanoTimeDelta = nanoTimeDelta;
+        long currentNanoTimeDelta = clock.currentTimeMillis() - clock.nanoTime()/(1000*1000);
 
-        request.mac = hmac(signText, keySecret);
+        if (timeDelta != Long.MAX_VALUE) {
+            /* system time changed by more than 500ms since last time? */
+            if(Math.abs(oldNanoTimeDelta - currentNanoTimeDelta) > 500)
+                timeDelta = Long.MAX_VALUE;
+        }
 
-        Log.i("Auth.getTokenRequest()", "generated signed request");
-        return request;
+        long timestamp;
+        if (timeDelta != Long.MAX_VALUE) {
+            timestamp = timestamp() + timeDelta;
+            nanoTimeDelta = currentNanoTimeDelta;
+        } else {
+            timestamp = ably.time();
+            timeDelta = timestamp - timestamp();
+        }
+        return timestamp;
     }
 
     /**
@@ -1054,6 +1079,11 @@ public class Auth {
         this.ably = ably;
         this.clock = SystemClock.clockFrom(options);
         this.nanoTimeDelta = clock.currentTimeMillis() - clock.nanoTime()/(1000*1000);
+        this.tokenRenewalFraction = options.tokenRenewalFraction;
+        if(tokenRenewalFraction < 0 || tokenRenewalFraction >= 1) {
+            throw AblyException.fromErrorInfo(new ErrorInfo("tokenRenewalFraction must be at least 0 and less than 1", 400, 40000));
+        }
+        this.renewalExecutor = options.asyncHttpExecutor != null ? options.asyncHttpExecutor : BackgroundExecutor.getShared();
         authOptions = options;
         tokenParams = options.defaultTokenParams != null ?
                 options.defaultTokenParams : new TokenParams();
@@ -1133,6 +1163,7 @@ public class Auth {
         setClientId(tokenDetails.clientId);
         this.tokenDetails = tokenDetails;
         this.encodedToken = Base64Coder.encodeString(tokenDetails.token);
+        scheduleRenewal(tokenDetails);
     }
 
     private void clearTokenDetails() {
@@ -1148,14 +1179,60 @@ public class Auth {
 
     private TokenDetails assertValidToken(TokenParams params, AuthOptions options, boolean force) throws AblyException {
         Log.i("Auth.assertValidToken()", "");
-        if(tokenDetails != null) {
-            if(!force && (tokenDetails.expires == 0 || tokenValid(tokenDetails))) {
-                Log.i("Auth.assertValidToken()", "using cached token; expires = " + tokenDetails.expires);
-                return tokenDetails;
-            } else {
-                /* expired, so remove */
-                Log.i("Auth.assertValidToken()", "deleting expired token");
-                clearTokenDetails();
+        TokenDetails current = tokenDetails;
+        if(current != null) {
+            if(!force && (current.expires == 0 || tokenValid(current))) {
+                Log.i("Auth.assertValidToken()", "using cached token; expires = " + current.expires);
+                return current;
+            }
+        }
+        /* a renewal with the stored params is shared by concurrent callers; one with
+         * params given to authorize() is made for that caller alone */
+        if(params != tokenParams || options != authOptions) {
+            return requestTokenDetails(current, params, options, false);
+        }
+        Renewal renewal;
+        boolean owner = false;
+        synchronized(renewalLock) {
+            renewal = pendingRenewal;
+            if(renewal == null) {
+                renewal = pendingRenewal = new Renewal();
+                owner = true;
+            }
+        }
+        if(!owner) {
+            Log.i("Auth.assertValidToken()", "waiting for token renewal in progress");
+            return awaitRenewal(renewal);
+        }
+        try {
+            TokenDetails renewed = requestTokenDetails(current, params, options, false);
+            completeRenewal(renewal, renewed, null);
+            return renewed;
+        } catch(AblyException e) {
+            completeRenewal(renewal, null, e);
+            throw e;
+        } catch(RuntimeException | Error e) {
+            /* release the callers waiting for this renewal whatever the failure */
+            completeRenewal(renewal, null, AblyException.fromThrowable(e));
+            throw e;
+        }
+    }
+
+    /**
+     * Request a new token and make it the current token
+     * @param current the token being replaced, if any
+     * @param keepCurrent true to leave the current token in place, for the caller to decide whether to
+     *                    make the new one current
+     */
+    private TokenDetails requestTokenDetails(TokenDetails current, TokenParams params, AuthOptions options, boolean keepCurrent) throws AblyException {
+        if(current != null && !keepCurrent) {
+            synchronized(renewalLock) {
+                /* do not discard a token that another caller has just obtained */
+                if(tokenDetails == current) {
+                    /* expired, so remove */
+                    Log.i("Auth.assertValidToken()", "deleting expired token");
+                    clearTokenDetails();
+                }
             }
         }
         Log.i("Auth.assertValidToken()", "requesting new token");
@@ -1168,8 +1245,149 @@ public class Auth {
             }
             throw ablyException;
         }
-        setTokenDetails(newTokenDetails);
-        return tokenDetails;
+        if(!keepCurrent) {
+            setTokenDetails(newTokenDetails);
+        }
+        return newTokenDetails;
+    }
+
+    /**
+     * Wait for the renewal in progress to complete, and return its token
+     */
+    private TokenDetails awaitRenewal(Renewal renewal) throws AblyException {
+        synchronized(renewalLock) {
+            while(!renewal.done) {
+                try {
+                    renewalLock.wait();
+                } catch(InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw AblyException.fromThrowable(e);
+                }
+            }
+        }
+        if(renewal.error != null) {
+            throw renewal.error;
+        }
+        return renewal.result;
+    }
+
+    /**
+     * Complete a renewal with its token or error, allowing another renewal to start,
+     * and release the callers waiting for it
+     */
+    private void completeRenewal(Renewal renewal, TokenDetails result, AblyException error) {
+        synchronized(renewalLock) {
+            renewal.result = result;
+            renewal.error = error;
+            renewal.done = true;
+            if(pendingRenewal == renewal) {
+                pendingRenewal = null;
+            }
+            renewalLock.notifyAll();
+        }
+    }
+
+    /**
+     * Schedule the renewal of the given token once tokenRenewalFraction of its lifetime has passed,
+     * if the library is able to obtain tokens itself
+     */
+    private void scheduleRenewal(final TokenDetails details) {
+        if(tokenRenewalFraction <= 0 || details.expires == 0 || closed
+                || (authOptions.key == null && authOptions.authCallback == null && authOptions.authUrl == null)) {
+            return;
+        }
+        long now = serverTimestamp();
+        long issued = (details.issued > 0) ? details.issued : now;
+        long renewAt = issued + (long) ((details.expires - issued) * tokenRenewalFraction);
+        if(renewAt <= now) {
+            /* too near expiry to renew ahead of it; leave it to renewal on expiry */
+            return;
+        }
+        synchronized(renewalLock) {
+            if(renewalTask != null) {
+                renewalTask.cancel();
+                renewalTask = null;
+            }
+            try {
+                if(renewalTimer == null) {
+                    renewalTimer = clock.newTimer("token-renewal-timer");
+                }
+                renewalTask = renewalTimer.schedule(new TimerTask() {
+                    @Override
+                    public void run() {
+                        /* the timer thread must not block, so the token is requested on the executor */
+                        renewalExecutor.execute(() -> renewAhead(details));
+                    }
+                }, renewAt - now);
+            } catch(Throwable t) {
+                /* an exception scheduling the renewal can arise because the runtime is exiting */
+                Log.w(TAG, "Unable to schedule token renewal", t);
+            }
+        }
+    }
+
+    /**
+     * Renew a token that is still valid, going on using it until its replacement arrives, and upgrade
+     * any realtime connection to the new token
+     */
+    private void renewAhead(TokenDetails expiring) {
+        if(closed || tokenDetails != expiring) {
+            /* the token has been replaced, or the client closed, since the renewal was scheduled */
+            return;
+        }
+        Renewal renewal;
+        synchronized(renewalLock) {
+            if(pendingRenewal != null) {
+                return;
+            }
+            renewal = pendingRenewal = new Renewal();
+        }
+        Log.v(TAG, "renewing token ahead of expiry; expires = " + expiring.expires);
+        final TokenParams params = tokenParams;
+        final AuthOptions options = authOptions;
+        try {
+            TokenDetails renewed = requestTokenDetails(expiring, params, options, true);
+            TokenDetails current;
+            boolean installed;
+            synchronized(renewalLock) {
+                /* authorize() may have made a token, or stored new params, while the request was in flight;
+                 * the renewed token was made with the old params, so must not replace it */
+                installed = !closed && tokenDetails == expiring && tokenParams == params && authOptions == options;
+                if(installed) {
+                    setTokenDetails(renewed);
+                    /* requests use the new token from now on */
+                    authHeader = "Bearer " + encodedToken;
+                }
+                current = tokenDetails;
+            }
+            if(installed) {
+                completeRenewal(renewal, renewed, null);
+                ably.onTokenRenewed(renewed.token);
+            } else {
+                Log.v(TAG, "token replaced during renewal ahead of expiry; renewed token discarded");
+                completeRenewal(renewal, current != null ? current : renewed, null);
+            }
+        } catch(AblyException e) {
+            completeRenewal(renewal, null, e);
+            Log.w(TAG, "Unable to renew token ahead of expiry; it will be renewed once expired", e);
+        } catch(Throwable t) {
+            completeRenewal(renewal, null, AblyException.fromThrowable(t));
+            Log.w(TAG, "Unable to renew token ahead of expiry; it will be renewed once expired", t);
+        }
+    }
+
+    /**
+     * Stop renewing tokens ahead of expiry
+     */
+    void close() {
+        synchronized(renewalLock) {
+            closed = true;
+            if(renewalTimer != null) {
+                renewalTimer.cancel();
+                renewalTimer = null;
+            }
+            renewalTask = null;
+        }
     }
 
     /**
@@ -1212,20 +1430,10 @@ public class Auth {
         return authHeader;
     }
 
-    private static String random() { return String.format(Locale.ROOT, "%016d", (long)(Math.random() * 1E16)); }
-
     private static boolean equalNullableStrings(String one, String two) {
         return (one == null) ? (two == null) : one.equals(two);
     }
 
-    private static String hmac(String text, String key) {
-        try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            mac.init(new SecretKeySpec(key.getBytes(Charset.forName("UTF-8")), "HmacSHA256"));
-            return new String(Base64Coder.encode(mac.doFinal(text.getBytes(Charset.forName("UTF-8")))));
-        } catch (GeneralSecurityException e) { Log.e("Auth.hmac", "Unexpected exception", e); return null; }
-    }
-
     /**
      * Set the clientId, after first initialisation in the construction of the library
      * therefore an existing null value is significant - it means that ClientOptions.clientId
@@ -1310,12 +1518,37 @@ public class Auth {
     private final AblyBase ably;
     private final Clock clock;
     private final AuthMethod method;
-    private AuthOptions authOptions;
-    private TokenParams tokenParams;
+    private volatile AuthOptions authOptions;
+    private volatile TokenParams tokenParams;
     private String basicCredentials;
-    private TokenDetails tokenDetails;
-    private String encodedToken;
-    private String authHeader;
+    private volatile TokenDetails tokenDetails;
+    private volatile String encodedToken;
+    private volatile String authHeader;
+    private volatile TokenRequestSigner signer;
+    /* the last capability given to createTokenRequest, and its canonical form */
+    private volatile String[] lastCapability;
+
+    /**
+     * Token renewal; renewalLock guards pendingRenewal, the renewal timer and the replacement of
+     * an expired or renewed token
+     */
+    private final float tokenRenewalFraction;
+    private final Executor renewalExecutor;
+    private final Object renewalLock = new Object();
+    private Renewal pendingRenewal;
+    private AblyTimer renewalTimer;
+    private TimerInstance renewalTask;
+    private volatile boolean closed;
+
+    /**
+     * A token request shared by the callers that need a new token at the same time;
+     * its fields are guarded by renewalLock
+     */
+    private static class Renewal {
+        boolean done;
+        TokenDetails result;
+        AblyException error;
+    }
 
     /**
      * Time delta is server time minus client time, in milliseconds, MAX_VALUE if not obtained yet
@@ -5,6 +5,7 @@ import io.ably.lib.http.Http;
 import io.ably.lib.http.HttpScheduler;
 import io.ably.lib.http.HttpCore;
 import io.ably.lib.http.HttpUtils;
+import io.ably.lib.http.PaginatedResultIterator;
 import io.ably.lib.realtime.CompletionListener;
 import io.ably.lib.types.AblyException;
 import io.ably.lib.types.AsyncPaginatedResult;
@@ -269,6 +270,23 @@ public class ChannelBase {
         historyImpl(http, params).async(callback);
     }
 
+    /**
+     * Iterates over the historical {@link Message} objects for the channel, across all pages of the result.
+     * The next page is requested, and decoded on a background thread, while the current page is being consumed.
+     * @param params the request params, as for {@link #history(Param[])}.
+     * @param prefetchPages the maximum number of pages fetched ahead of the page being consumed, at least 1.
+     * This bounds the number of messages held in memory to (prefetchPages + 1) * limit.
+     * @return A {@link PaginatedResultIterator} over {@link Message} objects. It should be closed if not iterated to the end.
+     * A failed page request is thrown from hasNext() as a RuntimeException whose cause is the {@link AblyException}.
+     */
+    public PaginatedResultIterator<Message> historyIterator(Param[] params, int prefetchPages) {
+        return historyIterator(ably.http, params, prefetchPages);
+    }
+
+    PaginatedResultIterator<Message> historyIterator(Http http, Param[] params, int prefetchPages) {
+        return historyImpl(http, params).iterator(prefetchPages);
+    }
+
     private BasePaginatedQuery.ResultRequest<Message> historyImpl(Http http, Param[] initialParams) {
         HttpCore.BodyHandler<Message> bodyHandler = MessageSerializer.getMessageResponseHandler(options);
         final Param[] params = ably.options.addRequestIds ? Param.set(initialParams, Crypto.generateRandomRequestId()) : initialParams; // RSC7c
@@ -395,6 +413,23 @@ public class ChannelBase {
             historyImpl(http, params).async(callback);
         }
 
+        /**
+         * Iterates over the historical {@link PresenceMessage} objects for the channel, across all pages of the result.
+         * The next page is requested, and decoded on a background thread, while the current page is being consumed.
+         * @param params the request params, as for {@link #history(Param[])}.
+         * @param prefetchPages the maximum number of pages fetched ahead of the page being consumed, at least 1.
+         * This bounds the number of presence messages held in memory to (prefetchPages + 1) * limit.
+         * @return A {@link PaginatedResultIterator} over {@link PresenceMessage} objects. It should be closed if not iterated to the end.
+         * A failed page request is thrown from hasNext() as a RuntimeException whose cause is the {@link AblyException}.
+         */
+        public PaginatedResultIterator<PresenceMessage> historyIterator(Param[] params, int prefetchPages) {
+            return historyIterator(ably.http, params, prefetchPages);
+        }
+
+        PaginatedResultIterator<PresenceMessage> historyIterator(Http http, Param[] params, int prefetchPages) {
+            return historyImpl(http, params).iterator(prefetchPages);
+        }
+
         private BasePaginatedQuery.ResultRequest<PresenceMessage> historyImpl(Http http, Param[] initialParams) {
             HttpCore.BodyHandler<PresenceMessage> bodyHandler = PresenceSerializer.getPresenceResponseHandler(options);
             final Param[] params = ably.options.addRequestIds ? Param.set(initialParams, Crypto.generateRandomRequestId()) : initialParams; // RSC7c
@@ -0,0 +1,161 @@
+package io.ably.lib.rest;
+
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import io.ably.lib.rest.Auth.TokenParams;
+import io.ably.lib.rest.Auth.TokenRequest;
+import io.ably.lib.types.AblyException;
+import io.ably.lib.types.ErrorInfo;
+import io.ably.lib.util.Base64Coder;
+
+/**
+ * Signs {@link TokenRequest}s with an API key (RSA9), for an auth server that mints
+ * TokenRequests for its clients at a high rate.
+ * <p>
+ * The key is parsed once, and each thread signing with it keeps an initialised Mac,
+ * the builder for the text to be signed and a source of nonces, so signing a request
+ * allocates little beyond the request itself. A signer is thread-safe.
+ * <p>
+ * {@link Auth#createTokenRequest} signs with a signer for the key in its options;
+ * a signer may also be used directly, where requests are made without an Ably client.
+ */
+public class TokenRequestSigner {
+
+    /**
+     * Construct a signer for the given API key
+     * @param key an API key, of the form keyName:keySecret
+     * @throws AblyException if the key is not valid
+     */
+    public TokenRequestSigner(String key) throws AblyException {
+        if(key == null)
+            throw AblyException.fromErrorInfo(new ErrorInfo("No key specified", 401, 40101));
+
+        String[] keyParts = key.split(":");
+        if(keyParts.length != 2)
+            throw AblyException.fromErrorInfo(new ErrorInfo("Invalid key specified", 401, 40101));
+
+        this.key = key;
+        this.keyName = keyParts[0];
+        this.secretKey = new SecretKeySpec(keyParts[1].getBytes(UTF_8), HMAC_ALGORITHM);
+        /* fail now, rather than on the first request, if the key cannot be used */
+        signingState();
+    }
+
+    /**
+     * The name of the key; the part of the key that is public
+     */
+    public String getKeyName() {
+        return keyName;
+    }
+
+    /**
+     * Sign a request, setting its keyName if not set, and its nonce and mac.
+     * The ttl, capability, clientId and timestamp are signed as given; capability
+     * should already be in canonical form, and timestamp should be set.
+     * @param request the request to sign
+     * @return the request
+     * @throws AblyException if the request names a different key
+     */
+    public TokenRequest sign(TokenRequest request) throws AblyException {
+        if(request.keyName == null)
+            request.keyName = keyName;
+        else if(!request.keyName.equals(keyName))
+            throw AblyException.fromErrorInfo(new ErrorInfo("Incompatible keys specified", 401, 40102));
+
+        SigningState state = signingState();
+        request.nonce = state.nonce();
+
+        StringBuilder text = state.text;
+        text.setLength(0);
+        text.append(request.keyName).append('\n');
+        if(request.ttl != 0) text.append(request.ttl);
+        text.append('\n');
+        if(request.capability != null) text.append(request.capability);
+        text.append('\n');
+        if(request.clientId != null) text.append(request.clientId);
+        text.append('\n')
+            .append(request.timestamp).append('\n')
+            .append(request.nonce).append('\n');
+
+        request.mac = new String(Base64Coder.encode(state.mac.doFinal(text.toString().getBytes(UTF_8))));
+        return request;
+    }
+
+    /**
+     * Create and sign a request for each of the given params; any request whose params
+     * give no timestamp is made with the given timestamp
+     * @param params the params of each request; ttl, capability, clientId and timestamp are used
+     * @param timestamp the timestamp, in milliseconds since the epoch, of requests made now
+     * @return the signed requests, in the order of the given params
+     * @throws AblyException
+     */
+    public TokenRequest[] createTokenRequests(TokenParams[] params, long timestamp) throws AblyException {
+        TokenRequest[] requests = new TokenRequest[params.length];
+        for(int i = 0; i < params.length; i++) {
+            TokenRequest request = new TokenRequest(params[i]);
+            if(request.timestamp == 0)
+                request.timestamp = timestamp;
+            requests[i] = sign(request);
+        }
+        return requests;
+    }
+
+    boolean hasKey(String key) {
+        return this.key.equals(key);
+    }
+
+    private SigningState signingState() throws AblyException {
+        SigningState state = signingStates.get();
+        if(state == null) {
+            try {
+                Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+                mac.init(secretKey);
+                state = new SigningState(mac);
+            } catch(GeneralSecurityException e) {
+                throw AblyException.fromThrowable(e);
+            }
+            signingStates.set(state);
+        }
+        return state;
+    }
+
+    /**
+     * The objects a thread reuses to sign requests
+     */
+    private static class SigningState {
+        final Mac mac;
+        final StringBuilder text = new StringBuilder(128);
+        final SecureRandom random = new SecureRandom();
+        final char[] nonce = new char[NONCE_LENGTH];
+
+        SigningState(Mac mac) {
+            this.mac = mac;
+        }
+
+        /**
+         * A random string of 16 decimal digits (TE2)
+         */
+        String nonce() {
+            long value = random.nextLong() & Long.MAX_VALUE;
+            for(int i = NONCE_LENGTH - 1; i >= 0; i--) {
+                nonce[i] = (char) ('0' + (int) (value % 10));
+                value /= 10;
+            }
+            return new String(nonce);
+        }
+    }
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int NONCE_LENGTH = 16;
+
+    private final String key;
+    private final String keyName;
+    private final SecretKeySpec secretKey;
+    private final ThreadLocal<SigningState> signingStates = new ThreadLocal<>();
+}
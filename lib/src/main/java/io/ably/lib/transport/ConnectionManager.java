@@ -3,13 +3,15 @@ package io.ably.lib.transport;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import io.ably.lib.debug.DebugOptions;
 import io.ably.lib.debug.DebugOptions.RawProtocolListener;
@@ -36,11 +38,16 @@ import io.ably.lib.types.Param;
 import io.ably.lib.types.ProtocolMessage;
 import io.ably.lib.types.ProtocolSerializer;
 import io.ably.lib.types.PublishResult;
+import io.ably.lib.util.AblyTimer;
 import io.ably.lib.util.Clock;
+import io.ably.lib.util.Crypto;
+import io.ably.lib.util.LatencyHistogram;
 import io.ably.lib.util.Log;
+import io.ably.lib.util.MetricsRecorder;
 import io.ably.lib.util.PlatformAgentProvider;
 import io.ably.lib.util.ReconnectionStrategy;
 import io.ably.lib.util.SystemClock;
+import io.ably.lib.util.TimerInstance;
 import org.jetbrains.annotations.Nullable;
 
 public class ConnectionManager implements ConnectListener {
@@ -785,6 +792,8 @@ public class ConnectionManager implements ConnectListener {
     public ConnectionManager(final AblyRealtime ably, final Connection connection, final Channels channels, final PlatformAgentProvider platformAgentProvider, LiveObjectsPlugin liveObjectsPlugin) throws AblyException {
         this.ably = ably;
         this.clock = SystemClock.clockFrom(ably.options);
+        this.pendingMessages = new PendingMessageQueue(clock, ably.options.maxInFlightMessages, ably.options.metricsRecorder);
+        this.heartbeatTimer = clock.newTimer("heartbeat-timer");
         this.connection = connection;
         this.channels = channels;
         this.platformAgentProvider = platformAgentProvider;
@@ -941,69 +950,99 @@ public class ConnectionManager implements ConnectListener {
      * ping API
      *********************/
 
-    public void ping(final CompletionListener listener) {
-        HeartbeatWaiter waiter = new HeartbeatWaiter(listener);
+    /**
+     * Send a heartbeat, calling back with the round-trip time in milliseconds when the server
+     * echoes it, or with an error if the echo does not arrive within HEARTBEAT_TIMEOUT.
+     * Each ping is correlated with its echo by the heartbeat id (RTN13e) and timed out by
+     * the shared scheduler, so pending pings hold no thread.
+     */
+    public void ping(final Callback<Long> callback) {
         if(currentState.state != ConnectionState.connected) {
-            waiter.onError(new ErrorInfo("Unable to ping service; not connected", 40000, 400));
+            if(callback != null) {
+                callback.onError(new ErrorInfo("Unable to ping service; not connected", 40000, 400));
+            }
             return;
         }
-        synchronized(heartbeatWaiters) {
-            heartbeatWaiters.add(waiter);
-            waiter.start();
-        }
+        final String id = Crypto.getRandomId();
+        final PendingPing ping = new PendingPing(callback, clock.nanoTime());
+        pendingPings.put(id, ping);
         try {
-            send(new ProtocolMessage(ProtocolMessage.Action.heartbeat), false, null);
+            ping.timeout = heartbeatTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    if(pendingPings.remove(id) != null) {
+                        ping.onError(new ErrorInfo("Timed out waiting for heartbeat response", 50000, 500));
+                    }
+                }
+            }, HEARTBEAT_TIMEOUT);
+            ProtocolMessage heartbeat = new ProtocolMessage(ProtocolMessage.Action.heartbeat);
+            heartbeat.id = id;
+            send(heartbeat, false, null);
         } catch (AblyException e) {
-            waiter.onError(e.errorInfo);
+            failPing(id, e.errorInfo);
+        } catch (Throwable t) {
+            /* an exception scheduling the timeout can arise because the runtime is exiting */
+            failPing(id, ErrorInfo.fromThrowable(t));
         }
     }
 
-    /**
-     * A thread that waits for completion of a ping
-     */
-    private class HeartbeatWaiter extends Thread {
-        private final CompletionListener listener;
-
-        HeartbeatWaiter(CompletionListener listener) {
-            this.listener = listener;
-        }
-
-        private void onSuccess() {
-            clear();
-            if(listener != null) {
+    public void ping(final CompletionListener listener) {
+        ping(listener == null ? null : new Callback<Long>() {
+            @Override
+            public void onSuccess(Long rtt) {
                 listener.onSuccess();
             }
-        }
 
-        private void onError(ErrorInfo reason) {
-            clear();
-            if(listener != null) {
+            @Override
+            public void onError(ErrorInfo reason) {
                 listener.onError(reason);
             }
+        });
+    }
+
+    private void failPing(String id, ErrorInfo reason) {
+        PendingPing ping = pendingPings.remove(id);
+        if(ping != null) {
+            ping.cancelTimeout();
+            ping.onError(reason);
         }
+    }
 
-        private boolean clear() {
-            boolean pending = heartbeatWaiters.remove(this);
-            if(pending) {
-                interrupt();
+    /**
+     * A ping awaiting the echo of its heartbeat; whoever removes it from pendingPings calls it back
+     */
+    private static class PendingPing {
+        final Callback<Long> callback;
+        final long sentNanos;
+        volatile TimerInstance timeout;
+
+        PendingPing(Callback<Long> callback, long sentNanos) {
+            this.callback = callback;
+            this.sentNanos = sentNanos;
+        }
+
+        void cancelTimeout() {
+            TimerInstance t = timeout;
+            if(t != null) {
+                t.cancel();
             }
-            return pending;
         }
 
-        @Override
-        public void run() {
-            boolean pending;
-            synchronized(heartbeatWaiters) {
-                try {
-                    clock.waitOn(heartbeatWaiters, HEARTBEAT_TIMEOUT);
-                } catch (InterruptedException ie) {
-                }
-                pending = clear();
+        void onSuccess(long rttMillis) {
+            if(callback == null) return;
+            try {
+                callback.onSuccess(rttMillis);
+            } catch(Throwable t) {
+                Log.e(TAG, "Unexpected exception calling ping listener", t);
             }
-            if(pending) {
-                onError(new ErrorInfo("Timed out waiting for heartbeat response", 50000, 500));
-            } else {
-                onSuccess();
+        }
+
+        void onError(ErrorInfo reason) {
+            if(callback == null) return;
+            try {
+                callback.onError(reason);
+            } catch(Throwable t) {
+                Log.e(TAG, "Unexpected exception calling ping listener", t);
             }
         }
     }
@@ -1212,6 +1251,10 @@ public class ConnectionManager implements ConnectListener {
         if (transport != null && this.transport != transport) {
             return;
         }
+        Thread current = Thread.currentThread();
+        if (inboundThread != current) {
+            inboundThread = current;
+        }
         // Check the logging level to avoid performance hit associated with building the message
         if (Log.level <= Log.VERBOSE) {
             Log.v(TAG, "onMessage() (transport = " + transport + "): " + message.action + ": " + new String(ProtocolSerializer.writeJSON(message)));
@@ -1286,7 +1329,7 @@ public class ConnectionManager implements ConnectListener {
 
     private void onChannelMessage(ProtocolMessage message) {
         channels.onMessage(message);
-        connection.recoveryKey = connection.createRecoveryKey();
+        connection.onChannelSerialsChanged();
     }
 
     private synchronized void onConnected(ProtocolMessage message) {
@@ -1383,7 +1426,27 @@ public class ConnectionManager implements ConnectListener {
     }
 
     public List<QueuedMessage> getPendingMessages() {
-        return pendingMessages.queue;
+        return pendingMessages.snapshot();
+    }
+
+    /**
+     * Returns a snapshot of the in-flight window and ACK latency counters.
+     */
+    public PendingMessageStats getPendingMessageStats() {
+        return pendingMessages.getStats();
+    }
+
+    /**
+     * Waits, as configured by {@link ClientOptions#maxInFlightMessages} and
+     * {@link ClientOptions#inFlightWindowTimeout}, for room to send another message requiring acknowledgement.
+     * This must not be called holding the ConnectionManager lock, since ACKs are needed to make room.
+     * @throws AblyException if the window is still full once the timeout has elapsed
+     */
+    public void awaitPublishCapacity() throws AblyException {
+        /* acknowledgements are processed on the thread that receives messages, so a publish made on that
+         * thread, such as from a subscriber with synchronous dispatch, must not wait for them */
+        long timeout = (Thread.currentThread() == inboundThread) ? 0 : ably.options.inFlightWindowTimeout;
+        pendingMessages.awaitCapacity(timeout);
     }
 
     private synchronized void onDisconnected(ProtocolMessage message) {
@@ -1422,9 +1485,11 @@ public class ConnectionManager implements ConnectListener {
     }
 
     private void onHeartbeat(ProtocolMessage message) {
-        synchronized(heartbeatWaiters) {
-            heartbeatWaiters.clear();
-            heartbeatWaiters.notifyAll();
+        /* heartbeats initiated by the server, or echoing another client's ping, carry no id we are waiting for */
+        PendingPing ping = (message.id != null) ? pendingPings.remove(message.id) : null;
+        if(ping != null) {
+            ping.cancelTimeout();
+            ping.onSuccess(TimeUnit.NANOSECONDS.toMillis(clock.nanoTime() - ping.sentNanos));
         }
     }
 
@@ -1751,6 +1816,7 @@ public class ConnectionManager implements ConnectListener {
                 return;
             }
             if(state.queueEvents && queueEvents) {
+                checkQueueCapacity(msg);
                 queuedMessages.add(new QueuedMessage(msg, listener));
                 return;
             }
@@ -1758,6 +1824,23 @@ public class ConnectionManager implements ConnectListener {
         throw AblyException.fromErrorInfo(state.defaultErrorInfo);
     }
 
+    /**
+     * Applies {@link ClientOptions#maxInFlightMessages} to messages queued while not connected, which
+     * count towards the limit along with those awaiting acknowledgement. A queued message is not waited
+     * for, since the queue only drains once connected; it fails at once if the limit is reached.
+     * @throws AblyException if the limit is reached
+     */
+    private void checkQueueCapacity(ProtocolMessage msg) throws AblyException {
+        int maxSize = ably.options.maxInFlightMessages;
+        if(maxSize <= 0 || !ProtocolMessage.ackRequired(msg)) {
+            return;
+        }
+        if(queuedMessages.size() + pendingMessages.size() >= maxSize) {
+            throw AblyException.fromErrorInfo(new ErrorInfo(
+                "Unable to publish; " + maxSize + " messages already queued or awaiting acknowledgement", 400, 40000));
+        }
+    }
+
     private void sendImpl(ProtocolMessage message, Callback<PublishResult> listener) throws AblyException {
         if(transport == null) {
             Log.v(TAG, "sendImpl(): Discarding message; transport unavailable");
@@ -1827,20 +1910,106 @@ public class ConnectionManager implements ConnectListener {
     }
 
     /**
-     * A class containing a queue of messages awaiting acknowledgement
+     * A class containing a queue of messages awaiting acknowledgement.
+     * <p>
+     * Messages are held in a ring buffer in msgSerial order. Serials are contiguous, so the
+     * entries for an ACK or NACK are located by their offset from the head of the queue and
+     * removed without moving the remaining entries.
+     * <p>
+     * When a maximum size is configured, {@link #awaitCapacity(long)} lets publishers wait for
+     * (or fail fast on) a full window, so that the queue cannot grow without bound while
+     * acknowledgements are slow.
      */
-    private static class PendingMessageQueue {
-        private final List<QueuedMessage> queue = new ArrayList<>();
+    static class PendingMessageQueue {
+        private static final int INITIAL_CAPACITY = 16;
+
+        private final Clock clock;
+        private final int maxSize;
+        private final MetricsRecorder metrics;
+        private QueuedMessage[] entries = new QueuedMessage[INITIAL_CAPACITY];
+        private long[] sentNanos = new long[INITIAL_CAPACITY];
+        private int head;
+        private int size;
+
+        private int maxInFlight;
+        private long ackedCount;
+        private long nackedCount;
+        private long blockedCount;
+        private long blockedNanos;
+        private long rejectedCount;
+        private final LatencyHistogram ackLatency = new LatencyHistogram();
+
+        /**
+         * @param maxSize the maximum number of messages awaiting acknowledgement before
+         * {@link #awaitCapacity(long)} waits or fails; 0 for no limit
+         */
+        PendingMessageQueue(Clock clock, int maxSize) {
+            this(clock, maxSize, null);
+        }
+
+        /**
+         * @param metrics the recorder for acknowledgement latency and queue depth, or null
+         */
+        PendingMessageQueue(Clock clock, int maxSize, MetricsRecorder metrics) {
+            this.clock = clock;
+            this.maxSize = maxSize;
+            this.metrics = metrics;
+        }
 
         public synchronized void push(QueuedMessage msg) {
-            queue.add(msg);
+            if (size == entries.length) {
+                grow();
+            }
+            int index = (head + size) & (entries.length - 1);
+            entries[index] = msg;
+            sentNanos[index] = clock.nanoTime();
+            maxInFlight = Math.max(maxInFlight, ++size);
+            if (metrics != null) metrics.onPendingMessageDepth(size);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        /**
+         * Waits until there is room for another message in the window.
+         * The room is not reserved, so publishes that wait concurrently may together take the
+         * window a little beyond maxSize; the limit bounds the backlog, not each message.
+         * @param timeout the maximum time to wait, in milliseconds; 0 to fail immediately if the window is full
+         * @throws AblyException if the window is still full once the timeout has elapsed
+         */
+        synchronized void awaitCapacity(long timeout) throws AblyException {
+            if (maxSize <= 0 || size < maxSize) {
+                return;
+            }
+            if (timeout > 0) {
+                ++blockedCount;
+                long start = clock.nanoTime();
+                long deadline = clock.currentTimeMillis() + timeout;
+                try {
+                    long remaining;
+                    while (size >= maxSize && (remaining = deadline - clock.currentTimeMillis()) > 0) {
+                        clock.waitOn(this, remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    blockedNanos += clock.nanoTime() - start;
+                }
+                if (size < maxSize) {
+                    return;
+                }
+            }
+            ++rejectedCount;
+            throw AblyException.fromErrorInfo(new ErrorInfo(
+                "Unable to publish; " + maxSize + " messages already awaiting acknowledgement", 400, 40000));
         }
 
         public void ack(long msgSerial, int count, @Nullable PublishResult[] results, ErrorInfo reason) {
             QueuedMessage[] ackMessages = null, nackMessages = null;
             synchronized(this) {
-                if (queue.isEmpty()) return;
-                long startSerial = queue.get(0).msg.msgSerial;
+                if (size == 0) return;
+                long startSerial = entries[head].msg.msgSerial;
                 if(msgSerial < startSerial) {
                     /* this is an error condition and shouldn't happen but
                      * we can handle it gracefully by only processing the
@@ -1853,17 +2022,13 @@ public class ConnectionManager implements ConnectListener {
                 if(msgSerial > startSerial) {
                     /* this counts as a nack of the messages earlier than serial,
                      * as well as an ack */
-                    int nCount = (int)(msgSerial - startSerial);
-                    List<QueuedMessage> nackList = queue.subList(0, nCount);
-                    nackMessages = nackList.toArray(new QueuedMessage[nCount]);
-                    nackList.clear();
-                    startSerial = msgSerial;
-                }
-                if(msgSerial == startSerial) {
-                    List<QueuedMessage> ackList = queue.subList(0, count);
-                    ackMessages = ackList.toArray(new QueuedMessage[count]);
-                    ackList.clear();
+                    nackMessages = removeFirst((int)Math.min(msgSerial - startSerial, size), false);
+                    nackedCount += nackMessages.length;
+                    if (metrics != null) metrics.onMessagesFailed(nackMessages.length);
                 }
+                ackMessages = removeFirst(Math.max(0, Math.min(count, size)), true);
+                ackedCount += ackMessages.length;
+                notifyAll();
             }
             if(nackMessages != null) {
                 if(reason == null)
@@ -1877,48 +2042,43 @@ public class ConnectionManager implements ConnectListener {
                     }
                 }
             }
-            if(ackMessages != null) {
-                for (int i = 0; i < ackMessages.length; i++) {
-                    QueuedMessage msg = ackMessages[i];
-                    try {
-                        if (msg.listener != null) {
-                            PublishResult messageResult = results != null && results.length > i ? results[i] : null;
-                            msg.listener.onSuccess(messageResult);
-                        }
-                    } catch (Throwable t) {
-                        Log.e(TAG, "ack(): listener exception", t);
+            for (int i = 0; i < ackMessages.length; i++) {
+                QueuedMessage msg = ackMessages[i];
+                try {
+                    if (msg.listener != null) {
+                        PublishResult messageResult = results != null && results.length > i ? results[i] : null;
+                        msg.listener.onSuccess(messageResult);
                     }
+                } catch (Throwable t) {
+                    Log.e(TAG, "ack(): listener exception", t);
                 }
             }
         }
 
-        public synchronized void nack(long serial, int count, ErrorInfo reason) {
-            QueuedMessage[] nackMessages = null;
+        public void nack(long serial, int count, ErrorInfo reason) {
+            QueuedMessage[] nackMessages;
             synchronized(this) {
-                if (queue.isEmpty()) return;
-                long startSerial = queue.get(0).msg.msgSerial;
+                if (size == 0) return;
+                long startSerial = entries[head].msg.msgSerial;
                 if(serial != startSerial) {
                     /* this is an error condition and shouldn't happen but
                      * we can handle it gracefully by only processing the
                      * relevant portion of the response */
                     count -= (int)(startSerial - serial);
-                    serial = startSerial;
                 }
-                List<QueuedMessage> nackList = queue.subList(0, count);
-                nackMessages = nackList.toArray(new QueuedMessage[count]);
-                nackList.clear();
-                startSerial += count;
+                nackMessages = removeFirst(Math.max(0, Math.min(count, size)), false);
+                nackedCount += nackMessages.length;
+                if (metrics != null) metrics.onMessagesFailed(nackMessages.length);
+                notifyAll();
             }
-            if(nackMessages != null) {
-                if(reason == null)
-                    reason = new ErrorInfo("Unknown error", 500, 50000);
-                for(QueuedMessage msg : nackMessages) {
-                    try {
-                        if(msg.listener != null)
-                            msg.listener.onError(reason);
-                    } catch(Throwable t) {
-                        Log.e(TAG, "nack(): listener exception", t);
-                    }
+            if(reason == null)
+                reason = new ErrorInfo("Unknown error", 500, 50000);
+            for(QueuedMessage msg : nackMessages) {
+                try {
+                    if(msg.listener != null)
+                        msg.listener.onError(reason);
+                } catch(Throwable t) {
+                    Log.e(TAG, "nack(): listener exception", t);
                 }
             }
         }
@@ -1927,19 +2087,116 @@ public class ConnectionManager implements ConnectListener {
          * @return all pending queued messages and clear the queue
          */
         synchronized List<QueuedMessage> popAll() {
-            List<QueuedMessage> allPendingMessages = new ArrayList<>(queue);
-            queue.clear();
+            List<QueuedMessage> allPendingMessages = snapshot();
+            removeFirst(size, false);
+            notifyAll();
             return allPendingMessages;
         }
 
+        /**
+         * @return a copy of the pending queued messages, in msgSerial order
+         */
+        synchronized List<QueuedMessage> snapshot() {
+            List<QueuedMessage> messages = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                messages.add(entries[(head + i) & (entries.length - 1)]);
+            }
+            return messages;
+        }
+
         //fail all pending queued messages
         synchronized void fail(ErrorInfo reason) {
-            for (QueuedMessage queuedMessage: queue){
+            if (metrics != null && size > 0) metrics.onMessagesFailed(size);
+            for (QueuedMessage queuedMessage: removeFirst(size, false)){
                 if (queuedMessage.listener != null) {
                     queuedMessage.listener.onError(reason);
                 }
             }
-            queue.clear();
+            notifyAll();
+        }
+
+        synchronized PendingMessageStats getStats() {
+            return new PendingMessageStats(size, maxSize, maxInFlight, ackedCount, nackedCount,
+                blockedCount, blockedNanos, rejectedCount, ackLatency.snapshot());
+        }
+
+        /* must be called holding the lock */
+        private QueuedMessage[] removeFirst(int count, boolean recordLatency) {
+            QueuedMessage[] removed = new QueuedMessage[count];
+            long now = recordLatency ? clock.nanoTime() : 0;
+            int mask = entries.length - 1;
+            for (int i = 0; i < count; i++) {
+                int index = (head + i) & mask;
+                removed[i] = entries[index];
+                entries[index] = null;
+                if (recordLatency) {
+                    ackLatency.record(now - sentNanos[index]);
+                    if (metrics != null) metrics.onMessageAcknowledged(now - sentNanos[index]);
+                }
+            }
+            head = (head + count) & mask;
+            size -= count;
+            if (metrics != null && count > 0) metrics.onPendingMessageDepth(size);
+            return removed;
+        }
+
+        /* must be called holding the lock; capacity stays a power of two */
+        private void grow() {
+            int capacity = entries.length;
+            QueuedMessage[] newEntries = new QueuedMessage[capacity << 1];
+            long[] newSentNanos = new long[capacity << 1];
+            int headLength = capacity - head;
+            System.arraycopy(entries, head, newEntries, 0, headLength);
+            System.arraycopy(entries, 0, newEntries, headLength, head);
+            System.arraycopy(sentNanos, head, newSentNanos, 0, headLength);
+            System.arraycopy(sentNanos, 0, newSentNanos, headLength, head);
+            entries = newEntries;
+            sentNanos = newSentNanos;
+            head = 0;
+        }
+    }
+
+    /**
+     * Snapshot of the counters of the queue of messages awaiting acknowledgement.
+     */
+    public static class PendingMessageStats {
+        /** Number of messages currently awaiting acknowledgement. */
+        public final int inFlight;
+        /** The configured in-flight window; 0 if unlimited. */
+        public final int maxInFlightMessages;
+        /** Largest number of messages that have awaited acknowledgement at once. */
+        public final int maxInFlight;
+        /** Number of messages acknowledged. */
+        public final long ackedCount;
+        /** Number of messages negatively acknowledged. */
+        public final long nackedCount;
+        /** Number of publishes that had to wait because the window was full. */
+        public final long blockedCount;
+        /** Total time, in nanoseconds, publishers spent waiting for the window. */
+        public final long blockedNanos;
+        /** Number of publishes rejected because the window was full. */
+        public final long rejectedCount;
+        /** Time from sending a message to receiving its ACK. */
+        public final LatencyHistogram.Snapshot ackLatency;
+
+        PendingMessageStats(int inFlight, int maxInFlightMessages, int maxInFlight, long ackedCount, long nackedCount,
+                            long blockedCount, long blockedNanos, long rejectedCount, LatencyHistogram.Snapshot ackLatency) {
+            this.inFlight = inFlight;
+            this.maxInFlightMessages = maxInFlightMessages;
+            this.maxInFlight = maxInFlight;
+            this.ackedCount = ackedCount;
+            this.nackedCount = nackedCount;
+            this.blockedCount = blockedCount;
+            this.blockedNanos = blockedNanos;
+            this.rejectedCount = rejectedCount;
+            this.ackLatency = ackLatency;
+        }
+
+        @Override
+        public String toString() {
+            return "inFlight=" + inFlight + " maxInFlight=" + maxInFlight + " acked=" + ackedCount + " nacked=" + nackedCount
+                + " blocked=" + blockedCount + " blockedNanos=" + blockedNanos + " rejected=" + rejectedCount
+                + " ackLatency={" + ackLatency + "}";
         }
     }
 
@@ -2023,8 +2280,9 @@ public class ConnectionManager implements ConnectListener {
     private final Connection connection;
     private final ITransport.Factory transportFactory;
     private final List<QueuedMessage> queuedMessages = new ArrayList<>();
-    private final PendingMessageQueue pendingMessages = new PendingMessageQueue();
-    private final HashSet<Object> heartbeatWaiters = new HashSet<Object>();
+    private final PendingMessageQueue pendingMessages;
+    private final Map<String, PendingPing> pendingPings = new ConcurrentHashMap<>();
+    private final AblyTimer heartbeatTimer;
     private final ActionQueue actionQueue = new ActionQueue();
     private final Hosts hosts;
     private final PlatformAgentProvider platformAgentProvider;
@@ -2036,6 +2294,8 @@ public class ConnectionManager implements ConnectListener {
     private ConnectParams pendingConnect;
     private boolean suppressRetry; /* for tests only; modified via reflection */
     private volatile ITransport transport;
+    /* the thread that last delivered an inbound message, which is the thread that processes acknowledgements */
+    private volatile Thread inboundThread;
     private long suspendTime;
     public long msgSerial;
     private long lastActivity;
@@ -60,6 +60,7 @@ public class Defaults {
     public static final ITransport.Factory TRANSPORT = new WebSocketTransport.Factory();
     public static final int HTTP_MAX_RETRY_COUNT    = 3;
     public static final int HTTP_ASYNC_THREADPOOL_SIZE = 64;
+    public static final int MESSAGE_DISPATCH_QUEUE_SIZE = 1024;
 
     public static int getPort(ClientOptions options) {
         return options.tls
@@ -4,6 +4,7 @@ import io.ably.lib.types.AblyException;
 import io.ably.lib.types.ClientOptions;
 import io.ably.lib.types.ErrorInfo;
 import io.ably.lib.util.Clock;
+import io.ably.lib.util.MetricsRecorder;
 import io.ably.lib.util.SystemClock;
 
 import java.util.Arrays;
@@ -26,6 +27,7 @@ public class Hosts {
 
     private final Preferred preferred = new Preferred();
     private final Clock clock;
+    private final MetricsRecorder metrics;
 
     /**
      * Create Hosts object
@@ -81,6 +83,7 @@ public class Hosts {
         Collections.shuffle(Arrays.asList(fallbackHosts));
         fallbackRetryTimeout = options.fallbackRetryTimeout;
         this.clock = SystemClock.clockFrom(options);
+        this.metrics = options.metricsRecorder;
     }
 
     /**
@@ -122,6 +125,15 @@ public class Hosts {
      * null, if there is no successor fallback available.
      */
     public synchronized String getFallback(String lastHost) {
+        final String fallback = nextFallback(lastHost);
+        if (fallback != null && metrics != null) {
+            metrics.onFallbackHost(lastHost, fallback);
+        }
+        return fallback;
+    }
+
+    /* must be called holding the lock */
+    private String nextFallback(String lastHost) {
         if (fallbackHosts == null)
             return null;
         int idx;
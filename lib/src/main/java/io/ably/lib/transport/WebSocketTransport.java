@@ -17,7 +17,9 @@ import io.ably.lib.types.ProtocolSerializer;
 import io.ably.lib.util.Clock;
 import io.ably.lib.util.ClientOptionsUtils;
 import io.ably.lib.util.Log;
+import io.ably.lib.util.MetricsRecorder;
 import io.ably.lib.util.AblyTimer;
+import io.ably.lib.util.ReusablePacker;
 import io.ably.lib.util.SystemClock;
 import io.ably.lib.util.TimerInstance;
 
@@ -53,12 +55,14 @@ public class WebSocketTransport implements ITransport {
     private final ConnectionManager connectionManager;
     private final Clock clock;
     private final boolean channelBinaryMode;
+    private final MetricsRecorder metrics;
     private String wsUri;
     private ConnectListener connectListener;
     private WebSocketClient webSocketClient;
     private final WebSocketEngine webSocketEngine;
     private WebSocketHandler webSocketHandler;
     private boolean activityCheckTurnedOff = false;
+    private final ReusablePacker packer = new ReusablePacker();
 
     private boolean connectHasBeenCalled = false;
 
@@ -70,6 +74,7 @@ public class WebSocketTransport implements ITransport {
         this.connectionManager = connectionManager;
         this.clock = SystemClock.clockFrom(params.options);
         this.channelBinaryMode = params.options.useBinaryProtocol;
+        this.metrics = params.options.metricsRecorder;
         this.webSocketEngine = createWebSocketEngine(params);
         params.heartbeats = !this.webSocketEngine.isPingListenerSupported();
     }
@@ -180,19 +185,27 @@ public class WebSocketTransport implements ITransport {
         Log.d(TAG, "send(); action = " + msg.action);
         try {
             if (channelBinaryMode) {
-                byte[] encodedMsg = ProtocolSerializer.writeMsgpack(msg);
-
-                // Check the logging level to avoid performance hit associated with building the message
-                if (Log.level <= Log.VERBOSE) {
-                    ProtocolMessage decodedMsg = ProtocolSerializer.readMsgpack(encodedMsg);
-                    Log.v(TAG, "send(): " + decodedMsg.action + ": " + new String(ProtocolSerializer.writeJSON(decodedMsg)));
+                // The packer's buffer is reused for every send, so encoding and sending must not interleave
+                synchronized (packer) {
+                    ByteBuffer encodedMsg = ProtocolSerializer.writeMsgpack(msg, packer);
+
+                    // Check the logging level to avoid performance hit associated with building the message
+                    if (Log.level <= Log.VERBOSE) {
+                        ProtocolMessage decodedMsg = ProtocolSerializer.readMsgpack(encodedMsg.duplicate());
+                        Log.v(TAG, "send(): " + decodedMsg.action + ": " + new String(ProtocolSerializer.writeJSON(decodedMsg)));
+                    }
+                    final int size = encodedMsg.remaining();
+                    webSocketClient.send(encodedMsg);
+                    packer.trim();
+                    if (metrics != null) metrics.onProtocolMessageSent(msg.action, size);
                 }
-                webSocketClient.send(encodedMsg);
             } else {
                 // Check the logging level to avoid performance hit associated with building the message
                 if (Log.level <= Log.VERBOSE)
                     Log.v(TAG, "send(): " + new String(ProtocolSerializer.writeJSON(msg)));
-                webSocketClient.send(ProtocolSerializer.writeJSON(msg));
+                final byte[] encodedMsg = ProtocolSerializer.writeJSON(msg);
+                webSocketClient.send(encodedMsg);
+                if (metrics != null) metrics.onProtocolMessageSent(msg.action, encodedMsg.length);
             }
         } catch (NotConnectedException e) {
             if (connectListener != null) {
@@ -262,6 +275,7 @@ public class WebSocketTransport implements ITransport {
          ***************************/
 
         private final AblyTimer timer = clock.newTimer("activity-timer");
+        private final ProtocolSerializer.MsgpackReader msgpackReader = new ProtocolSerializer.MsgpackReader();
         private volatile TimerInstance activityTimerHandle = null;
         private volatile long lastActivityTime;
 
@@ -284,7 +298,10 @@ public class WebSocketTransport implements ITransport {
         @Override
         public void onMessage(ByteBuffer blob) {
             try {
-                ProtocolMessage msg = ProtocolSerializer.readMsgpack(blob.array());
+                final int size = blob.remaining();
+                final long start = (metrics != null) ? clock.nanoTime() : 0;
+                ProtocolMessage msg = msgpackReader.read(blob);
+                if (metrics != null) metrics.onProtocolMessageReceived(msg.action, size, clock.nanoTime() - start);
                 Log.d(TAG, "onMessage(): msg (binary) = " + msg);
                 WebSocketTransport.this.preProcessReceivedMessage(msg);
                 receiver.onMessage(msg);
@@ -298,7 +315,9 @@ public class WebSocketTransport implements ITransport {
         @Override
         public void onMessage(String string) {
             try {
+                final long start = (metrics != null) ? clock.nanoTime() : 0;
                 ProtocolMessage msg = ProtocolSerializer.fromJSON(string);
+                if (metrics != null) metrics.onProtocolMessageReceived(msg.action, string.length(), clock.nanoTime() - start);
                 Log.d(TAG, "onMessage(): msg (text) = " + msg);
                 WebSocketTransport.this.preProcessReceivedMessage(msg);
                 receiver.onMessage(msg);
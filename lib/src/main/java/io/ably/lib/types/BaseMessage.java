@@ -1,27 +1,22 @@
 package io.ably.lib.types;
 
-import com.davidehrmann.vcdiff.VCDiffDecoder;
-import com.davidehrmann.vcdiff.VCDiffDecoderBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import io.ably.lib.util.Base64Coder;
-import io.ably.lib.util.Crypto;
-import io.ably.lib.util.Crypto.EncryptingChannelCipher;
-import io.ably.lib.util.Crypto.DecryptingChannelCipher;
+import io.ably.lib.util.Crypto.ChannelCipherPool;
 import io.ably.lib.util.Log;
 import io.ably.lib.util.Serialisation;
 import org.msgpack.core.MessageFormat;
 import org.msgpack.core.MessagePacker;
 import org.msgpack.core.MessageUnpacker;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class BaseMessage implements Cloneable {
     /**
@@ -96,13 +91,9 @@ public class BaseMessage implements Cloneable {
         this.decode(opts, new DecodingContext());
     }
 
-    private final static VCDiffDecoder vcdiffDecoder = VCDiffDecoderBuilder.builder().buildSimple();
-
-    private static byte[] vcdiffApply(byte[] delta, byte[] base) throws MessageDecodeException {
+    private static byte[] vcdiffApply(byte[] delta, DecodingContext context) throws MessageDecodeException {
         try {
-            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
-            vcdiffDecoder.decode(base, delta, decoded);
-            return decoded.toByteArray();
+            return context.applyDelta(delta);
         } catch (Throwable t) {
             throw MessageDecodeException.fromThrowableAndErrorInfo(t, new ErrorInfo("VCDIFF delta decode failed", 400, 40018));
         }
@@ -113,64 +104,89 @@ public class BaseMessage implements Cloneable {
         Object lastPayload = data;
 
         if(encoding != null) {
-            String[] xforms = encoding.split("\\/");
-            int lastProcessedEncodingIndex = 0, encodingsToProcess  = xforms.length;
+            EncodingPlan plan = EncodingPlan.of(encoding);
+            int decodedSteps = 0;
             try {
-                while((lastProcessedEncodingIndex  = encodingsToProcess ) > 0) {
-                    Matcher match = xformPattern.matcher(xforms[--encodingsToProcess ]);
-                    if(!match.matches()) break;
-                    switch(match.group(1)) {
-                        case "base64":
+                for(EncodingPlan.Step step : plan.steps) {
+                    switch(step) {
+                        case BASE64:
                             try {
                                 data = Base64Coder.decode((String) data);
                             } catch (IllegalArgumentException e) {
                                 throw MessageDecodeException.fromDescription("Invalid base64 data received");
                             }
-                            if(lastProcessedEncodingIndex == xforms.length) {
+                            if(decodedSteps == 0) {
                                 lastPayload = data;
                             }
-                            continue;
+                            break;
 
-                        case "utf-8":
+                        case UTF8:
                             try { data = new String((byte[])data, "UTF-8"); } catch(UnsupportedEncodingException|ClassCastException e) {}
-                            continue;
+                            break;
 
-                        case "json":
+                        case JSON:
                             try {
                                 String jsonText = ((String)data).trim();
                                 data = Serialisation.gsonParser.parse(jsonText);
                             } catch(JsonParseException e) {
                                 throw MessageDecodeException.fromDescription("Invalid JSON data received");
                             }
-                            continue;
+                            break;
 
-                        case "cipher":
+                        case CIPHER:
                             if(opts != null && opts.encrypted) {
                                 try {
-                                    DecryptingChannelCipher cipher = Crypto.createChannelDecipher(opts.getCipherParamsOrDefault());
-                                    data = cipher.decrypt((byte[]) data);
+                                    data = opts.getCipherPool().decrypt((byte[]) data);
                                 } catch(AblyException e) {
                                     throw MessageDecodeException.fromDescription(e.errorInfo.message);
                                 }
-                                continue;
+                                break;
                             }
                             else {
                                 throw MessageDecodeException.fromDescription("Encrypted message received but encryption is not set up");
                             }
-                        case "vcdiff":
-                            data = vcdiffApply((byte[]) data, context.getLastMessageData());
+                        case VCDIFF:
+                            data = vcdiffApply((byte[]) data, context);
                             lastPayload = data;
-
-                            continue;
+                            break;
                     }
-                    break;
+                    ++decodedSteps;
                 }
             } finally {
-                encoding = (lastProcessedEncodingIndex  <= 0) ? null : join(xforms, '/', 0, lastProcessedEncodingIndex );
+                encoding = plan.residualEncoding(decodedSteps);
+            }
+        }
+
+        setLastMessageData(context, lastPayload);
+    }
+
+    /**
+     * Internal; decodes this message only as far as is needed to keep the vcdiff base in the
+     * given context up to date, for a message that will not be delivered to any listener.
+     * A message that is itself a delta is fully decoded, since the delta has to be applied
+     * to obtain the next base; otherwise only an outer base64 encoding is removed to get the
+     * base, and the data and encoding of this message are left as received.
+     */
+    public void decodeDeltaBase(ChannelOptions opts, DecodingContext context) throws MessageDecodeException {
+        EncodingPlan plan = EncodingPlan.of(encoding);
+        if(plan.contains(EncodingPlan.Step.VCDIFF)) {
+            decode(opts, context);
+            return;
+        }
+
+        Object lastPayload = data;
+        if(plan.steps.length > 0 && plan.steps[0] == EncodingPlan.Step.BASE64) {
+            try {
+                lastPayload = Base64Coder.decode((String) data);
+            } catch (IllegalArgumentException e) {
+                throw MessageDecodeException.fromDescription("Invalid base64 data received");
             }
         }
+        setLastMessageData(context, lastPayload);
+    }
 
-        //last message bookkeping
+    /* last message bookkeeping, for the vcdiff base of a subsequent delta */
+    private static void setLastMessageData(DecodingContext context, Object lastPayload) throws MessageDecodeException {
         if (lastPayload instanceof String)
             context.setLastMessageData((String)lastPayload);
         else if (lastPayload instanceof byte[])
@@ -187,17 +203,17 @@ public class BaseMessage implements Cloneable {
 
     EncodedMessageData encodeData(ChannelOptions opts) throws AblyException {
         Object decodedData = this.data;
-        String encoding = this.encoding;
+        EncodingPlan plan = EncodingPlan.of(this.encoding);
 
         if (decodedData != null) {
             if (decodedData instanceof JsonElement) {
                 decodedData = Serialisation.gson.toJson((JsonElement) decodedData);
-                encoding = ((encoding == null) ? "" : encoding + "/") + "json";
+                plan = plan.then("json");
             }
             if (decodedData instanceof String) {
                 if (opts != null && opts.encrypted) {
                     try { decodedData = ((String)decodedData).getBytes("UTF-8"); } catch(UnsupportedEncodingException e) {}
-                    encoding = ((encoding == null) ? "" : encoding + "/") + "utf-8";
+                    plan = plan.then("utf-8");
                 }
             } else if (!(decodedData instanceof byte[])) {
                 Log.d(TAG, "Message data must be either `byte[]`, `String` or `JSONElement`; implicit coercion of other types to String is deprecated");
@@ -206,21 +222,12 @@ public class BaseMessage implements Cloneable {
         }
 
         if (opts != null && opts.encrypted) {
-            EncryptingChannelCipher cipher = Crypto.createChannelEncipher(opts.getCipherParamsOrDefault());
-            decodedData = cipher.encrypt((byte[]) decodedData);
-            encoding = ((encoding == null) ? "" : encoding + "/") + "cipher+" + cipher.getAlgorithm();
+            ChannelCipherPool ciphers = opts.getCipherPool();
+            decodedData = ciphers.encrypt((byte[]) decodedData);
+            plan = plan.then("cipher+" + ciphers.getAlgorithm());
         }
 
-        return new EncodedMessageData(decodedData, encoding);
-    }
-
-    /* trivial utilities for processing encoding string */
-    private static Pattern xformPattern = Pattern.compile("([\\-\\w]+)(\\+([\\-\\w]+))?");
-    private String join(String[] elements, char separator, int start, int end) {
-        StringBuilder result = new StringBuilder(elements[start++]);
-        for(int i = start; i < end; i++)
-            result.append(separator).append(elements[i]);
-        return result.toString();
+        return new EncodedMessageData(decodedData, plan.encoding);
     }
 
     /**
@@ -334,6 +341,37 @@ public class BaseMessage implements Cloneable {
         return result;
     }
 
+    /* JSON processing */
+    boolean readField(JsonReader reader, String fieldName) throws IOException {
+        boolean result = true;
+        switch (fieldName) {
+            case TIMESTAMP:
+                timestamp = reader.nextLong(); break;
+            case ID:
+                id = reader.nextString(); break;
+            case CLIENT_ID:
+                clientId = reader.nextString(); break;
+            case CONNECTION_ID:
+                connectionId = reader.nextString(); break;
+            case ENCODING:
+                encoding = reader.nextString(); break;
+            case DATA:
+                data = readData(reader); break;
+            default:
+                result = false;
+                break;
+        }
+        return result;
+    }
+
+    /**
+     * Reads the data member from JSON. Data is sent as a string, being base64 or json encoded
+     * when it is not text; other primitive values are read as their string form.
+     */
+    Object readData(JsonReader reader) throws IOException {
+        return reader.peek() == JsonToken.BOOLEAN ? String.valueOf(reader.nextBoolean()) : reader.nextString();
+    }
+
     protected int countFields() {
         int fieldCount = 0;
         if(timestamp > 0) ++fieldCount;
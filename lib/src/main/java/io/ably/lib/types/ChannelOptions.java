@@ -4,6 +4,7 @@ import java.util.Map;
 
 import io.ably.lib.util.Base64Coder;
 import io.ably.lib.util.Crypto;
+import io.ably.lib.util.Crypto.ChannelCipherPool;
 import io.ably.lib.util.Crypto.CipherParams;
 
 /**
@@ -51,6 +52,27 @@ public class ChannelOptions {
      */
     public boolean attachOnSubscribe = true;
 
+    /**
+     * <p>
+     * When greater than zero, messages published on a {@link io.ably.lib.realtime.Channel} within this
+     * many milliseconds of each other are sent together in a single protocol message, rather than one
+     * protocol message per publish call. Each publish call's callback is still resolved individually,
+     * with the serials of its own messages.
+     * </p>
+     * <p>Defaults to {@code 0}, meaning each publish is sent immediately.</p>
+     */
+    public int publishBatchInterval;
+
+    /**
+     * <p>
+     * The maximum combined size, in bytes, of the messages in a publish batch when
+     * {@link #publishBatchInterval} is set. A batch reaching this size is sent without waiting for the
+     * interval to elapse. The server's {@code maxMessageSize} always applies as an upper bound.
+     * </p>
+     * <p>Defaults to {@code 0}, meaning the server's {@code maxMessageSize} is the only limit.</p>
+     */
+    public int publishBatchMaxSize;
+
     public boolean hasModes() {
         return null != modes && 0 != modes.length;
     }
@@ -128,4 +150,18 @@ public class ChannelOptions {
         }
         return params;
     }
+
+    /**
+     * Internal; returns the reusable ciphers for this channel's cipher params, generating default
+     * params if none are set. The pool is replaced if {@link #cipherParams} has changed since it was created.
+     */
+    public synchronized ChannelCipherPool getCipherPool() throws AblyException {
+        CipherParams params = getCipherParamsOrDefault();
+        if (cipherPool == null || cipherPool.getParams() != params) {
+            cipherPool = Crypto.createChannelCipherPool(params);
+        }
+        return cipherPool;
+    }
+
+    private ChannelCipherPool cipherPool;
 }
@@ -6,8 +6,11 @@ import io.ably.lib.rest.Auth.TokenParams;
 import io.ably.lib.transport.Defaults;
 import io.ably.lib.util.Log;
 import io.ably.lib.util.Log.LogHandler;
+import io.ably.lib.util.MetricsRecorder;
+import io.ably.lib.util.SerialExecutor;
 
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * Passes additional client-specific properties to the {@link io.ably.lib.rest.AblyRest} or the {@link io.ably.lib.realtime.AblyRealtime}.
@@ -205,6 +208,22 @@ public class ClientOptions extends AuthOptions {
      */
     public int httpMaxRetryCount = Defaults.HTTP_MAX_RETRY_COUNT;
 
+    /**
+     * The maximum number of concurrent HTTP requests to a single host; further requests wait for one
+     * to complete. Applies to HTTP engines that pool connections, such as the java.net.http engine.
+     * The default is 0, meaning the engine's default.
+     */
+    public int httpMaxConnectionsPerHost = 0;
+
+    /**
+     * The time, in milliseconds, an idle HTTP connection is kept open for reuse by later requests.
+     * Applies to the OkHttp engine. It is not applied by the java.net.http engine, which has no
+     * per-client setting; its keep-alive timeout is set for the whole JVM by the
+     * jdk.httpclient.keepalive.timeout system property.
+     * The default is 0, meaning the engine's default.
+     */
+    public long httpKeepAliveTimeout = 0;
+
     /**
      * Timeout for the wait of acknowledgement for operations performed via a realtime connection,
      * before the client library considers a request failed and triggers a failure condition.
@@ -293,6 +312,16 @@ public class ClientOptions extends AuthOptions {
      */
     public int asyncHttpThreadpoolSize = Defaults.HTTP_ASYNC_THREADPOOL_SIZE;
 
+    /**
+     * The executor that runs asynchronous REST operations, such as {@code publishAsync}, in place of a pool
+     * of {@link #asyncHttpThreadpoolSize} threads; for example a virtual-thread-per-task executor on JDK 21+,
+     * so that each blocking request uses a virtual thread. The executor is not shut down by the library.
+     * When the HTTP engine performs requests without blocking, operations use this executor only to obtain
+     * tokens and to call callbacks.
+     * If null, the client creates its own pool.
+     */
+    public Executor asyncHttpExecutor;
+
     /**
      * Whether to tell Ably to wait for push REST requests to fully wait for all their effects
      * before responding.
@@ -324,6 +353,80 @@ public class ClientOptions extends AuthOptions {
      */
     public Map<String, String> agents;
 
+    /**
+     * When true, inbound channel messages are decoded and delivered to subscribers off the
+     * transport thread, so a slow subscriber does not stall other channels or connection
+     * liveness detection. Each channel has its own ordered queue, so messages on a channel
+     * are still delivered in order, while different channels are processed in parallel.
+     * The default is false, meaning messages are delivered on the transport thread.
+     */
+    public boolean asyncMessageDispatch = false;
+
+    /**
+     * The executor that runs channel message dispatch when {@link #asyncMessageDispatch} is true;
+     * for example a virtual-thread-per-task executor on JDK 21+. The executor is shared by all
+     * channels of the client and is not shut down by the library.
+     * If null, the client creates a pool with one thread per available processor.
+     */
+    public Executor messageDispatchExecutor;
+
+    /**
+     * The maximum number of inbound protocol messages queued for dispatch on each channel when
+     * {@link #asyncMessageDispatch} is true; what happens once a channel's queue is full is given by
+     * {@link #messageDispatchOverflowPolicy}. Must be positive.
+     */
+    public int messageDispatchQueueSize = Defaults.MESSAGE_DISPATCH_QUEUE_SIZE;
+
+    /**
+     * What happens to an inbound protocol message when its channel's dispatch queue already holds
+     * {@link #messageDispatchQueueSize} messages, with {@link #asyncMessageDispatch}. By default
+     * ({@link SerialExecutor.OverflowPolicy#block}) no message is lost: the transport thread waits for the
+     * channel's subscribers to catch up, which holds up every channel and the processing of acknowledgements
+     * and heartbeats. An application that prefers to lose messages rather than hold up the transport can opt in
+     * to {@link SerialExecutor.OverflowPolicy#dropOldest} or {@link SerialExecutor.OverflowPolicy#dropNewest};
+     * when messages are discarded, the channel emits an UPDATE event with resumed false (RTL12).
+     */
+    public SerialExecutor.OverflowPolicy messageDispatchOverflowPolicy = SerialExecutor.OverflowPolicy.block;
+
+    /**
+     * The maximum number of published messages that may be awaiting acknowledgement from Ably at once.
+     * Once this many are in flight, a further publish waits for acknowledgements for up to
+     * {@link #inFlightWindowTimeout}, and then fails. This bounds the memory held by a producer that
+     * publishes faster than acknowledgements arrive. The limit is soft: publishes made concurrently as room
+     * becomes available may briefly take the number in flight beyond it. A publish made on the thread that
+     * receives messages, such as from a subscriber when messages are dispatched synchronously, does not wait,
+     * since acknowledgements are processed on that thread; it fails at once if the window is full.
+     * Messages queued while the connection is not connected (see {@link #queueMessages}) count towards
+     * the limit too; once it is reached, a publish fails at once rather than waiting for the connection.
+     * The default is 0, meaning no limit.
+     */
+    public int maxInFlightMessages = 0;
+
+    /**
+     * The time, in milliseconds, a publish waits for room when {@link #maxInFlightMessages} are already
+     * in flight. The default is 0, meaning such a publish fails immediately.
+     * A publish that waits blocks its calling thread. When that is a subscriber called on a
+     * {@link #messageDispatchExecutor} thread, messages of other channels using that thread wait too.
+     */
+    public long inFlightWindowTimeout = 0;
+
+    /**
+     * A recorder for measurements such as message and byte counts, decode time, acknowledgement
+     * latency and HTTP request latency per host; see {@link MetricsRecorder}.
+     * The default is null, meaning nothing is measured.
+     */
+    public MetricsRecorder metricsRecorder;
+
+    /**
+     * The fraction of a token's lifetime after which the library renews it in the background, so that
+     * requests do not wait for a token to be obtained once the current one expires. A realtime connection
+     * is upgraded to the new token in place. Concurrent renewals, whether in the background or on expiry,
+     * share a single token request. Only applies when the library can obtain tokens itself, using
+     * {@link #key}, {@link #authCallback} or {@link #authUrl}.
+     * The default is 0, meaning tokens are renewed only once they have expired; 0.8 is a typical value.
+     */
+    public float tokenRenewalFraction = 0;
+
     /**
      * Internal method
      *
@@ -351,6 +454,8 @@ public class ClientOptions extends AuthOptions {
         copied.httpRequestTimeout = httpRequestTimeout;
         copied.httpMaxRetryDuration = httpMaxRetryDuration;
         copied.httpMaxRetryCount = httpMaxRetryCount;
+        copied.httpMaxConnectionsPerHost = httpMaxConnectionsPerHost;
+        copied.httpKeepAliveTimeout = httpKeepAliveTimeout;
         copied.realtimeRequestTimeout = realtimeRequestTimeout;
         copied.disconnectedRetryTimeout = disconnectedRetryTimeout;
         copied.suspendedRetryTimeout = suspendedRetryTimeout;
@@ -359,9 +464,18 @@ public class ClientOptions extends AuthOptions {
         copied.defaultTokenParams = defaultTokenParams;
         copied.channelRetryTimeout = channelRetryTimeout;
         copied.asyncHttpThreadpoolSize = asyncHttpThreadpoolSize;
+        copied.asyncHttpExecutor = asyncHttpExecutor;
         copied.pushFullWait = pushFullWait;
         copied.localStorage = localStorage;
         copied.addRequestIds = addRequestIds;
+        copied.asyncMessageDispatch = asyncMessageDispatch;
+        copied.messageDispatchExecutor = messageDispatchExecutor;
+        copied.messageDispatchQueueSize = messageDispatchQueueSize;
+        copied.messageDispatchOverflowPolicy = messageDispatchOverflowPolicy;
+        copied.maxInFlightMessages = maxInFlightMessages;
+        copied.inFlightWindowTimeout = inFlightWindowTimeout;
+        copied.metricsRecorder = metricsRecorder;
+        copied.tokenRenewalFraction = tokenRenewalFraction;
         copied.authCallback = authCallback;
         copied.authUrl = authUrl;
         copied.authMethod = authMethod;
@@ -1,12 +1,52 @@
 package io.ably.lib.types;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
 
+import com.davidehrmann.vcdiff.VCDiffDecoder;
+import com.davidehrmann.vcdiff.VCDiffDecoderBuilder;
+
+import io.ably.lib.util.LatencyHistogram;
+
+/**
+ * Holds the state needed to decode successive messages on a channel; in particular the
+ * payload of the last message, which is the base for a subsequent vcdiff delta.
+ * <p>
+ * The result of applying a delta is kept as the next base in one of two buffers owned by
+ * this context, which alternate as base and target for successive deltas. The buffers are
+ * reused, so applying a delta allocates only the array returned as the message data.
+ * <p>
+ * Instances are not thread-safe, except for {@link #getDeltaStats()}; a context is
+ * intended to be used for one channel, whose messages are decoded sequentially.
+ */
 public class DecodingContext {
 
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
     private String lastMessageString;
     private byte[] lastMessageBinary;
 
+    /* the two delta buffers, created when first needed; when base is one of these, the other is the next target */
+    private DeltaBuffer first;
+    private DeltaBuffer second;
+    private DeltaBuffer base;
+    /* the array last returned by applyDelta, which is a copy of the content of base */
+    private byte[] lastDeltaResult;
+
+    private VCDiffDecoder vcdiffDecoder;
+    private CharsetEncoder utf8Encoder;
+
+    /* delta metrics, guarded by themselves */
+    private final LatencyHistogram deltaDecodeLatency = new LatencyHistogram();
+    private long deltaBytes;
+    private long decodedBytes;
+
     public DecodingContext()
     {
         lastMessageBinary = null;
@@ -14,10 +54,12 @@ public class DecodingContext {
     }
 
     public byte[] getLastMessageData() {
-        if(lastMessageBinary != null)
+        if(base != null)
+            return Arrays.copyOf(base.buffer(), base.size());
+        else if(lastMessageBinary != null)
             return lastMessageBinary;
         else if(lastMessageString != null) {
-            return lastMessageString.getBytes(Charset.forName("UTF-8"));
+            return lastMessageString.getBytes(UTF_8);
         }
         else
             return null;
@@ -26,10 +68,155 @@ public class DecodingContext {
     public void setLastMessageData(String message) {
         lastMessageString = message;
         lastMessageBinary = null;
+        base = null;
+        lastDeltaResult = null;
     }
 
     public void setLastMessageData(byte[] message) {
+        if(message != null && message == lastDeltaResult) {
+            /* the result of the last delta, whose content is already held as the base */
+            return;
+        }
         lastMessageBinary = message;
         lastMessageString = null;
+        base = null;
+        lastDeltaResult = null;
+    }
+
+    /**
+     * Applies the given vcdiff delta to the last message data, which becomes the result.
+     * @return a new array holding the result.
+     * @throws IOException if there is no last message data, or the delta cannot be applied to it.
+     */
+    byte[] applyDelta(byte[] delta) throws IOException {
+        final long start = System.nanoTime();
+        final ByteBuffer dictionary = baseBuffer();
+        if(dictionary == null) {
+            throw new IOException("No base payload for delta");
+        }
+
+        if(vcdiffDecoder == null) {
+            vcdiffDecoder = VCDiffDecoderBuilder.builder().buildSimple();
+            second = new DeltaBuffer();
+        }
+        final DeltaBuffer target = (base == second) ? first() : second;
+        target.reset();
+        vcdiffDecoder.decode(dictionary, ByteBuffer.wrap(delta), target);
+
+        base = target;
+        lastMessageBinary = null;
+        lastMessageString = null;
+        lastDeltaResult = target.toByteArray();
+
+        synchronized (deltaDecodeLatency) {
+            deltaDecodeLatency.record(System.nanoTime() - start);
+            deltaBytes += delta.length;
+            decodedBytes += lastDeltaResult.length;
+        }
+        return lastDeltaResult;
+    }
+
+    /**
+     * Returns counters for the vcdiff deltas applied with this context.
+     */
+    public DeltaStats getDeltaStats() {
+        synchronized (deltaDecodeLatency) {
+            return new DeltaStats(deltaBytes, decodedBytes, deltaDecodeLatency.snapshot());
+        }
+    }
+
+    /**
+     * Returns the last message data as a buffer, without copying it unless it is a string,
+     * which is encoded into one of the delta buffers.
+     */
+    private ByteBuffer baseBuffer() {
+        if(base != null) {
+            return ByteBuffer.wrap(base.buffer(), 0, base.size());
+        }
+        if(lastMessageBinary != null) {
+            return ByteBuffer.wrap(lastMessageBinary);
+        }
+        if(lastMessageString != null) {
+            if(utf8Encoder == null) {
+                utf8Encoder = UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            final DeltaBuffer encoded = first();
+            encoded.reset();
+            final ByteBuffer out = encoded.writable((int) (lastMessageString.length() * utf8Encoder.maxBytesPerChar()));
+            utf8Encoder.reset();
+            utf8Encoder.encode(CharBuffer.wrap(lastMessageString), out, true);
+            utf8Encoder.flush(out);
+            encoded.commit(out.position());
+            base = encoded;
+            lastMessageString = null;
+            return ByteBuffer.wrap(encoded.buffer(), 0, encoded.size());
+        }
+        return null;
+    }
+
+    private DeltaBuffer first() {
+        if(first == null) {
+            first = new DeltaBuffer();
+        }
+        return first;
+    }
+
+    /**
+     * Growable output buffer whose storage is retained across {@link #reset()}.
+     */
+    private static class DeltaBuffer extends ByteArrayOutputStream {
+        byte[] buffer() {
+            return buf;
+        }
+
+        /**
+         * Returns a buffer over the unused storage, grown to hold at least the given number of bytes.
+         */
+        ByteBuffer writable(int length) {
+            if(buf.length - count < length) {
+                buf = Arrays.copyOf(buf, Math.max(count + length, 2 * buf.length));
+            }
+            return ByteBuffer.wrap(buf, count, buf.length - count);
+        }
+
+        void commit(int position) {
+            count = position;
+        }
+    }
+
+    /**
+     * Counters for the vcdiff deltas applied on a channel.
+     */
+    public static class DeltaStats {
+        /** Number of deltas applied. */
+        public final long deltaCount;
+        /** Total size, in bytes, of the deltas received. */
+        public final long deltaBytes;
+        /** Total size, in bytes, of the payloads obtained by applying the deltas. */
+        public final long decodedBytes;
+        /** Time taken to apply each delta. */
+        public final LatencyHistogram.Snapshot decodeLatency;
+
+        DeltaStats(long deltaBytes, long decodedBytes, LatencyHistogram.Snapshot decodeLatency) {
+            this.deltaCount = decodeLatency.count;
+            this.deltaBytes = deltaBytes;
+            this.decodedBytes = decodedBytes;
+            this.decodeLatency = decodeLatency;
+        }
+
+        /**
+         * Returns the number of bytes that receiving deltas saved over receiving the full payloads.
+         */
+        public long bytesSaved() {
+            return decodedBytes - deltaBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "deltas=" + deltaCount + " deltaBytes=" + deltaBytes + " decodedBytes=" + decodedBytes
+                + " bytesSaved=" + bytesSaved() + " decodeLatency={" + decodeLatency + "}";
+        }
     }
 }
@@ -0,0 +1,164 @@
+package io.ably.lib.types;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The parsed form of a message {@code encoding} string, such as {@code json/utf-8/cipher+aes-256-cbc/base64}.
+ * <p>
+ * Traffic uses only a handful of distinct encodings, so plans are cached by encoding string and
+ * shared; decoding a message is then a lookup followed by a switch over the precomputed steps,
+ * without splitting, matching or joining the encoding string. Plans are immutable once built.
+ */
+final class EncodingPlan {
+
+    /** The transforms understood by {@link BaseMessage#decode(ChannelOptions, DecodingContext)}. */
+    enum Step {
+        BASE64, UTF8, JSON, CIPHER, VCDIFF
+    }
+
+    /** Limits the cache when peers send many distinct encodings; further plans are built but not cached. */
+    private static final int MAX_CACHED_PLANS = 256;
+    private static final Map<String, EncodingPlan> cache = new ConcurrentHashMap<>();
+
+    /** The plan for a message that has no encoding. */
+    static final EncodingPlan NONE = new EncodingPlan(null, new String[0]);
+
+    /** The encoding string this plan was built from, or null for {@link #NONE}. */
+    final String encoding;
+
+    /**
+     * The decode steps, in the order they are applied; step {@code i} undoes segment
+     * {@code segmentCount - 1 - i} of the encoding.
+     */
+    final Step[] steps;
+
+    /** The number of segments in the encoding. */
+    final int segmentCount;
+
+    /**
+     * {@code residualEncodings[i]} is the encoding left on a message once its last {@code i} segments
+     * have been decoded, or null if none remains.
+     */
+    private final String[] residualEncodings;
+
+    /* plans for this encoding with a further transform appended, built by encodeData */
+    private final Map<String, EncodingPlan> appended = new ConcurrentHashMap<>(4);
+
+    private EncodingPlan(String encoding, String[] segments) {
+        this.encoding = encoding;
+        this.segmentCount = segments.length;
+
+        /* decoding applies the segments in reverse, stopping at the first one that is not understood */
+        List<Step> steps = new ArrayList<>(segments.length);
+        for (int i = segments.length - 1; i >= 0; i--) {
+            Step step = parseStep(segments[i]);
+            if (step == null) break;
+            steps.add(step);
+        }
+        this.steps = steps.toArray(new Step[0]);
+
+        residualEncodings = new String[segments.length + 1];
+        StringBuilder residual = new StringBuilder();
+        for (int i = 0; i < segments.length; i++) {
+            if (i > 0) residual.append('/');
+            residual.append(segments[i]);
+            residualEncodings[segments.length - 1 - i] = residual.toString();
+        }
+    }
+
+    /**
+     * Returns the plan for the given encoding, which may be null.
+     */
+    static EncodingPlan of(String encoding) {
+        if (encoding == null) return NONE;
+        EncodingPlan plan = cache.get(encoding);
+        if (plan == null) {
+            plan = new EncodingPlan(encoding, split(encoding));
+            if (cache.size() < MAX_CACHED_PLANS) {
+                EncodingPlan existing = cache.putIfAbsent(encoding, plan);
+                if (existing != null) plan = existing;
+            }
+        }
+        return plan;
+    }
+
+    boolean contains(Step step) {
+        for (Step s : steps) {
+            if (s == step) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the encoding left on a message once the given number of steps have been decoded.
+     */
+    String residualEncoding(int decodedSteps) {
+        return residualEncodings[decodedSteps];
+    }
+
+    /**
+     * Returns the plan for this encoding with the given transform appended, as done when encoding a message.
+     */
+    EncodingPlan then(String transform) {
+        EncodingPlan plan = appended.get(transform);
+        if (plan == null) {
+            plan = of(encoding == null ? transform : encoding + '/' + transform);
+            if (appended.size() < MAX_CACHED_PLANS) {
+                appended.put(transform, plan);
+            }
+        }
+        return plan;
+    }
+
+    private static String[] split(String encoding) {
+        List<String> segments = new ArrayList<>(4);
+        int start = 0;
+        for (int i = 0; i < encoding.length(); i++) {
+            if (encoding.charAt(i) == '/') {
+                segments.add(encoding.substring(start, i));
+                start = i + 1;
+            }
+        }
+        segments.add(encoding.substring(start));
+        /* as String.split, trailing empty segments are dropped when there is a separator */
+        int count = segments.size();
+        if (count > 1) {
+            while (count > 0 && segments.get(count - 1).isEmpty()) {
+                --count;
+            }
+        }
+        return segments.subList(0, count).toArray(new String[0]);
+    }
+
+    /**
+     * Returns the step for a segment of the form {@code name} or {@code name+param}, where name and
+     * param consist of letters, digits, '_' and '-', or null if the segment is malformed or not understood.
+     */
+    private static Step parseStep(String segment) {
+        int plus = segment.indexOf('+');
+        int nameEnd = plus < 0 ? segment.length() : plus;
+        if (nameEnd == 0 || !isTransformToken(segment, 0, nameEnd)) return null;
+        if (plus >= 0 && (plus == segment.length() - 1 || !isTransformToken(segment, plus + 1, segment.length()))) return null;
+
+        switch (segment.substring(0, nameEnd)) {
+            case "base64": return Step.BASE64;
+            case "utf-8": return Step.UTF8;
+            case "json": return Step.JSON;
+            case "cipher": return Step.CIPHER;
+            case "vcdiff": return Step.VCDIFF;
+            default: return null;
+        }
+    }
+
+    private static boolean isTransformToken(String segment, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = segment.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-';
+            if (!valid) return false;
+        }
+        return true;
+    }
+}
@@ -10,8 +10,11 @@ import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import io.ably.lib.util.Serialisation;
 import org.msgpack.core.MessageFormat;
 import org.msgpack.core.MessagePacker;
@@ -229,6 +232,54 @@ public class Message extends BaseMessage {
         return this;
     }
 
+    Message readJson(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while(reader.hasNext()) {
+            String fieldName = reader.nextName();
+            if(reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                continue;
+            }
+
+            if(super.readField(reader, fieldName)) {
+                continue;
+            }
+            try {
+                if(fieldName.equals(NAME)) {
+                    name = reader.nextString();
+                } else if (fieldName.equals(EXTRAS)) {
+                    final JsonElement extrasElement = JsonParser.parseReader(reader);
+                    if (!(extrasElement instanceof JsonObject)) {
+                        throw MessageDecodeException.fromDescription("Message extras is of type \"" + extrasElement.getClass() + "\" when expected a JSON object.");
+                    }
+                    extras = MessageExtras.read((JsonObject) extrasElement);
+                } else if (fieldName.equals(CONNECTION_KEY)) {
+                    connectionKey = reader.nextString();
+                } else if (fieldName.equals(SERIAL)) {
+                    serial = reader.nextString();
+                } else if (fieldName.equals(VERSION)) {
+                    version = MessageVersion.read(JsonParser.parseReader(reader));
+                } else if (fieldName.equals(ACTION)) {
+                    action = MessageAction.tryFindByOrdinal(reader.nextInt());
+                } else if (fieldName.equals(ANNOTATIONS)) {
+                    annotations = MessageAnnotations.read(JsonParser.parseReader(reader));
+                }
+                else {
+                    Log.v(TAG, "Unexpected field: " + fieldName);
+                    reader.skipValue();
+                }
+            } catch (MessageDecodeException e) {
+                throw new JsonParseException("Failed to deserialize Message from JSON.", e);
+            }
+        }
+        reader.endObject();
+        return this;
+    }
+
+    static Message fromJson(JsonReader reader) throws IOException {
+        return (new Message()).readJson(reader);
+    }
+
     /**
      * Sets the channel names and message contents to {@link io.ably.lib.realtime.AblyRealtime#publishBatch}.
      */
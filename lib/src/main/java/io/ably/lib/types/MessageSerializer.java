@@ -1,18 +1,25 @@
 package io.ably.lib.types;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import io.ably.lib.http.HttpCore;
 import io.ably.lib.http.HttpUtils;
 import io.ably.lib.util.Log;
 
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+
 import org.msgpack.core.MessageFormat;
 import org.msgpack.core.MessagePacker;
 import org.msgpack.core.MessageUnpacker;
 
+import io.ably.lib.util.ReusablePacker;
 import io.ably.lib.util.Serialisation;
 
 /**
@@ -43,6 +50,22 @@ public class MessageSerializer {
         }
     }
 
+    /**
+     * Read a msgpack array of messages as it arrives, decoding each message as soon as it is read
+     */
+    public static Message[] readMsgpack(InputStream packed, ChannelOptions opts) throws AblyException {
+        try {
+            MessageUnpacker unpacker = Serialisation.msgpackUnpackerConfig.newUnpacker(packed);
+            int count = unpacker.unpackArrayHeader();
+            Message[] result = new Message[count];
+            for(int i = 0; i < count; i++)
+                result[i] = decode(Message.fromMsgpack(unpacker), opts);
+            return result;
+        } catch(IOException ioe) {
+            throw AblyException.fromThrowable(ioe);
+        }
+    }
+
     /****************************************
      *            Msgpack encode
      ****************************************/
@@ -57,11 +80,9 @@ public class MessageSerializer {
 
     public static byte[] writeMsgpackArray(Message[] messages) {
         try {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            MessagePacker packer = Serialisation.msgpackPackerConfig.newPacker(out);
-            writeMsgpackArray(messages, packer);
-            packer.flush();
-            return out.toByteArray();
+            ReusablePacker reusablePacker = ReusablePacker.acquire();
+            writeMsgpackArray(messages, reusablePacker.begin());
+            return reusablePacker.finishToByteArray();
         } catch(IOException e) { return null; }
     }
 
@@ -76,11 +97,9 @@ public class MessageSerializer {
 
     public static byte[] write(Message message) {
         try {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            MessagePacker packer = Serialisation.msgpackPackerConfig.newPacker(out);
-            message.writeMsgpack(packer);
-            packer.flush();
-            return out.toByteArray();
+            ReusablePacker reusablePacker = ReusablePacker.acquire();
+            message.writeMsgpack(reusablePacker.begin());
+            return reusablePacker.finishToByteArray();
         } catch(IOException e) { return null; }
     }
 
@@ -115,11 +134,9 @@ public class MessageSerializer {
 
     static byte[] writeMsgpackArray(Message.Batch[] pubSpecs) {
         try {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            MessagePacker packer = Serialisation.msgpackPackerConfig.newPacker(out);
-            writeMsgpackArray(pubSpecs, packer);
-            packer.flush();
-            return out.toByteArray();
+            ReusablePacker reusablePacker = ReusablePacker.acquire();
+            writeMsgpackArray(pubSpecs, reusablePacker.begin());
+            return reusablePacker.finishToByteArray();
         } catch(IOException e) { return null; }
     }
 
@@ -136,10 +153,36 @@ public class MessageSerializer {
      *              JSON decode
      ****************************************/
 
+    public static Message[] readJsonArray(JsonReader reader) throws IOException {
+        List<Message> result = new ArrayList<>();
+        reader.beginArray();
+        while(reader.hasNext())
+            result.add(Message.fromJson(reader));
+        reader.endArray();
+        return result.toArray(new Message[0]);
+    }
+
     public static Message[] readMessagesFromJson(byte[] packed) throws MessageDecodeException {
         return Serialisation.gson.fromJson(new String(packed), Message[].class);
     }
 
+    /**
+     * Read a JSON array of messages as it arrives, decoding each message as soon as it is read
+     */
+    public static Message[] readMessagesFromJson(InputStream json, ChannelOptions opts) throws AblyException {
+        try {
+            JsonReader reader = new JsonReader(new InputStreamReader(json, "UTF-8"));
+            List<Message> result = new ArrayList<>();
+            reader.beginArray();
+            while(reader.hasNext())
+                result.add(decode(Serialisation.gson.<Message>fromJson(reader, Message.class), opts));
+            reader.endArray();
+            return result.toArray(new Message[0]);
+        } catch(IOException | JsonParseException e) {
+            throw AblyException.fromThrowable(e);
+        }
+    }
+
     /****************************************
      *            JSON encode
      ****************************************/
@@ -172,7 +215,7 @@ public class MessageSerializer {
         return new SingleMessageBodyHandler(opts);
     }
 
-    private static class MessageBodyHandler implements HttpCore.BodyHandler<Message> {
+    private static class MessageBodyHandler implements HttpCore.StreamingBodyHandler<Message> {
 
         MessageBodyHandler(ChannelOptions opts) { this.opts = opts; }
 
@@ -186,11 +229,7 @@ public class MessageSerializer {
                     messages = readMsgpack(body);
                 if(messages != null) {
                     for (Message message : messages) {
-                        try {
-                            message.decode(opts);
-                        } catch (MessageDecodeException e) {
-                            Log.e(TAG, e.errorInfo.message);
-                        }
+                        decode(message, opts);
                     }
                 }
                 return messages;
@@ -199,9 +238,27 @@ public class MessageSerializer {
             }
         }
 
+        @Override
+        public Message[] handleResponseStream(String contentType, InputStream body) throws AblyException {
+            if("application/json".equals(contentType))
+                return readMessagesFromJson(body, opts);
+            if("application/x-msgpack".equals(contentType))
+                return readMsgpack(body, opts);
+            return null;
+        }
+
         private ChannelOptions opts;
     }
 
+    private static Message decode(Message message, ChannelOptions opts) {
+        try {
+            message.decode(opts);
+        } catch (MessageDecodeException e) {
+            Log.e(TAG, e.errorInfo.message);
+        }
+        return message;
+    }
+
     private static class SingleMessageBodyHandler implements HttpCore.BodyHandler<Message> {
 
         private final ChannelOptions opts;
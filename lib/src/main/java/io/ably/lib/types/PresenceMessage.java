@@ -10,6 +10,8 @@ import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import io.ably.lib.util.Serialisation;
 import org.msgpack.core.MessageFormat;
 import org.msgpack.core.MessagePacker;
@@ -157,6 +159,36 @@ public class PresenceMessage extends BaseMessage implements Cloneable {
         return (new PresenceMessage()).readMsgpack(unpacker);
     }
 
+    PresenceMessage readJson(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while(reader.hasNext()) {
+            String fieldName = reader.nextName();
+            if(reader.peek() == JsonToken.NULL) { reader.nextNull(); continue; }
+
+            if(super.readField(reader, fieldName)) { continue; }
+            if(fieldName.equals("action")) {
+                action = Action.findByValue(reader.nextInt());
+            } else {
+                Log.v(TAG, "Unexpected field: " + fieldName);
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return this;
+    }
+
+    /**
+     * Presence data has always been deserialized as any JSON value, rather than only a string.
+     */
+    @Override
+    Object readData(JsonReader reader) throws IOException {
+        return Serialisation.gson.fromJson(reader, Object.class);
+    }
+
+    static PresenceMessage fromJson(JsonReader reader) throws IOException {
+        return (new PresenceMessage()).readJson(reader);
+    }
+
     /**
      * Decodes and decrypts a deserialized PresenceMessage-like object using the cipher in {@link ChannelOptions}.
      * Any residual transforms that cannot be decoded or decrypted will be in the encoding property.
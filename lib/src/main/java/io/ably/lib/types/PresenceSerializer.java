@@ -2,10 +2,14 @@ package io.ably.lib.types;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import io.ably.lib.http.HttpCore;
 import io.ably.lib.http.HttpUtils;
 import io.ably.lib.util.Log;
+
+import com.google.gson.stream.JsonReader;
 import org.msgpack.core.MessagePacker;
 import org.msgpack.core.MessageUnpacker;
 
@@ -66,6 +70,15 @@ public class PresenceSerializer {
      *              JSON decode
      ****************************************/
 
+    public static PresenceMessage[] readJsonArray(JsonReader reader) throws IOException {
+        List<PresenceMessage> result = new ArrayList<>();
+        reader.beginArray();
+        while(reader.hasNext())
+            result.add(PresenceMessage.fromJson(reader));
+        reader.endArray();
+        return result.toArray(new PresenceMessage[0]);
+    }
+
     private static PresenceMessage[] readJson(byte[] packed) throws IOException {
         return Serialisation.gson.fromJson(new String(packed), PresenceMessage[].class);
     }
@@ -16,11 +16,16 @@ import com.google.gson.JsonDeserializationContext;
 import com.google.gson.JsonDeserializer;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import io.ably.lib.util.Log;
+import io.ably.lib.util.Serialisation;
 
 /**
  * A message sent and received over the Realtime protocol.
@@ -301,6 +306,87 @@ public class ProtocolMessage {
         return (new ProtocolMessage()).readMsgpack(unpacker);
     }
 
+    ProtocolMessage readJson(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while(reader.hasNext()) {
+            String fieldName = reader.nextName();
+            if(reader.peek() == JsonToken.NULL) { reader.nextNull(); continue; }
+
+            switch(fieldName) {
+                case "action":
+                    action = Action.findByValue(reader.nextInt());
+                    break;
+                case "flags":
+                    flags = reader.nextInt();
+                    break;
+                case "count":
+                    count = reader.nextInt();
+                    break;
+                case "error":
+                    error = Serialisation.gson.fromJson(reader, ErrorInfo.class);
+                    break;
+                case "id":
+                    id = reader.nextString();
+                    break;
+                case "channel":
+                    channel = reader.nextString();
+                    break;
+                case "channelSerial":
+                    channelSerial = reader.nextString();
+                    break;
+                case "connectionId":
+                    connectionId = reader.nextString();
+                    break;
+                case "msgSerial":
+                    msgSerial = Long.valueOf(reader.nextLong());
+                    break;
+                case "timestamp":
+                    timestamp = reader.nextLong();
+                    break;
+                case "messages":
+                    messages = MessageSerializer.readJsonArray(reader);
+                    break;
+                case "presence":
+                    presence = PresenceSerializer.readJsonArray(reader);
+                    break;
+                case "connectionDetails":
+                    connectionDetails = Serialisation.gson.fromJson(reader, ConnectionDetails.class);
+                    break;
+                case "auth":
+                    auth = Serialisation.gson.fromJson(reader, AuthDetails.class);
+                    break;
+                case "connectionKey":
+                    /* deprecated; ignore */
+                    reader.skipValue();
+                    break;
+                case "params":
+                    params = Serialisation.gson.fromJson(reader, STRING_MAP_TYPE);
+                    break;
+                case "annotations":
+                    annotations = Serialisation.gson.fromJson(reader, Annotation[].class);
+                    break;
+                case "state":
+                    state = stateJsonSerializer.deserialize(JsonParser.parseReader(reader), Object[].class, null);
+                    break;
+                case "res":
+                    res = Serialisation.gson.fromJson(reader, PublishResult[].class);
+                    break;
+                default:
+                    Log.v(TAG, "Unexpected field: " + fieldName);
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return this;
+    }
+
+    static ProtocolMessage fromJson(JsonReader reader) throws IOException {
+        return (new ProtocolMessage()).readJson(reader);
+    }
+
+    private static final Type STRING_MAP_TYPE = new TypeToken<Map<String, String>>() {}.getType();
+    private static final ObjectJsonSerializer stateJsonSerializer = new ObjectJsonSerializer();
+
     public static class ActionSerializer implements JsonSerializer<Action>, JsonDeserializer<Action> {
         @Override
         public Action deserialize(JsonElement json, Type t, JsonDeserializationContext ctx)
@@ -1,12 +1,16 @@
 package io.ably.lib.types;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
-import org.msgpack.core.MessagePacker;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
 import org.msgpack.core.MessageUnpacker;
+import org.msgpack.core.buffer.ByteBufferInput;
 
+import io.ably.lib.util.ReusablePacker;
 import io.ably.lib.util.Serialisation;
 
 public class ProtocolSerializer {
@@ -24,17 +28,88 @@ public class ProtocolSerializer {
         }
     }
 
+    /**
+     * Decodes a protocol message from the remaining bytes of the given buffer. Array-backed
+     * buffers are read in place; other buffers (direct or read-only) are copied first.
+     */
+    public static ProtocolMessage readMsgpack(ByteBuffer packed) throws AblyException {
+        try {
+            MessageUnpacker unpacker = Serialisation.msgpackUnpackerConfig.newUnpacker(heapBuffer(packed, null));
+            return ProtocolMessage.fromMsgpack(unpacker);
+        } catch (IOException ioe) {
+            throw AblyException.fromThrowable(ioe);
+        }
+    }
+
+    /**
+     * Msgpack decoder that reuses a single {@link MessageUnpacker} for every frame it reads,
+     * rather than allocating an unpacker and its buffers per frame. Array-backed frames are
+     * read in place; other frames are copied into a scratch buffer that is reused too.
+     * <p>
+     * Instances are not thread-safe; each is intended to be owned by one transport,
+     * whose frames are delivered sequentially.
+     */
+    public static class MsgpackReader {
+        private final ByteBufferInput input = new ByteBufferInput(EMPTY_BUFFER);
+        private final MessageUnpacker unpacker = Serialisation.msgpackUnpackerConfig.newUnpacker(input);
+        private ByteBuffer scratch = EMPTY_BUFFER;
+
+        public ProtocolMessage read(ByteBuffer packed) throws AblyException {
+            try {
+                if (!packed.hasArray() && scratch.capacity() < packed.remaining()) {
+                    scratch = ByteBuffer.allocate(Math.max(packed.remaining(), 2 * scratch.capacity()));
+                }
+                input.reset(heapBuffer(packed, scratch));
+                unpacker.reset(input);
+                return ProtocolMessage.fromMsgpack(unpacker);
+            } catch (IOException ioe) {
+                throw AblyException.fromThrowable(ioe);
+            }
+        }
+    }
+
+    private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+    /**
+     * msgpack reads array-backed buffers in place. Direct buffers would need access to JDK
+     * internals that are not exported on Java 9+, so those, like read-only buffers, are copied
+     * into {@code scratch} (if given and large enough) or a new heap buffer.
+     */
+    private static ByteBuffer heapBuffer(ByteBuffer buffer, ByteBuffer scratch) {
+        if (buffer.hasArray()) {
+            return buffer;
+        }
+        ByteBuffer copy = (scratch != null && scratch.capacity() >= buffer.remaining())
+            ? scratch
+            : ByteBuffer.allocate(buffer.remaining());
+        copy.clear();
+        copy.put(buffer.duplicate());
+        copy.flip();
+        return copy;
+    }
+
     /****************************************
      *            Msgpack encode
      ****************************************/
 
     public static byte[] writeMsgpack(ProtocolMessage message) throws AblyException {
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        MessagePacker packer = Serialisation.msgpackPackerConfig.newPacker(out);
+        ReusablePacker reusablePacker = ReusablePacker.acquire();
         try {
-            message.writeMsgpack(packer);
-            packer.flush();
-            return out.toByteArray();
+            message.writeMsgpack(reusablePacker.begin());
+            return reusablePacker.finishToByteArray();
+        } catch (IOException ioe) {
+            throw AblyException.fromThrowable(ioe);
+        }
+    }
+
+    /**
+     * Encodes the message using the given packer, returning a view of the packer's buffer
+     * that is valid until the packer is next used.
+     */
+    public static ByteBuffer writeMsgpack(ProtocolMessage message, ReusablePacker reusablePacker) throws AblyException {
+        try {
+            message.writeMsgpack(reusablePacker.begin());
+            return reusablePacker.finish();
         } catch (IOException ioe) {
             throw AblyException.fromThrowable(ioe);
         }
@@ -44,8 +119,16 @@ public class ProtocolSerializer {
      *              JSON decode
      ****************************************/
 
+    /**
+     * Decodes a protocol message from JSON, streaming its members directly into the message
+     * rather than binding it reflectively or building an intermediate tree for each message.
+     */
     public static ProtocolMessage fromJSON(String packed) throws AblyException {
-        return Serialisation.gson.fromJson(packed, ProtocolMessage.class);
+        try {
+            return ProtocolMessage.fromJson(new JsonReader(new StringReader(packed)));
+        } catch (IOException | JsonParseException | IllegalStateException | NumberFormatException e) {
+            throw AblyException.fromThrowable(e);
+        }
     }
 
     /****************************************
@@ -1,6 +1,14 @@
 package io.ably.lib.types;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
 
 import io.ably.lib.http.HttpCore;
 import io.ably.lib.util.Serialisation;
@@ -23,12 +31,36 @@ public class StatsReader  {
         return Serialisation.gson.fromJson(packed, Stats[].class);
     }
 
-    public static HttpCore.BodyHandler<Stats> statsResponseHandler = new HttpCore.BodyHandler<Stats>() {
+    /**
+     * Read a JSON array of stats as it arrives, one record at a time
+     */
+    public static Stats[] readJson(InputStream json) throws AblyException {
+        try {
+            JsonReader reader = new JsonReader(new InputStreamReader(json, "UTF-8"));
+            List<Stats> result = new ArrayList<>();
+            reader.beginArray();
+            while(reader.hasNext())
+                result.add(Serialisation.gson.<Stats>fromJson(reader, Stats.class));
+            reader.endArray();
+            return result.toArray(new Stats[0]);
+        } catch (IOException | JsonParseException e) {
+            throw AblyException.fromThrowable(e);
+        }
+    }
+
+    public static HttpCore.BodyHandler<Stats> statsResponseHandler = new HttpCore.StreamingBodyHandler<Stats>() {
         @Override
         public Stats[] handleResponseBody(String contentType, byte[] body) throws AblyException {
             if("application/json".equals(contentType))
                 return readJson(body);
             return null;
         }
+
+        @Override
+        public Stats[] handleResponseStream(String contentType, InputStream body) throws AblyException {
+            if("application/json".equals(contentType))
+                return readJson(body);
+            return null;
+        }
     };
 }
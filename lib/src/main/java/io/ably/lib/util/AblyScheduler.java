@@ -0,0 +1,299 @@
+package io.ably.lib.util;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared scheduler backing the {@link AblyTimer} instances handed out by {@link SystemClock}.
+ *
+ * <p>Historically every call to {@link Clock#newTimer(String)} started a dedicated
+ * {@link java.util.Timer} thread, so attaching thousands of channels (or a reconnect storm
+ * re-attaching them) created thousands of short-lived threads. Timers created here are
+ * instead cheap handles onto a single {@link ScheduledThreadPoolExecutor} whose thread
+ * count is bounded by {@link #DEFAULT_POOL_SIZE}; cancelled tasks are removed from the
+ * work queue immediately.
+ *
+ * <p>As with a {@link java.util.Timer}, the tasks of one timer run one at a time, in the
+ * order they fall due, while the tasks of different timers run in parallel on the pool.
+ *
+ * <p>Tasks run on the scheduler threads, so a task that blocks holds up the tasks of other
+ * timers, including those of other clients in the process. Most of the SDK's timer tasks only
+ * update state and hand off work, but some call application listeners: for example a channel
+ * state listener is called on a scheduler thread when an attach or detach times out. An
+ * application whose listeners may block should raise the thread count with
+ * {@link #setPoolSize(int)}.
+ *
+ * <p>Counters exposed by {@link #getStats()} allow callers to confirm that thread usage
+ * stays flat under mass attach and to observe how late tasks fire relative to their
+ * scheduled time.
+ */
+public final class AblyScheduler {
+
+    private static final String TAG = AblyScheduler.class.getName();
+
+    /**
+     * Default maximum number of scheduler threads. Two threads are enough to keep one slow
+     * timer task from delaying every other timer in the process.
+     */
+    public static final int DEFAULT_POOL_SIZE = 2;
+
+    private static volatile AblyScheduler shared;
+
+    /**
+     * Returns the process-wide scheduler, creating it on first use.
+     */
+    public static AblyScheduler getShared() {
+        AblyScheduler result = shared;
+        if (result == null) {
+            synchronized (AblyScheduler.class) {
+                result = shared;
+                if (result == null) {
+                    shared = result = new AblyScheduler(DEFAULT_POOL_SIZE);
+                }
+            }
+        }
+        return result;
+    }
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final AtomicLong timersCreated = new AtomicLong();
+    private final AtomicLong tasksScheduled = new AtomicLong();
+    private final AtomicLong tasksRun = new AtomicLong();
+    private final AtomicLong tasksCancelled = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    AblyScheduler(int poolSize) {
+        final AtomicInteger threadIndex = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(() -> {
+                threadCount.incrementAndGet();
+                try {
+                    runnable.run();
+                } finally {
+                    threadCount.decrementAndGet();
+                }
+            }, "ably-scheduler-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ScheduledThreadPoolExecutor(poolSize, threadFactory);
+        executor.setRemoveOnCancelPolicy(true);
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Creates a new timer whose tasks run on this scheduler. Cancelling the timer cancels
+     * only the tasks it scheduled; the scheduler itself remains available to other timers.
+     *
+     * @param name a human-readable label for the timer, used in log messages
+     */
+    public AblyTimer newTimer(String name) {
+        timersCreated.incrementAndGet();
+        return new SharedTimer(name);
+    }
+
+    /**
+     * Sets the maximum number of scheduler threads, which is {@link #DEFAULT_POOL_SIZE} unless set.
+     * This may be called at any time; threads beyond a reduced size exit once idle.
+     *
+     * @param poolSize the maximum number of threads
+     */
+    public void setPoolSize(int poolSize) {
+        if (poolSize <= 0) throw new IllegalArgumentException("poolSize must be positive");
+        executor.setCorePoolSize(poolSize);
+    }
+
+    /**
+     * Returns a snapshot of the scheduler's counters.
+     */
+    public Stats getStats() {
+        return new Stats(
+            threadCount.get(),
+            executor.getQueue().size(),
+            timersCreated.get(),
+            tasksScheduled.get(),
+            tasksRun.get(),
+            tasksCancelled.get(),
+            totalLatencyNanos.get(),
+            maxLatencyNanos.get()
+        );
+    }
+
+    private void recordLatency(long latencyNanos) {
+        if (latencyNanos < 0) latencyNanos = 0;
+        tasksRun.incrementAndGet();
+        totalLatencyNanos.addAndGet(latencyNanos);
+        long max;
+        while (latencyNanos > (max = maxLatencyNanos.get())) {
+            if (maxLatencyNanos.compareAndSet(max, latencyNanos)) break;
+        }
+    }
+
+    /**
+     * Snapshot of scheduler counters, as returned by {@link #getStats()}.
+     */
+    public static final class Stats {
+        /** Number of live scheduler threads. */
+        public final int threadCount;
+        /** Number of tasks currently waiting to run. */
+        public final int pendingTasks;
+        /** Total number of timers created since the scheduler started. */
+        public final long timersCreated;
+        /** Total number of tasks scheduled. */
+        public final long tasksScheduled;
+        /** Total number of tasks that have run. */
+        public final long tasksRun;
+        /** Total number of tasks cancelled before running. */
+        public final long tasksCancelled;
+        /** Sum of the delays, in nanoseconds, between each task's due time and the time it started. */
+        public final long totalLatencyNanos;
+        /** Largest delay, in nanoseconds, between a task's due time and the time it started. */
+        public final long maxLatencyNanos;
+
+        Stats(int threadCount, int pendingTasks, long timersCreated, long tasksScheduled, long tasksRun,
+              long tasksCancelled, long totalLatencyNanos, long maxLatencyNanos) {
+            this.threadCount = threadCount;
+            this.pendingTasks = pendingTasks;
+            this.timersCreated = timersCreated;
+            this.tasksScheduled = tasksScheduled;
+            this.tasksRun = tasksRun;
+            this.tasksCancelled = tasksCancelled;
+            this.totalLatencyNanos = totalLatencyNanos;
+            this.maxLatencyNanos = maxLatencyNanos;
+        }
+
+        /**
+         * Mean scheduling latency in nanoseconds, or 0 if no task has run yet.
+         */
+        public long meanLatencyNanos() {
+            return tasksRun == 0 ? 0 : totalLatencyNanos / tasksRun;
+        }
+
+        @Override
+        public String toString() {
+            return "threads=" + threadCount + " pending=" + pendingTasks + " timers=" + timersCreated
+                + " scheduled=" + tasksScheduled + " run=" + tasksRun + " cancelled=" + tasksCancelled
+                + " meanLatencyNanos=" + meanLatencyNanos() + " maxLatencyNanos=" + maxLatencyNanos;
+        }
+    }
+
+    /**
+     * {@link AblyTimer} whose tasks share the scheduler's threads. Mirrors the
+     * {@link java.util.Timer} contract: once cancelled, further calls to
+     * {@link #schedule(TimerTask, long)} throw {@link IllegalStateException}; and a task that
+     * falls due while another of the timer's tasks is running waits for it to finish.
+     */
+    private final class SharedTimer implements AblyTimer {
+        private final String name;
+        private final Set<ScheduledTask> tasks = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        private volatile boolean cancelled;
+
+        /* tasks that fell due while another task of this timer was running; guarded by this */
+        private final ArrayDeque<ScheduledTask> due = new ArrayDeque<>();
+        private boolean running;
+
+        SharedTimer(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public TimerInstance schedule(TimerTask task, long delayMs) {
+            if (cancelled) {
+                throw new IllegalStateException("Timer already cancelled: " + name);
+            }
+            ScheduledTask scheduled = new ScheduledTask(this, task, delayMs);
+            tasks.add(scheduled);
+            scheduled.future = executor.schedule(scheduled, Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+            tasksScheduled.incrementAndGet();
+            if (cancelled || scheduled.cancelled) {
+                /* lost a race with a concurrent cancel() */
+                scheduled.cancel();
+            }
+            return scheduled;
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            for (ScheduledTask scheduled : tasks) {
+                scheduled.cancel();
+            }
+        }
+
+        /**
+         * Runs a task that has fallen due, unless another task of this timer is running, in which
+         * case the task is run by that thread once the running task, and any due before it, finish.
+         */
+        void onDue(ScheduledTask scheduled) {
+            synchronized (this) {
+                if (running) {
+                    due.add(scheduled);
+                    return;
+                }
+                running = true;
+            }
+            while (scheduled != null) {
+                scheduled.runTask();
+                synchronized (this) {
+                    scheduled = due.poll();
+                    if (scheduled == null) {
+                        running = false;
+                    }
+                }
+            }
+        }
+    }
+
+    private final class ScheduledTask implements Runnable, TimerInstance {
+        private final SharedTimer timer;
+        private final TimerTask task;
+        private final long dueNanos;
+        private volatile ScheduledFuture<?> future;
+        private volatile boolean cancelled;
+
+        ScheduledTask(SharedTimer timer, TimerTask task, long delayMs) {
+            this.timer = timer;
+            this.task = task;
+            this.dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs));
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) return;
+            timer.onDue(this);
+        }
+
+        void runTask() {
+            if (cancelled) return;
+            recordLatency(System.nanoTime() - dueNanos);
+            timer.tasks.remove(this);
+            try {
+                task.run();
+            } catch (Throwable t) {
+                Log.e(TAG, "Unexpected exception in timer task; timer = " + timer.name, t);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            task.cancel();
+            timer.tasks.remove(this);
+            ScheduledFuture<?> f = future;
+            if (f != null && f.cancel(false)) {
+                tasksCancelled.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.ably.lib.util;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Daemon thread pools for work the SDK does off the caller's thread.
+ *
+ * <p>The shared executor runs occasional background tasks of every client in the process,
+ * such as renewing a token ahead of its expiry. Unlike the tasks of {@link AblyScheduler},
+ * these tasks may block, for example on a token request.
+ *
+ * <p>The pools' threads exit when idle, so the pools need no explicit shutdown when
+ * a client is closed.
+ */
+public final class BackgroundExecutor {
+
+    /**
+     * Number of threads of the shared executor. More than one, so a task blocked on a token
+     * request does not hold up every other background task in the process.
+     */
+    public static final int SHARED_POOL_SIZE = 2;
+
+    private static final long KEEP_ALIVE_TIME = 60000L;
+
+    private static volatile Executor shared;
+
+    private BackgroundExecutor() {}
+
+    /**
+     * Returns the process-wide background executor, creating it on first use.
+     */
+    public static Executor getShared() {
+        Executor result = shared;
+        if (result == null) {
+            synchronized (BackgroundExecutor.class) {
+                result = shared;
+                if (result == null) {
+                    shared = result = newPool("ably-background", SHARED_POOL_SIZE);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a pool of at most the given number of daemon threads, started as tasks are
+     * submitted and exiting when idle; tasks beyond the pool size are queued.
+     *
+     * @param name the prefix of the threads' names
+     * @param poolSize the maximum number of threads
+     */
+    public static ThreadPoolExecutor newPool(final String name, int poolSize) {
+        final AtomicInteger threadIndex = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            KEEP_ALIVE_TIME,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            runnable -> {
+                Thread thread = new Thread(runnable, name + "-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -29,8 +29,9 @@ public interface Clock {
     /**
      * Creates a new {@link AblyTimer} backed by this clock.
      *
-     * <p>The name is used for diagnostic and logging purposes (e.g. as the underlying
-     * {@link java.util.Timer} thread name).
+     * <p>The name is used for diagnostic and logging purposes only. Implementations should
+     * make timer creation cheap: {@link SystemClock} hands out handles onto a shared
+     * {@link AblyScheduler} rather than starting a thread per timer.
      *
      * @param name a human-readable label for the timer; must not be {@code null}
      * @return a new {@link AblyTimer} instance ready to schedule tasks
@@ -4,6 +4,7 @@ import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.ArrayDeque;
 import java.util.ConcurrentModificationException;
 import java.util.Locale;
 
@@ -223,6 +224,78 @@ public class Crypto {
         return new DecryptingCBCCipher(cipherParams);
     }
 
+    /**
+     * Internal; get a pool of reusable ciphers for the given cipher params.
+     */
+    public static ChannelCipherPool createChannelCipherPool(final CipherParams cipherParams) {
+        return new ChannelCipherPool(cipherParams);
+    }
+
+    /**
+     * Internal; holds the ciphers for a channel so that they are created once and then reused
+     * across messages, rather than obtaining and initialising a new {@link Cipher} per message.
+     * <p>
+     * A single encipher is shared, with calls serialised, so that successive messages continue
+     * its IV chain. Deciphers are borrowed from a small pool, so that messages can be decrypted
+     * on several threads at once; in the common case of decoding on the connection thread the
+     * same decipher is used for every message.
+     */
+    public static class ChannelCipherPool {
+        /* the most idle deciphers kept for reuse; any more are discarded when released */
+        private static final int MAX_IDLE_DECIPHERS = 4;
+
+        private final CipherParams params;
+        private final ArrayDeque<DecryptingChannelCipher> idleDeciphers = new ArrayDeque<>(MAX_IDLE_DECIPHERS);
+        private EncryptingChannelCipher encipher;
+
+        ChannelCipherPool(final CipherParams params) {
+            this.params = params;
+        }
+
+        public CipherParams getParams() {
+            return params;
+        }
+
+        /**
+         * Encrypts the given plaintext with this pool's encipher, creating it on first use.
+         */
+        public synchronized byte[] encrypt(final byte[] plaintext) throws AblyException {
+            if (encipher == null) {
+                encipher = createChannelEncipher(params);
+            }
+            return encipher.encrypt(plaintext);
+        }
+
+        public synchronized String getAlgorithm() throws AblyException {
+            if (encipher == null) {
+                encipher = createChannelEncipher(params);
+            }
+            return encipher.getAlgorithm();
+        }
+
+        /**
+         * Decrypts the given ciphertext with a decipher borrowed from this pool.
+         */
+        public byte[] decrypt(final byte[] ciphertext) throws AblyException {
+            DecryptingChannelCipher decipher;
+            synchronized (idleDeciphers) {
+                decipher = idleDeciphers.pollFirst();
+            }
+            if (decipher == null) {
+                decipher = createChannelDecipher(params);
+            }
+            try {
+                return decipher.decrypt(ciphertext);
+            } finally {
+                synchronized (idleDeciphers) {
+                    if (idleDeciphers.size() < MAX_IDLE_DECIPHERS) {
+                        idleDeciphers.addFirst(decipher);
+                    }
+                }
+            }
+        }
+    }
+
     /**
      * Internal; if `cipherParams` is null returns default params otherwise check if params valid and returns them
      */
@@ -0,0 +1,95 @@
+package io.ably.lib.util;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-bucket histogram of latencies. Recording is O(log buckets) and allocation free,
+ * so it can be used on hot paths such as ACK processing.
+ * <p>
+ * Instances are not thread-safe; callers record and take snapshots under their own lock.
+ */
+public class LatencyHistogram {
+
+    /** Upper bounds, in milliseconds, of all but the last bucket; the last bucket is unbounded. */
+    private static final long[] BUCKET_BOUNDS_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000};
+    private static final long[] BUCKET_BOUNDS_NANOS = new long[BUCKET_BOUNDS_MILLIS.length];
+    static {
+        for (int i = 0; i < BUCKET_BOUNDS_MILLIS.length; i++) {
+            BUCKET_BOUNDS_NANOS[i] = BUCKET_BOUNDS_MILLIS[i] * 1_000_000L;
+        }
+    }
+
+    private final long[] counts = new long[BUCKET_BOUNDS_MILLIS.length + 1];
+    private long count;
+    private long totalNanos;
+    private long maxNanos;
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        int bucket = Arrays.binarySearch(BUCKET_BOUNDS_NANOS, nanos);
+        if (bucket < 0) bucket = -bucket - 1;
+        ++counts[bucket];
+        ++count;
+        totalNanos += nanos;
+        if (nanos > maxNanos) maxNanos = nanos;
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(counts.clone(), count, totalNanos, maxNanos);
+    }
+
+    /**
+     * Immutable copy of a {@link LatencyHistogram}.
+     */
+    public static class Snapshot {
+        /** Number of samples in each bucket; bucket {@code i} holds samples no greater than {@link #bucketBoundMillis(int)}. */
+        public final long[] counts;
+        /** Total number of samples. */
+        public final long count;
+        /** Sum of all samples, in nanoseconds. */
+        public final long totalNanos;
+        /** Largest sample, in nanoseconds. */
+        public final long maxNanos;
+
+        Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+            this.counts = counts;
+            this.count = count;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        /**
+         * Returns the upper bound, in milliseconds, of the given bucket, or {@link Long#MAX_VALUE} for the last.
+         */
+        public static long bucketBoundMillis(int bucket) {
+            return bucket < BUCKET_BOUNDS_MILLIS.length ? BUCKET_BOUNDS_MILLIS[bucket] : Long.MAX_VALUE;
+        }
+
+        public long meanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        /**
+         * Returns the upper bound, in milliseconds, of the bucket containing the given percentile (0-100),
+         * or 0 if there are no samples.
+         */
+        public long percentileMillis(double percentile) {
+            if (count == 0) return 0;
+            long rank = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank && seen > 0) {
+                    return bucketBoundMillis(i);
+                }
+            }
+            return bucketBoundMillis(counts.length - 1);
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + " meanNanos=" + meanNanos() + " maxNanos=" + maxNanos
+                + " p50Millis=" + percentileMillis(50) + " p99Millis=" + percentileMillis(99);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package io.ably.lib.util;
+
+import io.ably.lib.types.ProtocolMessage;
+
+/**
+ * Receives measurements from the library, for forwarding to a metrics system.
+ * <p>
+ * Set an implementation with {@link io.ably.lib.types.ClientOptions#metricsRecorder}; when none is set,
+ * nothing is measured. Every method has an empty default implementation, so a recorder implements only
+ * the measurements it is interested in.
+ * <p>
+ * Methods are called on library threads, sometimes while an internal lock is held, so they must be
+ * quick, must not block and must not call back into the library. Updating a counter or timer is fine.
+ * Durations are in nanoseconds.
+ */
+public interface MetricsRecorder {
+
+    /**
+     * A protocol message was written to the realtime transport.
+     * @param action the action of the protocol message
+     * @param size the size of the encoded message, in bytes
+     */
+    default void onProtocolMessageSent(ProtocolMessage.Action action, int size) {}
+
+    /**
+     * A protocol message was read from the realtime transport.
+     * @param action the action of the protocol message
+     * @param size the size of the frame: bytes for a binary frame and characters for a text frame
+     * @param parseNanos the time taken to parse the frame
+     */
+    default void onProtocolMessageReceived(ProtocolMessage.Action action, int size, long parseNanos) {}
+
+    /**
+     * Messages arrived on a realtime channel.
+     * @param channelName the name of the channel
+     * @param count the number of messages
+     * @param delivered the number of those messages that had a subscriber
+     * @param decodeNanos the time taken to decode the messages
+     */
+    default void onChannelMessages(String channelName, int count, int delivered, long decodeNanos) {}
+
+    /**
+     * A published message was acknowledged by Ably.
+     * @param latencyNanos the time from sending the message to receiving its acknowledgement
+     */
+    default void onMessageAcknowledged(long latencyNanos) {}
+
+    /**
+     * Published messages were rejected by Ably, or failed before they were acknowledged.
+     * @param count the number of messages
+     */
+    default void onMessagesFailed(int count) {}
+
+    /**
+     * The number of published messages awaiting acknowledgement changed.
+     * @param depth the number of messages now awaiting acknowledgement
+     */
+    default void onPendingMessageDepth(int depth) {}
+
+    /**
+     * An HTTP request completed, successfully or not.
+     * @param host the host the request was sent to
+     * @param method the HTTP method
+     * @param statusCode the response status code, or 0 if no response was received
+     * @param durationNanos the time from sending the request to receiving the response
+     */
+    default void onHttpRequest(String host, String method, int statusCode, long durationNanos) {}
+
+    /**
+     * A fallback host was chosen after a failure on another host.
+     * @param failedHost the host that failed
+     * @param fallbackHost the host that will be tried next
+     */
+    default void onFallbackHost(String failedHost, String fallbackHost) {}
+}
@@ -1,27 +1,57 @@
 package io.ably.lib.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Collection of members who are listeners, with methods that are safe to be called from any thread.
+ * <p>
+ * Members are held in an immutable copy-on-write snapshot: mutations take a lock and publish
+ * a new snapshot, while {@link #getMembers()} reads the current snapshot without locking or
+ * copying. This suits listener lists, which are read for every dispatched event but change rarely.
  * @param <T> The type of elements being added to this multicaster - the listeners.
  */
 public abstract class Multicaster<T> {
-    private final List<T> members = new ArrayList<>();
+    private volatile List<T> members;
 
-    public Multicaster(T... members) { for(T m : members) this.members.add(m); }
+    public Multicaster(T... members) { this.members = snapshotOf(Arrays.asList(members)); }
 
-    public synchronized void add(T member) { members.add(member); }
-    public synchronized void remove(T member) { members.remove(member); }
-    public synchronized void clear() { members.clear(); }
-    public synchronized boolean isEmpty() { return members.isEmpty(); }
-    public synchronized int size() { return members.size(); }
+    public synchronized void add(T member) {
+        List<T> updated = new ArrayList<>(members.size() + 1);
+        updated.addAll(members);
+        updated.add(member);
+        members = snapshotOf(updated);
+    }
+
+    public synchronized void remove(T member) {
+        int index = members.indexOf(member);
+        if (index < 0) return;
+        List<T> updated = new ArrayList<>(members);
+        updated.remove(index);
+        members = snapshotOf(updated);
+    }
+
+    public synchronized void clear() { members = Collections.emptyList(); }
+    public boolean isEmpty() { return members.isEmpty(); }
+    public int size() { return members.size(); }
 
     /**
      * Returns a snapshot of the members of this multicaster instance.
+     * <p>
+     * The returned list is immutable and is not affected by later calls to
+     * {@link #add(Object)} or {@link #remove(Object)}, so callers may iterate it while
+     * listeners subscribe or unsubscribe concurrently. It supports fast random access.
      */
-    protected synchronized List<T> getMembers() {
-        return new ArrayList<>(members);
+    protected List<T> getMembers() {
+        return members;
+    }
+
+    private static <T> List<T> snapshotOf(List<T> list) {
+        if (list.isEmpty()) return Collections.emptyList();
+        @SuppressWarnings("unchecked")
+        T[] array = (T[]) list.toArray();
+        return Collections.unmodifiableList(Arrays.asList(array));
     }
 }
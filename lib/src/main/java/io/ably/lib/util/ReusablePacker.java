@@ -0,0 +1,119 @@
+package io.ably.lib.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.msgpack.core.MessagePacker;
+
+/**
+ * A {@link MessagePacker} and its output buffer, kept for reuse across encode operations
+ * so that encoding a message does not allocate a new stream, packer and packer buffer each time.
+ * <p>
+ * Usage is bracketed: {@link #begin()} returns the packer, positioned at the start of an empty
+ * buffer, and {@link #finish()} or {@link #finishToByteArray()} completes the operation.
+ * The {@link ByteBuffer} returned by {@link #finish()} is a view of the internal buffer and is
+ * only valid until the next call to {@link #begin()}.
+ * <p>
+ * Instances are not thread-safe. {@link #acquire()} returns one per thread for callers that
+ * just need a temporary packer; owners that serialise their own access (such as a transport)
+ * may create a dedicated instance instead.
+ */
+public final class ReusablePacker {
+
+    /* A buffer grown beyond this by an unusually large message is released rather than retained */
+    private static final int MAX_RETAINED_CAPACITY = 256 * 1024;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final ThreadLocal<ReusablePacker> perThread = new ThreadLocal<ReusablePacker>() {
+        @Override
+        protected ReusablePacker initialValue() {
+            return new ReusablePacker();
+        }
+    };
+
+    /**
+     * Returns this thread's packer. If that packer is still in use (by an encode operation
+     * further up the stack, or one that failed without finishing) a new one takes its place.
+     */
+    public static ReusablePacker acquire() {
+        ReusablePacker packer = perThread.get();
+        if (packer.inUse) {
+            packer = new ReusablePacker();
+            perThread.set(packer);
+        }
+        return packer;
+    }
+
+    private Output out = new Output(INITIAL_CAPACITY);
+    private MessagePacker packer = Serialisation.msgpackPackerConfig.newPacker(out);
+    private boolean inUse;
+
+    public MessagePacker begin() {
+        inUse = true;
+        /* discard anything left buffered by an operation that failed part way */
+        packer.clear();
+        out.reset();
+        return packer;
+    }
+
+    /**
+     * Completes the encode operation and returns the encoded bytes as a view of the internal buffer.
+     */
+    public ByteBuffer finish() throws IOException {
+        try {
+            packer.flush();
+            return out.toByteBuffer();
+        } finally {
+            inUse = false;
+        }
+    }
+
+    /**
+     * Completes the encode operation and returns a copy of the encoded bytes.
+     */
+    public byte[] finishToByteArray() throws IOException {
+        try {
+            packer.flush();
+            byte[] result = out.toByteArray();
+            trim();
+            return result;
+        } finally {
+            inUse = false;
+        }
+    }
+
+    /**
+     * Releases the internal buffer if a large message has grown it beyond the retained limit.
+     * Must only be called once any {@link ByteBuffer} returned by {@link #finish()} is no longer in use.
+     */
+    public void trim() {
+        if (out.capacity() > MAX_RETAINED_CAPACITY) {
+            out = new Output(INITIAL_CAPACITY);
+            packer = Serialisation.msgpackPackerConfig.newPacker(out);
+        }
+    }
+
+    /**
+     * {@link ByteArrayOutputStream} that exposes its contents without copying.
+     */
+    private static final class Output extends ByteArrayOutputStream {
+        Output(int size) {
+            super(size);
+        }
+
+        ByteBuffer toByteBuffer() {
+            return ByteBuffer.wrap(buf, 0, count);
+        }
+
+        @Override
+        public byte[] toByteArray() {
+            return Arrays.copyOf(buf, count);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package io.ably.lib.util;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Executor that runs submitted tasks one at a time, in submission order, on a backing
+ * {@link Executor}. Many serial executors may share one backing executor, so independent
+ * streams of work (e.g. the messages of different channels) run in parallel while each
+ * stream stays ordered.
+ * <p>
+ * The queue is bounded, so it does not grow the heap without bound. What happens once
+ * {@code capacity} tasks are waiting is given by the {@link OverflowPolicy}: the oldest or the
+ * newest task is discarded, or the submitting thread waits until a slot frees up. Waiting pushes
+ * back on the producer, so should not be used where the producer is a thread that others depend
+ * on, such as the transport read thread. Discarded tasks and time spent waiting are reported by
+ * {@link #getStats()}.
+ */
+public class SerialExecutor implements Executor {
+
+    private static final String TAG = SerialExecutor.class.getName();
+
+    /**
+     * What to do with a task submitted once the queue is full
+     */
+    public enum OverflowPolicy {
+        /** discard the oldest waiting task, and queue the new one */
+        dropOldest,
+        /** discard the new task */
+        dropNewest,
+        /** wait for a slot to free up */
+        block
+    }
+
+    private final Executor backingExecutor;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    private boolean draining;
+
+    private int maxQueueDepth;
+    private long executedCount;
+    private long blockedCount;
+    private long blockedNanos;
+    private long droppedCount;
+
+    private final Runnable drain = this::drain;
+
+    /**
+     * Construct an executor that waits for a slot once the queue is full
+     */
+    public SerialExecutor(Executor backingExecutor, int capacity) {
+        this(backingExecutor, capacity, OverflowPolicy.block);
+    }
+
+    public SerialExecutor(Executor backingExecutor, int capacity, OverflowPolicy overflowPolicy) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.backingExecutor = backingExecutor;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        offer(task);
+    }
+
+    /**
+     * Queue a task, applying the overflow policy if the queue is full
+     * @return false if a task, either this one or an older one, was discarded to make room
+     */
+    public boolean offer(Runnable task) {
+        boolean schedule;
+        boolean dropped = false;
+        synchronized (this) {
+            if (tasks.size() >= capacity && overflowPolicy == OverflowPolicy.dropNewest) {
+                ++droppedCount;
+                return false;
+            }
+            if (tasks.size() >= capacity && overflowPolicy == OverflowPolicy.dropOldest) {
+                tasks.poll();
+                ++droppedCount;
+                dropped = true;
+            }
+            if (tasks.size() >= capacity) {
+                long start = System.nanoTime();
+                ++blockedCount;
+                try {
+                    while (tasks.size() >= capacity) {
+                        wait();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    ++droppedCount;
+                    Log.w(TAG, "execute(): interrupted waiting for queue space; task dropped");
+                    return false;
+                } finally {
+                    blockedNanos += System.nanoTime() - start;
+                }
+            }
+            tasks.add(task);
+            maxQueueDepth = Math.max(maxQueueDepth, tasks.size());
+            schedule = !draining;
+            draining = true;
+        }
+        if (schedule) {
+            try {
+                backingExecutor.execute(drain);
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    droppedCount += tasks.size();
+                    tasks.clear();
+                    draining = false;
+                    notifyAll();
+                }
+                Log.e(TAG, "execute(): backing executor rejected task; queued tasks dropped", e);
+                return false;
+            }
+        }
+        return !dropped;
+    }
+
+    private void drain() {
+        while (true) {
+            Runnable task;
+            synchronized (this) {
+                task = tasks.poll();
+                if (task == null) {
+                    draining = false;
+                    return;
+                }
+                ++executedCount;
+                notifyAll();
+            }
+            try {
+                task.run();
+            } catch (Throwable t) {
+                Log.e(TAG, "Unexpected exception running serial task", t);
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of this executor's queue and backpressure counters.
+     */
+    public synchronized Stats getStats() {
+        return new Stats(tasks.size(), maxQueueDepth, executedCount, blockedCount, blockedNanos, droppedCount);
+    }
+
+    /**
+     * Snapshot of {@link SerialExecutor} counters.
+     */
+    public static class Stats {
+        /** Number of tasks currently waiting to run. */
+        public final int queueDepth;
+        /** Largest number of tasks that have been waiting at once. */
+        public final int maxQueueDepth;
+        /** Number of tasks started. */
+        public final long executedCount;
+        /** Number of submissions that had to wait because the queue was full. */
+        public final long blockedCount;
+        /** Total time, in nanoseconds, submitters spent waiting for queue space. */
+        public final long blockedNanos;
+        /** Number of tasks discarded because the queue was full, the submitter was interrupted or the backing executor rejected them. */
+        public final long droppedCount;
+
+        Stats(int queueDepth, int maxQueueDepth, long executedCount, long blockedCount, long blockedNanos, long droppedCount) {
+            this.queueDepth = queueDepth;
+            this.maxQueueDepth = maxQueueDepth;
+            this.executedCount = executedCount;
+            this.blockedCount = blockedCount;
+            this.blockedNanos = blockedNanos;
+            this.droppedCount = droppedCount;
+        }
+
+        @Override
+        public String toString() {
+            return "queueDepth=" + queueDepth + " maxQueueDepth=" + maxQueueDepth + " executed=" + executedCount
+                + " blocked=" + blockedCount + " blockedNanos=" + blockedNanos + " dropped=" + droppedCount;
+        }
+    }
+}
@@ -1,8 +1,5 @@
 package io.ably.lib.util;
 
-import java.util.Timer;
-import java.util.TimerTask;
-
 import io.ably.lib.debug.DebugOptions;
 import io.ably.lib.types.ClientOptions;
 
@@ -19,21 +16,13 @@ public class SystemClock implements Clock {
         return System.nanoTime();
     }
 
+    /**
+     * Returns a timer backed by the process-wide {@link AblyScheduler}, so creating a timer
+     * does not start a thread.
+     */
     @Override
     public AblyTimer newTimer(String name) {
-        Timer jTimer = new Timer(name, true);
-        return new AblyTimer() {
-            @Override
-            public TimerInstance schedule(TimerTask task, long delayMs) {
-                jTimer.schedule(task, delayMs);
-                return task::cancel;
-            }
-
-            @Override
-            public void cancel() {
-                jTimer.cancel();
-            }
-        };
+        return AblyScheduler.getShared().newTimer(name);
     }
 
     @Override
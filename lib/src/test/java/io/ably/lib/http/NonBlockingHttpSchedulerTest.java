@@ -0,0 +1,189 @@
+package io.ably.lib.http;
+
+import io.ably.lib.debug.DebugOptions;
+import io.ably.lib.network.FailedConnectionException;
+import io.ably.lib.network.HttpBody;
+import io.ably.lib.network.HttpCall;
+import io.ably.lib.network.HttpCallback;
+import io.ably.lib.network.HttpEngine;
+import io.ably.lib.network.HttpRequest;
+import io.ably.lib.network.HttpResponse;
+import io.ably.lib.transport.Defaults;
+import io.ably.lib.types.ErrorInfo;
+import io.ably.lib.util.JavaPlatformAgentProvider;
+import org.junit.After;
+import org.junit.Test;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class NonBlockingHttpSchedulerTest {
+
+    private NonBlockingHttpScheduler scheduler;
+
+    @After
+    public void tearDown() throws Exception {
+        if (scheduler != null) scheduler.close();
+    }
+
+    @Test
+    public void requests_in_flight_exceed_executor_threads() throws Exception {
+        // Given
+        HeldEngine engine = new HeldEngine(null);
+        scheduler = createScheduler(engine);
+        int count = 20;
+        CountDownLatch done = new CountDownLatch(count);
+        List<String> results = Collections.synchronizedList(new ArrayList<>());
+
+        // When
+        for (int i = 0; i < count; i++) {
+            scheduler.get("/time", null, null, bodyAsString(), false, new io.ably.lib.types.Callback<String>() {
+                @Override
+                public void onSuccess(String result) {
+                    results.add(result);
+                    done.countDown();
+                }
+
+                @Override
+                public void onError(ErrorInfo reason) {
+                    done.countDown();
+                }
+            });
+        }
+
+        // Then
+        assertEquals(count, engine.held.size());
+        engine.releaseAll();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(count, results.size());
+    }
+
+    @Test
+    public void failed_host_moves_to_fallback() throws Exception {
+        // Given
+        HeldEngine engine = new HeldEngine(Defaults.HOST_REST);
+        scheduler = createScheduler(engine);
+
+        // When
+        String result = scheduler.get("/time", null, null, bodyAsString(), false, null).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("ok", result);
+        assertEquals(2, engine.hosts.size());
+        assertEquals(Defaults.HOST_REST, engine.hosts.get(0));
+        assertNotEquals(Defaults.HOST_REST, engine.hosts.get(1));
+        assertEquals(engine.hosts.get(1), scheduler.httpCore.getPreferredHost());
+    }
+
+    @Test
+    public void response_body_is_not_streamed_to_the_callback_thread() throws Exception {
+        // Given
+        HeldEngine engine = new HeldEngine("unused.example.com");
+        scheduler = createScheduler(engine);
+        HttpCore.ResponseHandler<String> streamingHandler = new HttpCore.ResponseHandler<String>() {
+            @Override
+            public String handleResponse(HttpCore.Response response, ErrorInfo error) {
+                return new String(response.body);
+            }
+
+            @Override
+            public boolean acceptsBodyStream() {
+                return true;
+            }
+        };
+
+        // When
+        String result = scheduler.get("/time", null, null, streamingHandler, false, null).get(5, TimeUnit.SECONDS);
+
+        // Then
+        assertEquals("ok", result);
+        assertEquals(Collections.singletonList(false), engine.streamResponse);
+    }
+
+    private static NonBlockingHttpScheduler createScheduler(HttpEngine engine) throws Exception {
+        DebugOptions options = new DebugOptions("not:a.key");
+        options.httpEngine = engine;
+        options.asyncHttpThreadpoolSize = 1;
+        HttpCore httpCore = new HttpCore(options, null, new JavaPlatformAgentProvider());
+        return new NonBlockingHttpScheduler(httpCore, options);
+    }
+
+    private static HttpCore.ResponseHandler<String> bodyAsString() {
+        return (response, error) -> new String(response.body);
+    }
+
+    /**
+     * An engine whose calls complete only when released, or fail at once for the given host
+     */
+    private static class HeldEngine implements HttpEngine {
+        private final String failingHost;
+        final List<HttpCallback> held = Collections.synchronizedList(new ArrayList<>());
+        final List<String> hosts = Collections.synchronizedList(new ArrayList<>());
+        final List<Boolean> streamResponse = Collections.synchronizedList(new ArrayList<>());
+
+        HeldEngine(String failingHost) {
+            this.failingHost = failingHost;
+        }
+
+        void releaseAll() {
+            for (HttpCallback callback : new ArrayList<>(held)) {
+                callback.onResponse(okResponse());
+            }
+        }
+
+        @Override
+        public HttpCall call(HttpRequest request) {
+            return new HttpCall() {
+                @Override
+                public HttpResponse execute() {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void enqueue(HttpCallback callback) {
+                    String host = request.getUrl().getHost();
+                    hosts.add(host);
+                    streamResponse.add(request.isStreamResponse());
+                    if (failingHost == null) {
+                        held.add(callback);
+                    } else if (host.equals(failingHost)) {
+                        callback.onFailure(new FailedConnectionException(new ConnectException("refused")));
+                    } else {
+                        callback.onResponse(okResponse());
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                }
+            };
+        }
+
+        @Override
+        public boolean isUsingProxy() {
+            return false;
+        }
+
+        @Override
+        public boolean isAsyncSupported() {
+            return true;
+        }
+
+        private static HttpResponse okResponse() {
+            return HttpResponse.builder()
+                .code(200)
+                .message("OK")
+                .headers(Collections.emptyMap())
+                .body(new HttpBody("text/plain", "ok".getBytes()))
+                .build();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package io.ably.lib.http;
+
+import io.ably.lib.debug.DebugOptions;
+import io.ably.lib.network.HttpBody;
+import io.ably.lib.network.HttpCall;
+import io.ably.lib.network.HttpEngine;
+import io.ably.lib.network.HttpRequest;
+import io.ably.lib.network.HttpResponse;
+import io.ably.lib.rest.AblyRest;
+import io.ably.lib.types.AblyException;
+import io.ably.lib.types.Message;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PaginatedResultIteratorTest {
+
+    private AblyRest ably;
+
+    @After
+    public void tearDown() throws Exception {
+        if (ably != null) ably.close();
+    }
+
+    @Test
+    public void iterates_items_of_all_pages_in_order() throws Exception {
+        // Given
+        ably = createClient(new PagesEngine(3, 0));
+
+        // When
+        List<String> names = new ArrayList<>();
+        PaginatedResultIterator<Message> iterator = history(2);
+        while (iterator.hasNext()) {
+            names.add(iterator.next().name);
+        }
+
+        // Then
+        assertEquals(Arrays.asList("1a", "1b", "2a", "2b", "3a", "3b"), names);
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void pages_are_parsed_from_streamed_bodies() throws Exception {
+        // Given
+        PagesEngine engine = new PagesEngine(3, 0);
+        ably = createClient(engine);
+
+        // When
+        List<String> names = new ArrayList<>();
+        PaginatedResultIterator<Message> iterator = history(1);
+        while (iterator.hasNext()) {
+            names.add(iterator.next().name);
+        }
+
+        // Then
+        assertEquals(Arrays.asList("1a", "1b", "2a", "2b", "3a", "3b"), names);
+        assertEquals(3, engine.streamed.get());
+        assertEquals(3, engine.closed.get());
+    }
+
+    @Test
+    public void prefetches_no_more_than_the_given_number_of_pages() throws Exception {
+        // Given
+        PagesEngine engine = new PagesEngine(5, 0);
+        ably = createClient(engine);
+
+        // When
+        PaginatedResultIterator<Message> iterator = history(1);
+
+        // Then
+        awaitRequests(engine, 1);
+        iterator.next();
+        awaitRequests(engine, 2);
+        iterator.next();
+        iterator.next();
+        awaitRequests(engine, 3);
+        iterator.close();
+    }
+
+    @Test
+    public void failed_page_is_thrown_after_earlier_items() throws Exception {
+        // Given
+        ably = createClient(new PagesEngine(3, 2));
+
+        // When
+        PaginatedResultIterator<Message> iterator = history(2);
+        assertEquals("1a", iterator.next().name);
+        assertEquals("1b", iterator.next().name);
+
+        // Then
+        try {
+            iterator.hasNext();
+            fail("Expected the failed page to be reported");
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof AblyException);
+            assertEquals(404, ((AblyException) e.getCause()).errorInfo.statusCode);
+        }
+    }
+
+    private PaginatedResultIterator<Message> history(int prefetchPages) {
+        return ably.channels.get("test").historyIterator(null, prefetchPages);
+    }
+
+    /**
+     * Waits until the engine has seen the expected number of requests, then checks that no more follow
+     */
+    private static void awaitRequests(PagesEngine engine, int expected) throws InterruptedException {
+        for (int i = 0; i < 500 && engine.requests.get() < expected; i++) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        assertEquals(expected, engine.requests.get());
+    }
+
+    private static AblyRest createClient(HttpEngine engine) throws AblyException {
+        DebugOptions options = new DebugOptions("not:a.key");
+        options.httpEngine = engine;
+        options.useBinaryProtocol = false;
+        return new AblyRest(options);
+    }
+
+    /**
+     * An engine serving numbered pages of two messages, each linking to the next, and failing at the given page
+     */
+    private static class PagesEngine implements HttpEngine {
+        private final int pageCount;
+        private final int failingPage;
+        final AtomicInteger requests = new AtomicInteger();
+        final AtomicInteger streamed = new AtomicInteger();
+        final AtomicInteger closed = new AtomicInteger();
+
+        PagesEngine(int pageCount, int failingPage) {
+            this.pageCount = pageCount;
+            this.failingPage = failingPage;
+        }
+
+        @Override
+        public HttpCall call(HttpRequest request) {
+            return new HttpCall() {
+                @Override
+                public HttpResponse execute() {
+                    requests.incrementAndGet();
+                    String query = request.getUrl().getQuery();
+                    int page = (query != null && query.contains("page=")) ? Integer.parseInt(query.replaceAll(".*page=(\\d+).*", "$1")) : 1;
+                    if (page == failingPage) {
+                        return HttpResponse.builder()
+                            .code(404)
+                            .message("Not Found")
+                            .headers(Collections.emptyMap())
+                            .body(new HttpBody("text/plain", "not found".getBytes()))
+                            .build();
+                    }
+                    List<String> links = new ArrayList<>();
+                    if (page < pageCount) {
+                        links.add("<./messages?page=" + (page + 1) + ">; rel=\"next\"");
+                    }
+                    byte[] body = ("[{\"name\":\"" + page + "a\"},{\"name\":\"" + page + "b\"}]").getBytes();
+                    return HttpResponse.builder()
+                        .code(200)
+                        .message("OK")
+                        .headers(Collections.singletonMap("Link", links))
+                        .body(request.isStreamResponse() ? new HttpBody("application/json", stream(body)) : new HttpBody("application/json", body))
+                        .build();
+                }
+
+                @Override
+                public void cancel() {
+                }
+            };
+        }
+
+        private InputStream stream(byte[] body) {
+            streamed.incrementAndGet();
+            return new ByteArrayInputStream(body) {
+                @Override
+                public void close() {
+                    closed.incrementAndGet();
+                }
+            };
+        }
+
+        @Override
+        public boolean isUsingProxy() {
+            return false;
+        }
+    }
+}
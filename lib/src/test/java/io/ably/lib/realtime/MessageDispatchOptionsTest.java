@@ -0,0 +1,39 @@
+package io.ably.lib.realtime;
+
+import io.ably.lib.types.AblyException;
+import io.ably.lib.types.ClientOptions;
+import io.ably.lib.util.SerialExecutor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class MessageDispatchOptionsTest {
+
+    @Test
+    public void dispatch_queue_overflow_does_not_discard_messages_by_default() {
+        // When
+        ClientOptions options = new ClientOptions();
+
+        // Then
+        assertEquals(SerialExecutor.OverflowPolicy.block, options.messageDispatchOverflowPolicy);
+    }
+
+    @Test
+    public void non_positive_dispatch_queue_size_is_rejected() throws Exception {
+        // Given
+        ClientOptions options = new ClientOptions("not:a.key");
+        options.autoConnect = false;
+        options.asyncMessageDispatch = true;
+        options.messageDispatchQueueSize = 0;
+
+        // When
+        try {
+            new AblyRealtime(options).close();
+            fail("Expected the client options to be rejected");
+        } catch (AblyException e) {
+            // Then
+            assertEquals(40000, e.errorInfo.code);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package io.ably.lib.realtime;
+
+import io.ably.lib.types.PresenceMessage;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PresenceMapTest {
+
+    @Test
+    public void newer_serial_and_index_supersede_older() {
+        // Given
+        Presence.PresenceMap map = new Presence.PresenceMap("channel");
+        assertTrue(map.put(member("client", "conn", "conn:2:1", 0)));
+
+        // When
+        boolean olderAccepted = map.put(member("client", "conn", "conn:1:9", 0));
+        boolean sameSerialLowerIndexAccepted = map.put(member("client", "conn", "conn:2:0", 0));
+        boolean newerAccepted = map.put(member("client", "conn", "conn:10:0", 0));
+
+        // Then
+        assertFalse(olderAccepted);
+        assertFalse(sameSerialLowerIndexAccepted);
+        assertTrue(newerAccepted);
+        assertEquals("conn:10:0", map.values().get(0).id);
+    }
+
+    @Test
+    public void synthesized_leave_is_compared_by_timestamp() {
+        // Given
+        Presence.PresenceMap map = new Presence.PresenceMap("channel");
+        map.put(member("client", "conn", "conn:5:0", 100));
+        PresenceMessage staleLeave = member("client", "conn", "synthesized:0:0", 50);
+        staleLeave.action = PresenceMessage.Action.leave;
+        PresenceMessage leave = member("client", "conn", "synthesized:0:0", 150);
+        leave.action = PresenceMessage.Action.leave;
+
+        // When
+        boolean staleRemoved = map.remove(staleLeave);
+        boolean removed = map.remove(leave);
+
+        // Then
+        assertFalse(staleRemoved);
+        assertTrue(removed);
+        assertTrue(map.values().isEmpty());
+    }
+
+    @Test
+    public void members_not_seen_during_sync_are_residual() {
+        // Given
+        Presence.PresenceMap map = new Presence.PresenceMap("channel");
+        map.put(member("stays", "conn", "conn:0:0", 0));
+        map.put(member("superseded", "conn", "conn:0:1", 0));
+        map.put(member("goes", "conn", "conn:0:2", 0));
+
+        // When
+        map.startSync();
+        map.put(member("stays", "conn", "conn:1:0", 0));
+        /* an older sync message still counts as seeing the member */
+        map.put(member("superseded", "conn", "conn:0:0", 0));
+        map.startSync();
+        map.put(member("joins", "conn", "conn:1:1", 0));
+        List<PresenceMessage> residual = map.endSync();
+
+        // Then
+        assertEquals(1, residual.size());
+        assertEquals("goes", residual.get(0).clientId);
+        assertEquals(3, map.values().size());
+        assertTrue(map.isSyncComplete());
+    }
+
+    @Test
+    public void absent_witnesses_are_removed_at_end_of_sync() {
+        // Given
+        Presence.PresenceMap map = new Presence.PresenceMap("channel");
+        map.startSync();
+        PresenceMessage absent = member("client", "conn", "conn:3:0", 0);
+        absent.action = PresenceMessage.Action.absent;
+        map.put(absent);
+
+        // When
+        boolean staleAccepted = map.put(member("client", "conn", "conn:2:0", 0));
+        map.endSync();
+
+        // Then
+        assertFalse(staleAccepted);
+        assertTrue(map.values().isEmpty());
+    }
+
+    @Test
+    public void snapshot_is_reused_until_members_change() {
+        // Given
+        Presence.PresenceMap map = new Presence.PresenceMap("channel");
+        map.put(member("client", "conn", "conn:0:0", 0));
+
+        // When
+        List<PresenceMessage> first = map.values();
+        map.put(member("client", "conn", "conn:0:0", 0));
+        List<PresenceMessage> afterIgnoredPut = map.values();
+        map.put(member("other", "conn", "conn:0:1", 0));
+        List<PresenceMessage> afterChange = map.values();
+
+        // Then
+        assertSame(first, afterIgnoredPut);
+        assertEquals(1, first.size());
+        assertEquals(2, afterChange.size());
+    }
+
+    @Test
+    public void indexes_follow_puts_removes_and_sync() {
+        // Given
+        Presence.PresenceMap map = new Presence.PresenceMap("channel");
+        map.put(member("alice", "conn1", "conn1:0:0", 0));
+        map.put(member("alice", "conn2", "conn2:0:0", 0));
+        map.put(member("bob", "conn1", "conn1:0:1", 0));
+        PresenceMessage leave = member("alice", "conn2", "conn2:1:0", 0);
+        leave.action = PresenceMessage.Action.leave;
+
+        // When
+        map.remove(leave);
+        map.startSync();
+        map.put(member("alice", "conn1", "conn1:1:0", 0));
+        map.endSync();
+
+        // Then
+        assertEquals(1, map.find("alice", null).size());
+        assertEquals("conn1:1:0", map.find("alice", null).get(0).id);
+        assertTrue(map.find("bob", null).isEmpty());
+        assertEquals(1, map.find(null, "conn1").size());
+        assertTrue(map.find(null, "conn2").isEmpty());
+        assertEquals(1, map.find("alice", "conn1").size());
+        assertTrue(map.find("alice", "conn2").isEmpty());
+    }
+
+    private static PresenceMessage member(String clientId, String connectionId, String id, long timestamp) {
+        PresenceMessage message = new PresenceMessage(PresenceMessage.Action.present, clientId);
+        message.connectionId = connectionId;
+        message.id = id;
+        message.timestamp = timestamp;
+        return message;
+    }
+}
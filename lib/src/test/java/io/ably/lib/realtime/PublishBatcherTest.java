@@ -0,0 +1,244 @@
+package io.ably.lib.realtime;
+
+import io.ably.lib.types.AblyException;
+import io.ably.lib.types.Callback;
+import io.ably.lib.types.ErrorInfo;
+import io.ably.lib.types.Message;
+import io.ably.lib.types.PublishResult;
+import io.ably.lib.util.AblyTimer;
+import io.ably.lib.util.TimerInstance;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimerTask;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class PublishBatcherTest {
+
+    @Test
+    public void publishes_within_interval_are_sent_as_one_batch() {
+        // Given
+        RecordingSink sink = new RecordingSink(65536);
+        ManualTimer timer = new ManualTimer();
+        PublishBatcher batcher = new PublishBatcher(sink, timer, 10, 0);
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+
+        // When
+        batcher.publish(new Message[] {new Message("a", "1")}, first);
+        batcher.publish(new Message[] {new Message("b", "2"), new Message("c", "3")}, second);
+
+        // Then
+        assertEquals(0, sink.batches.size());
+        timer.fire();
+        assertEquals(1, sink.batches.size());
+        assertEquals(3, sink.batches.get(0).length);
+
+        sink.listeners.get(0).onSuccess(new PublishResult(new String[] {"s1", "s2", "s3"}));
+        assertArrayEquals(new String[] {"s1"}, first.result.serials);
+        assertArrayEquals(new String[] {"s2", "s3"}, second.result.serials);
+    }
+
+    @Test
+    public void batch_is_sent_when_byte_budget_would_be_exceeded() {
+        // Given
+        RecordingSink sink = new RecordingSink(65536);
+        PublishBatcher batcher = new PublishBatcher(sink, new ManualTimer(), 1000, 10);
+
+        // When
+        batcher.publish(new Message[] {new Message("n", "1234")}, null);
+        batcher.publish(new Message[] {new Message("n", "1234")}, null);
+        batcher.publish(new Message[] {new Message("n", "1234")}, null);
+
+        // Then
+        assertEquals(1, sink.batches.size());
+        assertEquals(2, sink.batches.get(0).length);
+    }
+
+    @Test
+    public void server_max_message_size_caps_budget() {
+        // Given
+        RecordingSink sink = new RecordingSink(8);
+        PublishBatcher batcher = new PublishBatcher(sink, new ManualTimer(), 1000, 1000);
+
+        // When
+        batcher.publish(new Message[] {new Message("n", "1234")}, null);
+        batcher.publish(new Message[] {new Message("n", "1234")}, null);
+
+        // Then
+        assertEquals(1, sink.batches.size());
+        assertEquals(1, sink.batches.get(0).length);
+    }
+
+    @Test
+    public void send_failure_is_reported_to_every_publisher() {
+        // Given
+        RecordingSink sink = new RecordingSink(65536);
+        ErrorInfo error = new ErrorInfo("Unable to publish in failed or suspended state", 400, 40000);
+        sink.failure = AblyException.fromErrorInfo(error);
+        PublishBatcher batcher = new PublishBatcher(sink, new ManualTimer(), 10, 0);
+        RecordingCallback first = new RecordingCallback();
+        RecordingCallback second = new RecordingCallback();
+        batcher.publish(new Message[] {new Message("a", "1")}, first);
+        batcher.publish(new Message[] {new Message("b", "2")}, second);
+
+        // When
+        batcher.flush();
+
+        // Then
+        assertSame(error, first.error);
+        assertSame(error, second.error);
+    }
+
+    @Test
+    public void stale_timer_does_not_flush_next_batch() {
+        // Given
+        RecordingSink sink = new RecordingSink(65536);
+        ManualTimer timer = new ManualTimer();
+        PublishBatcher batcher = new PublishBatcher(sink, timer, 10, 0);
+        batcher.publish(new Message[] {new Message("a", "1")}, null);
+        TimerTask stale = timer.tasks.get(0);
+        batcher.flush();
+        batcher.publish(new Message[] {new Message("b", "2")}, null);
+
+        // When
+        stale.run();
+
+        // Then
+        assertEquals(1, sink.batches.size());
+    }
+
+    @Test
+    public void missing_ack_result_is_passed_through() {
+        // Given
+        RecordingSink sink = new RecordingSink(65536);
+        PublishBatcher batcher = new PublishBatcher(sink, new ManualTimer(), 10, 0);
+        RecordingCallback callback = new RecordingCallback();
+        batcher.publish(new Message[] {new Message("a", "1")}, callback);
+        batcher.flush();
+
+        // When
+        sink.listeners.get(0).onSuccess(null);
+
+        // Then
+        assertEquals(1, callback.successCount);
+        assertNull(callback.result);
+    }
+
+    @Test
+    public void batch_is_sent_without_holding_the_batcher_lock() {
+        // Given
+        final PublishBatcher[] batcher = new PublishBatcher[1];
+        final boolean[] lockHeld = new boolean[1];
+        RecordingSink sink = new RecordingSink(65536) {
+            @Override
+            public void send(Message[] messages, Callback<PublishResult> listener) throws AblyException {
+                lockHeld[0] = Thread.holdsLock(batcher[0]);
+                super.send(messages, listener);
+            }
+        };
+        batcher[0] = new PublishBatcher(sink, new ManualTimer(), 10, 0);
+        batcher[0].publish(new Message[] {new Message("a", "1")}, null);
+
+        // When
+        batcher[0].flush();
+
+        // Then
+        assertEquals(1, sink.batches.size());
+        assertFalse(lockHeld[0]);
+    }
+
+    @Test
+    public void batches_closed_during_a_send_are_sent_in_order() {
+        // Given
+        final PublishBatcher[] batcher = new PublishBatcher[1];
+        RecordingSink sink = new RecordingSink(65536) {
+            @Override
+            public void send(Message[] messages, Callback<PublishResult> listener) throws AblyException {
+                super.send(messages, listener);
+                if (batches.size() == 1) {
+                    /* a publish made while the first batch is being sent */
+                    batcher[0].publish(new Message[] {new Message("b", "2")}, null);
+                    batcher[0].flush();
+                }
+            }
+        };
+        batcher[0] = new PublishBatcher(sink, new ManualTimer(), 10, 0);
+        batcher[0].publish(new Message[] {new Message("a", "1")}, null);
+
+        // When
+        batcher[0].flush();
+
+        // Then
+        assertEquals(2, sink.batches.size());
+        assertEquals("a", sink.batches.get(0)[0].name);
+        assertEquals("b", sink.batches.get(1)[0].name);
+    }
+
+    private static class RecordingSink implements PublishBatcher.Sink {
+        final List<Message[]> batches = new ArrayList<>();
+        final List<Callback<PublishResult>> listeners = new ArrayList<>();
+        final int maxMessageSize;
+        AblyException failure;
+
+        RecordingSink(int maxMessageSize) {
+            this.maxMessageSize = maxMessageSize;
+        }
+
+        @Override
+        public void send(Message[] messages, Callback<PublishResult> listener) throws AblyException {
+            if (failure != null) throw failure;
+            batches.add(messages);
+            listeners.add(listener);
+        }
+
+        @Override
+        public int maxMessageSize() {
+            return maxMessageSize;
+        }
+    }
+
+    private static class ManualTimer implements AblyTimer {
+        final List<TimerTask> tasks = new ArrayList<>();
+
+        @Override
+        public TimerInstance schedule(TimerTask task, long delayMs) {
+            tasks.add(task);
+            return () -> tasks.remove(task);
+        }
+
+        @Override
+        public void cancel() {
+            tasks.clear();
+        }
+
+        void fire() {
+            for (TimerTask task : new ArrayList<>(tasks)) {
+                task.run();
+            }
+        }
+    }
+
+    private static class RecordingCallback implements Callback<PublishResult> {
+        PublishResult result;
+        ErrorInfo error;
+        int successCount;
+
+        @Override
+        public void onSuccess(PublishResult result) {
+            this.result = result;
+            successCount++;
+        }
+
+        @Override
+        public void onError(ErrorInfo reason) {
+            this.error = reason;
+        }
+    }
+}
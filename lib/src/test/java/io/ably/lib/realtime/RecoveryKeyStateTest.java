@@ -0,0 +1,68 @@
+package io.ably.lib.realtime;
+
+import io.ably.lib.types.ClientOptions;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class RecoveryKeyStateTest {
+
+    @Test
+    public void encodes_serials_of_attached_channels_in_name_order() {
+        // Given
+        RecoveryKeyState state = new RecoveryKeyState();
+        state.setChannelSerial(null, "channel2", "2");
+        state.setChannelSerial(null, "channel1", "1");
+        state.setChannelSerial(null, "channel3", "3");
+        state.removeChannel(null, "channel3");
+
+        // When
+        String key = state.encode("uniqueKey", 1);
+
+        // Then
+        assertEquals("{\"connectionKey\":\"uniqueKey\",\"msgSerial\":1,\"channelSerials\":{\"channel1\":\"1\",\"channel2\":\"2\"}}", key);
+    }
+
+    @Test
+    public void encoded_key_is_reused_until_something_changes() {
+        // Given
+        RecoveryKeyState state = new RecoveryKeyState();
+        state.setChannelSerial(null, "channel1", "1");
+        String key = state.encode("uniqueKey", 1);
+
+        // When
+        state.setChannelSerial(null, "channel1", "1");
+        state.removeChannel(null, "channel2");
+
+        // Then
+        assertSame(key, state.encode("uniqueKey", 1));
+        assertNotSame(key, state.encode("uniqueKey", 2));
+        state.setChannelSerial(null, "channel1", "2");
+        assertEquals("{\"connectionKey\":\"uniqueKey\",\"msgSerial\":2,\"channelSerials\":{\"channel1\":\"2\"}}", state.encode("uniqueKey", 2));
+    }
+
+    @Test
+    public void released_channel_does_not_remove_the_slot_of_its_successor() throws Exception {
+        // Given
+        ClientOptions options = new ClientOptions("not:a.key");
+        options.autoConnect = false;
+        AblyRealtime ably = new AblyRealtime(options);
+        Channel released = ably.channels.get("channel1");
+        ably.channels.release("channel1");
+        Channel successor = ably.channels.get("channel1");
+        RecoveryKeyState state = new RecoveryKeyState();
+        state.setChannelSerial(released, "channel1", "1");
+        state.setChannelSerial(successor, "channel1", "2");
+
+        // When
+        state.removeChannel(released, "channel1");
+
+        // Then
+        assertEquals("{\"connectionKey\":\"uniqueKey\",\"msgSerial\":1,\"channelSerials\":{\"channel1\":\"2\"}}", state.encode("uniqueKey", 1));
+        state.removeChannel(successor, "channel1");
+        assertEquals("{\"connectionKey\":\"uniqueKey\",\"msgSerial\":1,\"channelSerials\":{}}", state.encode("uniqueKey", 1));
+        ably.close();
+    }
+}
@@ -0,0 +1,168 @@
+package io.ably.lib.rest;
+
+import io.ably.lib.types.AblyException;
+import io.ably.lib.types.ClientOptions;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AuthTokenRenewalTest {
+
+    private AblyRest ably;
+
+    @After
+    public void tearDown() throws Exception {
+        if (ably != null) ably.close();
+    }
+
+    @Test
+    public void concurrent_callers_share_a_single_token_request() throws Exception {
+        // Given
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger requests = new AtomicInteger();
+        ClientOptions options = new ClientOptions();
+        options.authCallback = params -> {
+            requests.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return token("token", 60000);
+        };
+        ably = new AblyRest(options);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<Auth.TokenDetails>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> ably.auth.assertValidToken()));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            // Then
+            Auth.TokenDetails first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<Auth.TokenDetails> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, requests.get());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void token_is_renewed_ahead_of_expiry() throws Exception {
+        // Given
+        final AtomicInteger requests = new AtomicInteger();
+        ClientOptions options = new ClientOptions();
+        options.tokenRenewalFraction = 0.5f;
+        options.authCallback = params -> token("token" + requests.incrementAndGet(), 1000);
+        ably = new AblyRest(options);
+        Auth.TokenDetails initial = ably.auth.authorize(null, null);
+
+        // When
+        for (int i = 0; i < 80 && requests.get() < 2; i++) {
+            Thread.sleep(10);
+        }
+
+        // Then
+        assertTrue("expected a renewal before the token expired", requests.get() >= 2);
+        assertTrue(System.currentTimeMillis() < initial.expires);
+        assertNotEquals(initial.token, ably.auth.getTokenDetails().token);
+        ably.auth.assertAuthorizationHeader(false);
+        assertEquals("Bearer " + ably.auth.getEncodedToken(), ably.auth.getAuthorizationHeader());
+    }
+
+    @Test
+    public void renewed_token_does_not_replace_one_authorized_during_the_renewal() throws Exception {
+        // Given
+        final AtomicInteger requests = new AtomicInteger();
+        final CountDownLatch renewalStarted = new CountDownLatch(1);
+        final CountDownLatch releaseRenewal = new CountDownLatch(1);
+        ClientOptions options = new ClientOptions();
+        options.tokenRenewalFraction = 0.2f;
+        options.authCallback = params -> {
+            int request = requests.incrementAndGet();
+            if (request == 2) {
+                renewalStarted.countDown();
+                try {
+                    releaseRenewal.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return token("token" + request, 5000);
+        };
+        ably = new AblyRest(options);
+        ably.auth.authorize(null, null);
+        assertTrue(renewalStarted.await(5, TimeUnit.SECONDS));
+
+        // When
+        Auth.TokenParams params = new Auth.TokenParams();
+        params.clientId = "other";
+        Auth.TokenDetails authorized = ably.auth.authorize(params, null);
+        releaseRenewal.countDown();
+        Thread.sleep(200);
+
+        // Then
+        assertEquals("token3", authorized.token);
+        assertSame(authorized, ably.auth.getTokenDetails());
+    }
+
+    @Test
+    public void no_renewal_ahead_of_expiry_by_default() throws Exception {
+        // Given
+        final AtomicInteger requests = new AtomicInteger();
+        ClientOptions options = new ClientOptions();
+        options.authCallback = params -> token("token" + requests.incrementAndGet(), 200);
+        ably = new AblyRest(options);
+
+        // When
+        ably.auth.authorize(null, null);
+        Thread.sleep(300);
+
+        // Then
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    public void invalid_renewal_fraction_is_rejected() {
+        // Given
+        ClientOptions options = new ClientOptions();
+        options.authCallback = params -> token("token", 1000);
+        options.tokenRenewalFraction = 1.5f;
+
+        // When
+        try {
+            new AblyRest(options);
+            fail("Expected the client options to be rejected");
+        } catch (AblyException e) {
+            // Then
+            assertEquals(40000, e.errorInfo.code);
+        }
+    }
+
+    private static Auth.TokenDetails token(String token, long ttl) {
+        Auth.TokenDetails details = new Auth.TokenDetails(token);
+        details.issued = System.currentTimeMillis();
+        details.expires = details.issued + ttl;
+        return details;
+    }
+}
@@ -0,0 +1,107 @@
+package io.ably.lib.rest;
+
+import io.ably.lib.rest.Auth.TokenParams;
+import io.ably.lib.rest.Auth.TokenRequest;
+import io.ably.lib.types.AblyException;
+import io.ably.lib.types.ClientOptions;
+import io.ably.lib.util.Base64Coder;
+import org.junit.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TokenRequestSignerTest {
+
+    private static final String KEY = "appId.keyName:keySecret";
+
+    @Test
+    public void signs_the_canonical_text_of_the_request() throws Exception {
+        // Given
+        TokenRequestSigner signer = new TokenRequestSigner(KEY);
+        TokenRequest request = new TokenRequest();
+        request.ttl = 3600000;
+        request.capability = "{\"*\":[\"*\"]}";
+        request.clientId = "client";
+        request.timestamp = 1000;
+
+        // When
+        signer.sign(request);
+
+        // Then
+        assertEquals("appId.keyName", request.keyName);
+        assertTrue(request.nonce.matches("\\d{16}"));
+        assertEquals(expectedMac("appId.keyName\n3600000\n{\"*\":[\"*\"]}\nclient\n1000\n" + request.nonce + "\n"), request.mac);
+    }
+
+    @Test
+    public void batch_requests_share_the_timestamp_and_have_distinct_nonces() throws Exception {
+        // Given
+        TokenRequestSigner signer = new TokenRequestSigner(KEY);
+        TokenParams[] params = new TokenParams[100];
+        for (int i = 0; i < params.length; i++) {
+            params[i] = new TokenParams();
+            params[i].clientId = "client" + i;
+        }
+
+        // When
+        TokenRequest[] requests = signer.createTokenRequests(params, 2000);
+
+        // Then
+        Set<String> nonces = new HashSet<>();
+        for (int i = 0; i < requests.length; i++) {
+            assertEquals("client" + i, requests[i].clientId);
+            assertEquals(2000, requests[i].timestamp);
+            assertEquals(expectedMac("appId.keyName\n\n\nclient" + i + "\n2000\n" + requests[i].nonce + "\n"), requests[i].mac);
+            nonces.add(requests[i].nonce);
+        }
+        assertEquals(requests.length, nonces.size());
+    }
+
+    @Test
+    public void request_for_a_different_key_is_rejected() throws Exception {
+        // Given
+        TokenRequestSigner signer = new TokenRequestSigner(KEY);
+        TokenRequest request = new TokenRequest();
+        request.keyName = "appId.otherKey";
+
+        // When
+        try {
+            signer.sign(request);
+            fail("Expected the request to be rejected");
+        } catch (AblyException e) {
+            // Then
+            assertEquals(40102, e.errorInfo.code);
+        }
+    }
+
+    @Test
+    public void auth_creates_requests_signed_with_the_client_key() throws Exception {
+        // Given
+        AblyRest ably = new AblyRest(new ClientOptions(KEY));
+        TokenParams params = new TokenParams();
+        params.ttl = 1000;
+
+        // When
+        TokenRequest[] requests = ably.auth.createTokenRequests(new TokenParams[] { params, null }, null);
+
+        // Then
+        assertEquals(2, requests.length);
+        assertEquals(requests[0].timestamp, requests[1].timestamp);
+        assertEquals(expectedMac("appId.keyName\n1000\n\n\n" + requests[0].timestamp + "\n" + requests[0].nonce + "\n"), requests[0].mac);
+        assertEquals(expectedMac("appId.keyName\n\n\n\n" + requests[1].timestamp + "\n" + requests[1].nonce + "\n"), requests[1].mac);
+        ably.close();
+    }
+
+    private static String expectedMac(String text) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec("keySecret".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return new String(Base64Coder.encode(mac.doFinal(text.getBytes(StandardCharsets.UTF_8))));
+    }
+}
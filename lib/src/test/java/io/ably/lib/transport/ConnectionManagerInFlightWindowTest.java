@@ -0,0 +1,132 @@
+package io.ably.lib.transport;
+
+import io.ably.lib.debug.DebugOptions;
+import io.ably.lib.realtime.AblyRealtime;
+import io.ably.lib.realtime.ConnectionState;
+import io.ably.lib.types.AblyException;
+import io.ably.lib.types.ProtocolMessage;
+import io.ably.lib.types.ProtocolSerializer;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConnectionManagerInFlightWindowTest {
+
+    private AblyRealtime ably;
+
+    @After
+    public void tearDown() {
+        if (ably != null) ably.close();
+    }
+
+    @Test
+    public void publish_on_the_receiving_thread_fails_at_once_when_the_window_is_full() throws Exception {
+        // Given
+        final ITransport[] transport = new ITransport[1];
+        final CountDownLatch connected = new CountDownLatch(1);
+        DebugOptions options = new DebugOptions("not:a.key");
+        options.autoConnect = false;
+        options.maxInFlightMessages = 1;
+        options.inFlightWindowTimeout = 5000;
+        options.transportFactory = (params, connectionManager) -> transport[0] = new ConnectingTransport(connectionManager, true);
+        ably = new AblyRealtime(options);
+        ably.connection.on(ConnectionState.connected, state -> connected.countDown());
+        ably.connection.connect();
+        assertTrue(connected.await(5, TimeUnit.SECONDS));
+        ably.channels.get("test").publish("event", "data");
+
+        // When
+        ably.connection.connectionManager.onMessage(transport[0], new ProtocolMessage(ProtocolMessage.Action.heartbeat));
+        long start = System.nanoTime();
+        try {
+            ably.channels.get("test").publish("event", "data");
+            fail("Expected the publish to be rejected");
+        } catch (AblyException e) {
+            // Then
+            assertEquals(40000, e.errorInfo.code);
+        }
+        assertTrue("publish should not wait", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    public void messages_queued_while_connecting_are_limited_by_the_window() throws Exception {
+        // Given
+        final CountDownLatch connecting = new CountDownLatch(1);
+        DebugOptions options = new DebugOptions("not:a.key");
+        options.autoConnect = false;
+        options.maxInFlightMessages = 1;
+        options.inFlightWindowTimeout = 5000;
+        options.transportFactory = (params, connectionManager) -> new ConnectingTransport(connectionManager, false);
+        ably = new AblyRealtime(options);
+        ably.connection.on(ConnectionState.connecting, state -> connecting.countDown());
+        ably.connection.connect();
+        assertTrue(connecting.await(5, TimeUnit.SECONDS));
+        ably.channels.get("test").publish("event", "data");
+
+        // When
+        long start = System.nanoTime();
+        try {
+            ably.channels.get("test").publish("event", "data");
+            fail("Expected the publish to be rejected");
+        } catch (AblyException e) {
+            // Then
+            assertEquals(40000, e.errorInfo.code);
+        }
+        assertTrue("publish should not wait", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    /**
+     * A transport that connects at once, or never, and never acknowledges what is sent on it
+     */
+    private static class ConnectingTransport implements ITransport {
+        private final ConnectionManager connectionManager;
+        private final boolean connects;
+
+        ConnectingTransport(ConnectionManager connectionManager, boolean connects) {
+            this.connectionManager = connectionManager;
+            this.connects = connects;
+        }
+
+        @Override
+        public void connect(ConnectListener connectListener) {
+            if (!connects) return;
+            new Thread(() -> {
+                try {
+                    connectListener.onTransportAvailable(this);
+                    connectionManager.onMessage(this, ProtocolSerializer.fromJSON(
+                        "{\"action\":4,\"connectionId\":\"connection\",\"connectionDetails\":{\"connectionKey\":\"key\"}}"));
+                } catch (AblyException e) {
+                    connectListener.onTransportUnavailable(this, e.errorInfo);
+                }
+            }).start();
+        }
+
+        @Override
+        public void send(ProtocolMessage msg) {
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void receive(ProtocolMessage msg) {
+        }
+
+        @Override
+        public String getURL() {
+            return "wss://localhost";
+        }
+
+        @Override
+        public String getHost() {
+            return "localhost";
+        }
+    }
+}
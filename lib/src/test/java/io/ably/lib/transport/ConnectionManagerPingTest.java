@@ -0,0 +1,218 @@
+package io.ably.lib.transport;
+
+import io.ably.lib.debug.DebugOptions;
+import io.ably.lib.realtime.AblyRealtime;
+import io.ably.lib.realtime.CompletionListener;
+import io.ably.lib.realtime.ConnectionState;
+import io.ably.lib.types.AblyException;
+import io.ably.lib.types.Callback;
+import io.ably.lib.types.ErrorInfo;
+import io.ably.lib.types.ProtocolMessage;
+import io.ably.lib.types.ProtocolSerializer;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConnectionManagerPingTest {
+
+    private AblyRealtime ably;
+
+    @After
+    public void tearDown() {
+        if (ably != null) ably.close();
+    }
+
+    @Test
+    public void ping_completes_with_round_trip_time_when_heartbeat_is_echoed() throws Exception {
+        // Given
+        HeartbeatTransport transport = connect(true);
+
+        // When
+        RttCallback rtt = new RttCallback();
+        ably.connection.ping(rtt);
+
+        // Then
+        assertTrue(rtt.rtt() >= 0);
+        assertEquals(1, transport.heartbeats.size());
+        assertNotNull(transport.heartbeats.get(0).id);
+    }
+
+    @Test
+    public void concurrent_pings_are_correlated_by_heartbeat_id() throws Exception {
+        // Given
+        HeartbeatTransport transport = connect(false);
+        RttCallback first = new RttCallback();
+        RttCallback second = new RttCallback();
+        ably.connection.ping(first);
+        ably.connection.ping(second);
+        assertEquals(2, transport.heartbeats.size());
+        assertNotEquals(transport.heartbeats.get(0).id, transport.heartbeats.get(1).id);
+
+        // When
+        transport.echo(transport.heartbeats.get(1));
+        transport.echo(new ProtocolMessage(ProtocolMessage.Action.heartbeat));
+
+        // Then
+        second.rtt();
+        assertFalse(first.isDone());
+        transport.echo(transport.heartbeats.get(0));
+        first.rtt();
+    }
+
+    @Test
+    public void ping_listener_is_called_on_echo() throws Exception {
+        // Given
+        connect(true);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        // When
+        ably.connection.ping(new CompletionListener() {
+            @Override
+            public void onSuccess() {
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(ErrorInfo reason) {
+            }
+        });
+
+        // Then
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void ping_fails_when_not_connected() throws Exception {
+        // Given
+        DebugOptions options = new DebugOptions("not:a.key");
+        options.autoConnect = false;
+        ably = new AblyRealtime(options);
+
+        // When
+        RttCallback rtt = new RttCallback();
+        ably.connection.ping(rtt);
+
+        // Then
+        assertEquals("Unable to ping service; not connected", rtt.error().message);
+    }
+
+    private HeartbeatTransport connect(boolean autoEcho) throws Exception {
+        final HeartbeatTransport[] created = new HeartbeatTransport[1];
+        final CountDownLatch connected = new CountDownLatch(1);
+        DebugOptions options = new DebugOptions("not:a.key");
+        options.autoConnect = false;
+        options.transportFactory = (params, connectionManager) -> created[0] = new HeartbeatTransport(connectionManager, autoEcho);
+        ably = new AblyRealtime(options);
+        ably.connection.on(ConnectionState.connected, state -> connected.countDown());
+        ably.connection.connect();
+        assertTrue(connected.await(5, TimeUnit.SECONDS));
+        return created[0];
+    }
+
+    /**
+     * A ping callback that waits for the round-trip time or error
+     */
+    private static class RttCallback implements Callback<Long> {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Long rtt;
+        private volatile ErrorInfo error;
+
+        @Override
+        public void onSuccess(Long rtt) {
+            this.rtt = rtt;
+            done.countDown();
+        }
+
+        @Override
+        public void onError(ErrorInfo reason) {
+            this.error = reason;
+            done.countDown();
+        }
+
+        boolean isDone() {
+            return done.getCount() == 0;
+        }
+
+        long rtt() throws InterruptedException {
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertNull(error);
+            return rtt;
+        }
+
+        ErrorInfo error() throws InterruptedException {
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertNotNull(error);
+            return error;
+        }
+    }
+
+    /**
+     * A transport that connects at once, and echoes heartbeats either as they are sent or when asked
+     */
+    private static class HeartbeatTransport implements ITransport {
+        private final ConnectionManager connectionManager;
+        private final boolean autoEcho;
+        final List<ProtocolMessage> heartbeats = new CopyOnWriteArrayList<>();
+
+        HeartbeatTransport(ConnectionManager connectionManager, boolean autoEcho) {
+            this.connectionManager = connectionManager;
+            this.autoEcho = autoEcho;
+        }
+
+        @Override
+        public void connect(ConnectListener connectListener) {
+            new Thread(() -> {
+                try {
+                    connectListener.onTransportAvailable(this);
+                    connectionManager.onMessage(this, ProtocolSerializer.fromJSON(
+                        "{\"action\":4,\"connectionId\":\"connection\",\"connectionDetails\":{\"connectionKey\":\"key\"}}"));
+                } catch (AblyException e) {
+                    connectListener.onTransportUnavailable(this, e.errorInfo);
+                }
+            }).start();
+        }
+
+        @Override
+        public void send(ProtocolMessage msg) throws AblyException {
+            if (msg.action == ProtocolMessage.Action.heartbeat) {
+                heartbeats.add(msg);
+                if (autoEcho) echo(msg);
+            }
+        }
+
+        void echo(ProtocolMessage heartbeat) throws AblyException {
+            ProtocolMessage echo = new ProtocolMessage(ProtocolMessage.Action.heartbeat);
+            echo.id = heartbeat.id;
+            connectionManager.onMessage(this, echo);
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void receive(ProtocolMessage msg) {
+        }
+
+        @Override
+        public String getURL() {
+            return "wss://localhost";
+        }
+
+        @Override
+        public String getHost() {
+            return "localhost";
+        }
+    }
+}
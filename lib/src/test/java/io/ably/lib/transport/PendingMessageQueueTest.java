@@ -0,0 +1,173 @@
+package io.ably.lib.transport;
+
+import io.ably.lib.transport.ConnectionManager.PendingMessageQueue;
+import io.ably.lib.transport.ConnectionManager.PendingMessageStats;
+import io.ably.lib.transport.ConnectionManager.QueuedMessage;
+import io.ably.lib.types.AblyException;
+import io.ably.lib.types.Callback;
+import io.ably.lib.types.ErrorInfo;
+import io.ably.lib.types.ProtocolMessage;
+import io.ably.lib.types.PublishResult;
+import io.ably.lib.util.MetricsRecorder;
+import io.ably.lib.util.SystemClock;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PendingMessageQueueTest {
+
+    @Test
+    public void ack_across_ring_wraparound_resolves_in_serial_order() {
+        // Given
+        PendingMessageQueue queue = new PendingMessageQueue(SystemClock.INSTANCE, 0);
+        List<Long> acked = new ArrayList<>();
+        long serial = 0;
+        /* advance the head so that later entries wrap around the end of the buffer */
+        for (; serial < 10; serial++) {
+            queue.push(queuedMessage(serial, acked, null));
+        }
+        queue.ack(0, 10, null, null);
+        acked.clear();
+
+        // When
+        for (; serial < 50; serial++) {
+            queue.push(queuedMessage(serial, acked, null));
+        }
+        queue.ack(10, 25, null, null);
+
+        // Then
+        assertEquals(25, acked.size());
+        for (int i = 0; i < 25; i++) {
+            assertEquals(10 + i, (long) acked.get(i));
+        }
+        assertEquals(15, queue.size());
+        assertEquals(35L, (long) queue.snapshot().get(0).msg.msgSerial);
+    }
+
+    @Test
+    public void ack_beyond_head_nacks_earlier_messages() {
+        // Given
+        PendingMessageQueue queue = new PendingMessageQueue(SystemClock.INSTANCE, 0);
+        List<Long> acked = new ArrayList<>();
+        List<Long> nacked = new ArrayList<>();
+        for (long serial = 0; serial < 4; serial++) {
+            queue.push(queuedMessage(serial, acked, nacked));
+        }
+
+        // When
+        queue.ack(2, 1, null, null);
+
+        // Then
+        assertEquals(2, nacked.size());
+        assertEquals(1, acked.size());
+        assertEquals(2, (long) acked.get(0));
+        PendingMessageStats stats = queue.getStats();
+        assertEquals(1, stats.inFlight);
+        assertEquals(4, stats.maxInFlight);
+        assertEquals(1, stats.ackedCount);
+        assertEquals(2, stats.nackedCount);
+        assertEquals(1, stats.ackLatency.count);
+    }
+
+    @Test
+    public void metrics_recorder_sees_acks_failures_and_depth() {
+        // Given
+        final List<Long> ackLatencies = new ArrayList<>();
+        final List<Integer> failures = new ArrayList<>();
+        final List<Integer> depths = new ArrayList<>();
+        MetricsRecorder metrics = new MetricsRecorder() {
+            @Override
+            public void onMessageAcknowledged(long latencyNanos) {
+                ackLatencies.add(latencyNanos);
+            }
+
+            @Override
+            public void onMessagesFailed(int count) {
+                failures.add(count);
+            }
+
+            @Override
+            public void onPendingMessageDepth(int depth) {
+                depths.add(depth);
+            }
+        };
+        PendingMessageQueue queue = new PendingMessageQueue(SystemClock.INSTANCE, 0, metrics);
+        for (long serial = 0; serial < 4; serial++) {
+            queue.push(queuedMessage(serial, null, null));
+        }
+
+        // When
+        queue.ack(1, 2, null, null);
+
+        // Then
+        assertEquals(2, ackLatencies.size());
+        assertTrue(ackLatencies.get(0) >= 0);
+        assertEquals(1, (int) failures.get(0));
+        assertEquals(1, (int) depths.get(depths.size() - 1));
+        assertEquals(4, (int) depths.get(3));
+    }
+
+    @Test
+    public void full_window_fails_fast_without_timeout() {
+        // Given
+        PendingMessageQueue queue = new PendingMessageQueue(SystemClock.INSTANCE, 2);
+        queue.push(queuedMessage(0, null, null));
+        queue.push(queuedMessage(1, null, null));
+
+        // When
+        try {
+            queue.awaitCapacity(0);
+            fail("expected the full window to be rejected");
+        } catch (AblyException e) {
+            // Then
+            assertEquals(40000, e.errorInfo.code);
+        }
+        assertEquals(1, queue.getStats().rejectedCount);
+    }
+
+    @Test
+    public void full_window_blocks_until_ack() throws Exception {
+        // Given
+        PendingMessageQueue queue = new PendingMessageQueue(SystemClock.INSTANCE, 1);
+        queue.push(queuedMessage(0, null, null));
+        Thread acker = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ignored) {}
+            queue.ack(0, 1, null, null);
+        });
+        acker.start();
+
+        // When
+        queue.awaitCapacity(5000);
+
+        // Then
+        acker.join();
+        PendingMessageStats stats = queue.getStats();
+        assertEquals(0, stats.inFlight);
+        assertEquals(1, stats.blockedCount);
+        assertTrue("blocked time should be recorded", stats.blockedNanos > 0);
+        assertEquals(0, stats.rejectedCount);
+    }
+
+    private static QueuedMessage queuedMessage(final long serial, final List<Long> acked, final List<Long> nacked) {
+        ProtocolMessage message = new ProtocolMessage(ProtocolMessage.Action.message, "channel");
+        message.msgSerial = serial;
+        return new QueuedMessage(message, new Callback<PublishResult>() {
+            @Override
+            public void onSuccess(PublishResult result) {
+                if (acked != null) acked.add(serial);
+            }
+
+            @Override
+            public void onError(ErrorInfo reason) {
+                if (nacked != null) nacked.add(serial);
+            }
+        });
+    }
+}
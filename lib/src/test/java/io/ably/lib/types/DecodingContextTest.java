@@ -0,0 +1,71 @@
+package io.ably.lib.types;
+
+import com.davidehrmann.vcdiff.VCDiffEncoderBuilder;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+public class DecodingContextTest {
+
+    @Test
+    public void successive_deltas_apply_to_previous_result() throws IOException {
+        // Given
+        String[] versions = {"{\"count\":1,\"status\":\"on\"}", "{\"count\":2,\"status\":\"on\"}",
+            "{\"count\":2,\"status\":\"off\"}", "{\"count\":3,\"status\":\"off\"}"};
+        DecodingContext context = new DecodingContext();
+        context.setLastMessageData(versions[0]);
+
+        for (int i = 1; i < versions.length; i++) {
+            // When
+            byte[] result = context.applyDelta(delta(versions[i - 1], versions[i]));
+            context.setLastMessageData(result);
+            /* the returned array belongs to the message; changing it must not affect the base */
+            byte[] expected = result.clone();
+            result[0] = 'x';
+
+            // Then
+            assertArrayEquals(versions[i].getBytes(StandardCharsets.UTF_8), expected);
+        }
+        assertArrayEquals(versions[versions.length - 1].getBytes(StandardCharsets.UTF_8), context.getLastMessageData());
+    }
+
+    @Test
+    public void delta_stats_count_bytes_saved() throws IOException {
+        // Given
+        StringBuilder document = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            document.append("line ").append(i).append('\n');
+        }
+        String base = document.toString();
+        String target = base.replace("line 500", "LINE 500");
+        byte[] delta = delta(base, target);
+        DecodingContext context = new DecodingContext();
+        context.setLastMessageData(base.getBytes(StandardCharsets.UTF_8));
+
+        // When
+        byte[] first = context.applyDelta(delta);
+        context.setLastMessageData(base);
+        byte[] second = context.applyDelta(delta);
+
+        // Then
+        assertNotSame(first, second);
+        DecodingContext.DeltaStats stats = context.getDeltaStats();
+        assertEquals(2, stats.deltaCount);
+        assertEquals(2L * delta.length, stats.deltaBytes);
+        assertEquals(2L * target.length(), stats.decodedBytes);
+        assertEquals(stats.decodedBytes - stats.deltaBytes, stats.bytesSaved());
+    }
+
+    private static byte[] delta(String base, String target) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VCDiffEncoderBuilder.builder().withDictionary(base.getBytes(StandardCharsets.UTF_8)).buildSimple()
+            .encode(target.getBytes(StandardCharsets.UTF_8), out);
+        return out.toByteArray();
+    }
+}
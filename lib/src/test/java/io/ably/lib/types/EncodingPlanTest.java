@@ -0,0 +1,65 @@
+package io.ably.lib.types;
+
+import io.ably.lib.util.Base64Coder;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class EncodingPlanTest {
+
+    @Test
+    public void plans_are_shared_per_encoding() {
+        // When
+        EncodingPlan first = EncodingPlan.of("json/utf-8/cipher+aes-256-cbc/base64");
+        EncodingPlan second = EncodingPlan.of(new String("json/utf-8/cipher+aes-256-cbc/base64"));
+
+        // Then
+        assertSame(first, second);
+        assertArrayEquals(new EncodingPlan.Step[] {
+            EncodingPlan.Step.BASE64, EncodingPlan.Step.CIPHER, EncodingPlan.Step.UTF8, EncodingPlan.Step.JSON
+        }, first.steps);
+        assertEquals("json/utf-8/cipher+aes-256-cbc", first.residualEncoding(1));
+        assertNull(first.residualEncoding(4));
+    }
+
+    @Test
+    public void steps_stop_at_first_unknown_or_malformed_segment() {
+        // When
+        EncodingPlan unknown = EncodingPlan.of("utf-8/custom/base64");
+        EncodingPlan malformed = EncodingPlan.of("json/cipher+/utf-8");
+
+        // Then
+        assertArrayEquals(new EncodingPlan.Step[] {EncodingPlan.Step.BASE64}, unknown.steps);
+        assertEquals("utf-8/custom", unknown.residualEncoding(unknown.steps.length));
+        assertArrayEquals(new EncodingPlan.Step[] {EncodingPlan.Step.UTF8}, malformed.steps);
+        assertEquals("json/cipher+", malformed.residualEncoding(malformed.steps.length));
+    }
+
+    @Test
+    public void appended_transforms_build_encoding() {
+        // When
+        EncodingPlan plan = EncodingPlan.NONE.then("json").then("utf-8");
+
+        // Then
+        assertEquals("json/utf-8", plan.encoding);
+        assertSame(plan, EncodingPlan.NONE.then("json").then("utf-8"));
+        assertSame(EncodingPlan.of("json/utf-8"), plan);
+    }
+
+    @Test
+    public void decode_leaves_unprocessed_encoding() throws MessageDecodeException {
+        // Given
+        Message message = new Message("name", Base64Coder.encodeToString("data".getBytes()));
+        message.encoding = "custom/utf-8/base64";
+
+        // When
+        message.decode(null);
+
+        // Then
+        assertEquals("data", message.data);
+        assertEquals("custom", message.encoding);
+    }
+}
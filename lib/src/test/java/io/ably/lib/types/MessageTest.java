@@ -1,16 +1,20 @@
 package io.ably.lib.types;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 
+import com.davidehrmann.vcdiff.VCDiffEncoderBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import io.ably.lib.types.Message.Serializer;
+import io.ably.lib.util.Base64Coder;
 import io.ably.lib.util.Serialisation;
 import org.junit.Test;
 import org.msgpack.core.MessagePacker;
 import org.msgpack.core.MessageUnpacker;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.util.HashMap;
 
@@ -218,4 +222,60 @@ public class MessageTest {
         assertEquals("value1", unpacked.version.metadata.get("key1"));
         assertEquals("value2", unpacked.version.metadata.get("key2"));
     }
+
+    @Test
+    public void delta_base_is_kept_for_undelivered_messages() throws Exception {
+        // Given
+        byte[] base = "{\"count\":1,\"status\":\"active\"}".getBytes("UTF-8");
+        byte[] target = "{\"count\":2,\"status\":\"active\"}".getBytes("UTF-8");
+        ByteArrayOutputStream delta = new ByteArrayOutputStream();
+        VCDiffEncoderBuilder.builder().withDictionary(base).buildSimple().encode(target, delta);
+        DecodingContext context = new DecodingContext();
+        Message skipped = new Message("ignored", Base64Coder.encodeToString(base));
+        skipped.encoding = "json/utf-8/base64";
+        Message next = new Message("wanted", Base64Coder.encodeToString(delta.toByteArray()));
+        next.encoding = "json/utf-8/vcdiff/base64";
+
+        // When
+        skipped.decodeDeltaBase(null, context);
+        next.decode(null, context);
+
+        // Then
+        assertEquals("json/utf-8/base64", skipped.encoding);
+        assertEquals(2, ((JsonObject) next.data).get("count").getAsInt());
+        assertNull(next.encoding);
+    }
+
+    @Test
+    public void read_msgpack_stream_decodes_each_message() throws Exception {
+        // Given
+        Message second = new Message("second", "dHdv");
+        second.encoding = "base64";
+        byte[] packed = MessageSerializer.writeMsgpackArray(new Message[] { new Message("first", "one"), second });
+
+        // When
+        Message[] messages = MessageSerializer.readMsgpack(new ByteArrayInputStream(packed), null);
+
+        // Then
+        assertEquals(2, messages.length);
+        assertEquals("one", messages[0].data);
+        assertArrayEquals("two".getBytes(), (byte[]) messages[1].data);
+        assertNull(messages[1].encoding);
+    }
+
+    @Test
+    public void read_json_stream_decodes_each_message() throws Exception {
+        // Given
+        String json = "[{\"name\":\"first\",\"data\":\"one\"},{\"name\":\"second\",\"data\":\"dHdv\",\"encoding\":\"base64\"}]";
+
+        // When
+        Message[] messages = MessageSerializer.readMessagesFromJson(new ByteArrayInputStream(json.getBytes("UTF-8")), null);
+
+        // Then
+        assertEquals(2, messages.length);
+        assertEquals("first", messages[0].name);
+        assertEquals("one", messages[0].data);
+        assertArrayEquals("two".getBytes(), (byte[]) messages[1].data);
+        assertNull(messages[1].encoding);
+    }
 }
@@ -0,0 +1,149 @@
+package io.ably.lib.types;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+public class ProtocolSerializerTest {
+
+    @Test
+    public void read_msgpack_from_heap_buffer_with_offset() throws AblyException {
+        // Given
+        byte[] encoded = ProtocolSerializer.writeMsgpack(messageWithData("first", new byte[] {1, 2, 3}));
+        byte[] framed = new byte[encoded.length + 8];
+        System.arraycopy(encoded, 0, framed, 4, encoded.length);
+        ByteBuffer buffer = ByteBuffer.wrap(framed, 4, encoded.length).slice();
+
+        // When
+        ProtocolMessage decoded = ProtocolSerializer.readMsgpack(buffer);
+
+        // Then
+        assertDecoded(decoded, "first", new byte[] {1, 2, 3});
+    }
+
+    @Test
+    public void read_msgpack_from_direct_and_read_only_buffers() throws AblyException {
+        // Given
+        byte[] encoded = ProtocolSerializer.writeMsgpack(messageWithData("direct", new byte[] {4, 5}));
+        ByteBuffer direct = ByteBuffer.allocateDirect(encoded.length);
+        direct.put(encoded).flip();
+        ByteBuffer readOnly = ByteBuffer.wrap(encoded).asReadOnlyBuffer();
+
+        // When
+        ProtocolMessage fromDirect = ProtocolSerializer.readMsgpack(direct);
+        ProtocolMessage fromReadOnly = ProtocolSerializer.readMsgpack(readOnly);
+
+        // Then
+        assertDecoded(fromDirect, "direct", new byte[] {4, 5});
+        assertDecoded(fromReadOnly, "direct", new byte[] {4, 5});
+    }
+
+    @Test
+    public void msgpack_reader_is_reusable_across_frames() throws AblyException {
+        // Given
+        ProtocolSerializer.MsgpackReader reader = new ProtocolSerializer.MsgpackReader();
+
+        for (int i = 0; i < 6; i++) {
+            byte[] data = new byte[1 + i * 100];
+            data[0] = (byte) i;
+            byte[] encoded = ProtocolSerializer.writeMsgpack(messageWithData("frame-" + i, data));
+            ByteBuffer frame = ByteBuffer.wrap(encoded);
+            if (i % 2 == 1) {
+                frame = ByteBuffer.allocateDirect(encoded.length);
+                frame.put(encoded).flip();
+            }
+
+            // When
+            ProtocolMessage decoded = reader.read(frame);
+
+            // Then
+            assertDecoded(decoded, "frame-" + i, data);
+        }
+    }
+
+    @Test
+    public void read_json_streams_nested_members() throws AblyException {
+        // Given
+        String json = "{\"action\":15,\"channel\":\"chan\",\"id\":\"conn:4\",\"msgSerial\":7,"
+            + "\"timestamp\":1700000000000,\"flags\":65536,\"connectionKey\":\"ignored\",\"unknown\":{\"a\":[1,2]},"
+            + "\"params\":{\"rewind\":\"1\"},\"error\":{\"message\":\"oops\",\"statusCode\":400,\"code\":40000},"
+            + "\"messages\":[{\"name\":\"event\",\"data\":\"{\\\"a\\\":1}\",\"encoding\":\"json\",\"serial\":\"s1\","
+            + "\"action\":1,\"extras\":{\"headers\":{\"k\":\"v\"}},\"clientId\":null}],"
+            + "\"presence\":[{\"action\":2,\"clientId\":\"client\",\"data\":{\"status\":\"here\"}}]}";
+
+        // When
+        ProtocolMessage decoded = ProtocolSerializer.fromJSON(json);
+
+        // Then
+        assertEquals(ProtocolMessage.Action.message, decoded.action);
+        assertEquals("chan", decoded.channel);
+        assertEquals("conn:4", decoded.id);
+        assertEquals(Long.valueOf(7), decoded.msgSerial);
+        assertEquals(1700000000000L, decoded.timestamp);
+        assertEquals(65536, decoded.flags);
+        assertEquals("1", decoded.params.get("rewind"));
+        assertEquals(40000, decoded.error.code);
+        assertEquals(1, decoded.messages.length);
+        Message message = decoded.messages[0];
+        assertEquals("event", message.name);
+        assertEquals("{\"a\":1}", message.data);
+        assertEquals("json", message.encoding);
+        assertEquals("s1", message.serial);
+        assertEquals(MessageAction.MESSAGE_UPDATE, message.action);
+        assertEquals("v", message.extras.asJsonObject().getAsJsonObject("headers").get("k").getAsString());
+        assertNull(message.clientId);
+        assertEquals(PresenceMessage.Action.enter, decoded.presence[0].action);
+        assertEquals("here", ((Map<?, ?>) decoded.presence[0].data).get("status"));
+    }
+
+    @Test
+    public void read_json_matches_write_json() throws AblyException {
+        // Given
+        ProtocolMessage message = new ProtocolMessage(ProtocolMessage.Action.presence, "chan");
+        message.msgSerial = 3L;
+        message.messages = new Message[] {new Message("a", "text"), new Message("b", "more")};
+        message.presence = new PresenceMessage[] {new PresenceMessage(PresenceMessage.Action.leave, "client", "bye")};
+        String json = new String(ProtocolSerializer.writeJSON(message), StandardCharsets.UTF_8);
+
+        // When
+        ProtocolMessage decoded = ProtocolSerializer.fromJSON(json);
+
+        // Then
+        assertEquals(ProtocolMessage.Action.presence, decoded.action);
+        assertEquals(Long.valueOf(3), decoded.msgSerial);
+        assertEquals("more", decoded.messages[1].data);
+        assertEquals("b", decoded.messages[1].name);
+        assertEquals("client", decoded.presence[0].clientId);
+        assertEquals("bye", decoded.presence[0].data);
+    }
+
+    @Test
+    public void read_json_reports_malformed_input() {
+        try {
+            ProtocolSerializer.fromJSON("{\"action\":\"x\"");
+            fail("expected malformed JSON to be rejected");
+        } catch (AblyException e) {
+            // expected
+        }
+    }
+
+    private static ProtocolMessage messageWithData(String channel, byte[] data) {
+        ProtocolMessage message = new ProtocolMessage(ProtocolMessage.Action.message, channel);
+        message.messages = new Message[] {new Message("name", data)};
+        return message;
+    }
+
+    private static void assertDecoded(ProtocolMessage decoded, String channel, byte[] data) {
+        assertEquals(ProtocolMessage.Action.message, decoded.action);
+        assertEquals(channel, decoded.channel);
+        assertEquals(1, decoded.messages.length);
+        assertArrayEquals(data, (byte[]) decoded.messages[0].data);
+    }
+}
@@ -0,0 +1,163 @@
+package io.ably.lib.util;
+
+import org.junit.Test;
+
+import java.util.TimerTask;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AblySchedulerTest {
+
+    @Test
+    public void many_timers_share_bounded_threads() throws InterruptedException {
+        AblyScheduler scheduler = new AblyScheduler(2);
+        int timerCount = 5000;
+        CountDownLatch latch = new CountDownLatch(timerCount);
+        for (int i = 0; i < timerCount; i++) {
+            scheduler.newTimer("attach-timer").schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            }, 1);
+        }
+        assertTrue("All tasks should run", latch.await(10, TimeUnit.SECONDS));
+
+        AblyScheduler.Stats stats = scheduler.getStats();
+        assertTrue("Thread count should be bounded, was " + stats.threadCount, stats.threadCount <= 2);
+        assertEquals(timerCount, stats.timersCreated);
+        assertEquals(timerCount, stats.tasksRun);
+        assertTrue(stats.maxLatencyNanos >= stats.meanLatencyNanos());
+    }
+
+    @Test
+    public void cancelled_instance_does_not_run() throws InterruptedException {
+        AblyScheduler scheduler = new AblyScheduler(1);
+        AtomicInteger runs = new AtomicInteger();
+        AblyTimer timer = scheduler.newTimer("test");
+        TimerInstance instance = timer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        }, 50);
+        instance.cancel();
+        Thread.sleep(150);
+        assertEquals(0, runs.get());
+        assertEquals(1, scheduler.getStats().tasksCancelled);
+        assertEquals(0, scheduler.getStats().pendingTasks);
+    }
+
+    @Test
+    public void cancelled_timer_cancels_its_tasks_only() throws InterruptedException {
+        AblyScheduler scheduler = new AblyScheduler(1);
+        AtomicInteger cancelledRuns = new AtomicInteger();
+        CountDownLatch otherRan = new CountDownLatch(1);
+
+        AblyTimer cancelledTimer = scheduler.newTimer("cancelled");
+        cancelledTimer.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                cancelledRuns.incrementAndGet();
+            }
+        }, 50);
+        scheduler.newTimer("other").schedule(new TimerTask() {
+            @Override
+            public void run() {
+                otherRan.countDown();
+            }
+        }, 50);
+        cancelledTimer.cancel();
+
+        assertTrue(otherRan.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(0, cancelledRuns.get());
+    }
+
+    @Test
+    public void tasks_of_one_timer_do_not_run_concurrently() throws InterruptedException {
+        // Given
+        AblyScheduler scheduler = new AblyScheduler(2);
+        AblyTimer timer = scheduler.newTimer("test");
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch ran = new CountDownLatch(3);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    ran.countDown();
+                }
+            }, 10);
+        }
+
+        // Then
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    public void blocked_timer_does_not_hold_up_other_timers_once_pool_is_raised() throws InterruptedException {
+        // Given
+        AblyScheduler scheduler = new AblyScheduler(1);
+        scheduler.setPoolSize(2);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherRan = new CountDownLatch(1);
+        scheduler.newTimer("blocked").schedule(new TimerTask() {
+            @Override
+            public void run() {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, 0);
+
+        // When
+        scheduler.newTimer("other").schedule(new TimerTask() {
+            @Override
+            public void run() {
+                otherRan.countDown();
+            }
+        }, 10);
+
+        // Then
+        try {
+            assertTrue(otherRan.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void schedule_after_cancel_throws() {
+        AblyTimer timer = new AblyScheduler(1).newTimer("test");
+        timer.cancel();
+        try {
+            timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                }
+            }, 10);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertFalse(e.getMessage().isEmpty());
+        }
+    }
+}
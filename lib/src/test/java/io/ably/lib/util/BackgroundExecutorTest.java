@@ -0,0 +1,66 @@
+package io.ably.lib.util;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BackgroundExecutorTest {
+
+    @Test
+    public void shared_executor_is_created_once() {
+        // When
+        Executor first = BackgroundExecutor.getShared();
+        Executor second = BackgroundExecutor.getShared();
+
+        // Then
+        assertSame(first, second);
+    }
+
+    @Test
+    public void tasks_run_on_named_daemon_threads() throws Exception {
+        // Given
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        final CountDownLatch ran = new CountDownLatch(1);
+
+        // When
+        BackgroundExecutor.newPool("ably-test", 1).execute(() -> {
+            thread.set(Thread.currentThread());
+            ran.countDown();
+        });
+
+        // Then
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertTrue(thread.get().isDaemon());
+        assertTrue(thread.get().getName().startsWith("ably-test-"));
+    }
+
+    @Test
+    public void blocked_task_does_not_hold_up_the_shared_executor() throws Exception {
+        // Given
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch ran = new CountDownLatch(1);
+        BackgroundExecutor.getShared().execute(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // When
+        BackgroundExecutor.getShared().execute(ran::countDown);
+
+        // Then
+        try {
+            assertTrue(ran.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+    }
+}
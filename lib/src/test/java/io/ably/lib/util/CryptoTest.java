@@ -2,6 +2,7 @@ package io.ably.lib.util;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayOutputStream;
@@ -9,6 +10,7 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Ignore;
 import org.junit.Test;
@@ -200,6 +202,64 @@ public class CryptoTest {
         return out.toByteArray();
     }
 
+    @Test
+    public void cipher_pool_chains_ivs_across_messages() throws AblyException {
+        // Given
+        final CipherParams params = Crypto.getDefaultParams(Crypto.generateRandomKey(128));
+        final Crypto.ChannelCipherPool pool = Crypto.createChannelCipherPool(params);
+        final byte[] plaintext = "payload".getBytes();
+
+        // When
+        final byte[] first = pool.encrypt(plaintext);
+        final byte[] second = pool.encrypt(plaintext);
+
+        // Then
+        assertFalse("each message should have its own IV",
+            Arrays.equals(Arrays.copyOf(first, 16), Arrays.copyOf(second, 16)));
+        assertArrayEquals(plaintext, pool.decrypt(first));
+        assertArrayEquals(plaintext, pool.decrypt(second));
+        assertEquals("aes-128-cbc", pool.getAlgorithm());
+    }
+
+    @Test
+    public void cipher_pool_decrypts_concurrently() throws Exception {
+        // Given
+        final CipherParams params = Crypto.getDefaultParams(Crypto.generateRandomKey(256));
+        final Crypto.ChannelCipherPool pool = Crypto.createChannelCipherPool(params);
+        final byte[][] plaintexts = new byte[64][];
+        final byte[][] ciphertexts = new byte[plaintexts.length][];
+        for (int i = 0; i < plaintexts.length; i++) {
+            plaintexts[i] = ("message " + i).getBytes();
+            ciphertexts[i] = pool.encrypt(plaintexts[i]);
+        }
+        final AtomicInteger failures = new AtomicInteger();
+        final Thread[] threads = new Thread[4];
+
+        // When
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int round = 0; round < 50; round++) {
+                    for (int i = 0; i < plaintexts.length; i++) {
+                        try {
+                            if (!Arrays.equals(plaintexts[i], pool.decrypt(ciphertexts[i]))) {
+                                failures.incrementAndGet();
+                            }
+                        } catch (AblyException e) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        assertEquals(0, failures.get());
+    }
+
     @Test
     public void getRandomId() {
         String randomId = Crypto.getRandomId();
@@ -0,0 +1,65 @@
+package io.ably.lib.util;
+
+import io.ably.lib.types.AblyException;
+import io.ably.lib.types.Message;
+import io.ably.lib.types.ProtocolMessage;
+import io.ably.lib.types.ProtocolSerializer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ReusablePackerTest {
+
+    @Test
+    public void reused_packer_produces_same_encoding_as_fresh_packer() throws AblyException {
+        ReusablePacker packer = new ReusablePacker();
+        for (int i = 0; i < 5; i++) {
+            ProtocolMessage message = new ProtocolMessage(ProtocolMessage.Action.message, "channel-" + i);
+            message.messages = new Message[] {new Message("name", new byte[i * 1000])};
+
+            ByteBuffer reused = ProtocolSerializer.writeMsgpack(message, packer);
+            byte[] reusedBytes = new byte[reused.remaining()];
+            reused.get(reusedBytes);
+
+            assertArrayEquals(ProtocolSerializer.writeMsgpack(message), reusedBytes);
+        }
+    }
+
+    @Test
+    public void acquire_returns_same_packer_when_free() throws IOException {
+        ReusablePacker first = ReusablePacker.acquire();
+        first.begin().packInt(1);
+        first.finishToByteArray();
+
+        assertSame(first, ReusablePacker.acquire());
+    }
+
+    @Test
+    public void acquire_returns_new_packer_when_in_use() throws IOException {
+        ReusablePacker outer = ReusablePacker.acquire();
+        outer.begin().packInt(1);
+
+        ReusablePacker inner = ReusablePacker.acquire();
+        assertNotSame(outer, inner);
+        inner.begin().packInt(2);
+        assertEquals(1, inner.finishToByteArray().length);
+
+        byte[] outerBytes = outer.finishToByteArray();
+        assertArrayEquals(new byte[] {1}, outerBytes);
+    }
+
+    @Test
+    public void failed_operation_does_not_leak_into_next() throws IOException {
+        ReusablePacker packer = new ReusablePacker();
+        packer.begin().packString("abandoned");
+
+        packer.begin().packInt(3);
+        assertArrayEquals(new byte[] {3}, packer.finishToByteArray());
+    }
+}
@@ -0,0 +1,158 @@
+package io.ably.lib.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SerialExecutorTest {
+
+    @Test
+    public void tasks_run_in_submission_order_per_executor() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            int streams = 8, tasksPerStream = 1000;
+            List<List<Integer>> results = new ArrayList<>();
+            CountDownLatch done = new CountDownLatch(streams * tasksPerStream);
+            SerialExecutor[] executors = new SerialExecutor[streams];
+            for (int s = 0; s < streams; s++) {
+                results.add(Collections.synchronizedList(new ArrayList<>()));
+                executors[s] = new SerialExecutor(pool, 16);
+            }
+            for (int i = 0; i < tasksPerStream; i++) {
+                for (int s = 0; s < streams; s++) {
+                    final int stream = s, value = i;
+                    executors[s].execute(() -> {
+                        results.get(stream).add(value);
+                        done.countDown();
+                    });
+                }
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            for (int s = 0; s < streams; s++) {
+                List<Integer> stream = results.get(s);
+                assertEquals(tasksPerStream, stream.size());
+                for (int i = 0; i < tasksPerStream; i++) {
+                    assertEquals(i, (int) stream.get(i));
+                }
+                assertEquals(tasksPerStream, executors[s].getStats().executedCount);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void full_queue_blocks_submitter() throws InterruptedException {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            SerialExecutor executor = new SerialExecutor(pool, 2);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(4);
+            /* first task occupies the backing thread, the next two fill the queue */
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {}
+                done.countDown();
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            executor.execute(done::countDown);
+            executor.execute(done::countDown);
+
+            Thread releaser = new Thread(() -> {
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException ignored) {}
+                release.countDown();
+            });
+            releaser.start();
+            executor.execute(done::countDown);
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            SerialExecutor.Stats stats = executor.getStats();
+            assertEquals(1, stats.blockedCount);
+            assertTrue("blocked time should be recorded", stats.blockedNanos > 0);
+            assertEquals(2, stats.maxQueueDepth);
+            assertEquals(0, stats.droppedCount);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void full_queue_drops_oldest_task_without_blocking() throws InterruptedException {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            SerialExecutor executor = new SerialExecutor(pool, 2, SerialExecutor.OverflowPolicy.dropOldest);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            List<Integer> ran = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch done = new CountDownLatch(2);
+            /* first task occupies the backing thread, the next two fill the queue */
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {}
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertTrue(executor.offer(() -> ran.add(1)));
+            assertTrue(executor.offer(() -> { ran.add(2); done.countDown(); }));
+
+            assertFalse(executor.offer(() -> { ran.add(3); done.countDown(); }));
+            release.countDown();
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(Arrays.asList(2, 3), ran);
+            SerialExecutor.Stats stats = executor.getStats();
+            assertEquals(1, stats.droppedCount);
+            assertEquals(0, stats.blockedCount);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void full_queue_drops_newest_task_without_blocking() throws InterruptedException {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            SerialExecutor executor = new SerialExecutor(pool, 1, SerialExecutor.OverflowPolicy.dropNewest);
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            List<Integer> ran = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch done = new CountDownLatch(1);
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {}
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            assertTrue(executor.offer(() -> { ran.add(1); done.countDown(); }));
+
+            assertFalse(executor.offer(() -> ran.add(2)));
+            release.countDown();
+
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            pool.shutdown();
+            assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+            assertEquals(Collections.singletonList(1), ran);
+            assertEquals(1, executor.getStats().droppedCount);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
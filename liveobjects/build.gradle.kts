@@ -4,6 +4,7 @@ plugins {
     `java-library`
     alias(libs.plugins.kotlin.jvm)
     alias(libs.plugins.maven.publish)
+    alias(libs.plugins.jmh)
 }
 
 repositories {
@@ -18,6 +19,8 @@ dependencies {
     testImplementation(project(":java"))
     testImplementation(kotlin("test"))
     testImplementation(libs.bundles.kotlin.tests)
+
+    jmhImplementation(project(":java"))
 }
 
 tasks.withType<Test>().configureEach {
@@ -46,4 +49,19 @@ tasks.register<Test>("runLiveObjectsIntegrationTests") {
 
 kotlin {
     explicitApi()
+    /* the suites use the module's internal classes, e.g. LiveMapManager */
+    target.compilations.getByName("jmh").associateWith(target.compilations.getByName("main"))
+}
+
+/*
+LiveObjects benchmarks are run with:
+
+    ./gradlew liveobjects:jmh
+
+with the same -PjmhIncludes and -PjmhProfilers options as the benchmarks module
+*/
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    findProperty("jmhIncludes")?.let { includes.set(listOf(it.toString())) }
+    findProperty("jmhProfilers")?.let { profilers.set(it.toString().split(",")) }
 }
@@ -0,0 +1,107 @@
+package io.ably.lib.liveobjects.value.livemap
+
+import io.ably.lib.liveobjects.DefaultRealtimeObject
+import io.ably.lib.liveobjects.adapter.Adapter
+import io.ably.lib.liveobjects.message.WireMapSet
+import io.ably.lib.liveobjects.message.WireObjectData
+import io.ably.lib.liveobjects.message.WireObjectMessage
+import io.ably.lib.liveobjects.message.WireObjectOperation
+import io.ably.lib.liveobjects.message.WireObjectOperationAction
+import io.ably.lib.liveobjects.message.WireObjectState
+import io.ably.lib.liveobjects.message.WireObjectsMap
+import io.ably.lib.liveobjects.message.WireObjectsMapEntry
+import io.ably.lib.liveobjects.message.WireObjectsMapSemantics
+import io.ably.lib.realtime.AblyRealtime
+import io.ably.lib.types.AblyException
+import io.ably.lib.types.ClientOptions
+import io.ably.lib.types.ErrorInfo
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Level
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Param
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.Setup
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.TearDown
+import org.openjdk.jmh.annotations.Warmup
+import java.util.Locale
+import java.util.concurrent.TimeUnit
+
+/**
+ * Applying object state and operations to a LiveMap, through its [LiveMapManager].
+ *
+ * `applyState` overrides the map with the state of an OBJECT_SYNC message of [entries] entries,
+ * as is done for each map when a sync sequence ends; `applyMapSet` applies a MAP_SET operation
+ * of an OBJECT message to a map of [entries] entries, with a newer serial each time.
+ * The map has no subscribers, so the cost measured is that of the manager, not of listeners.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public open class LiveMapManagerBenchmark {
+
+  @Param("100", "10000")
+  @JvmField
+  public var entries: Int = 0
+
+  private lateinit var ably: AblyRealtime
+  private lateinit var realtimeObject: DefaultRealtimeObject
+  private lateinit var liveMap: InternalLiveMap
+  private lateinit var syncState: WireObjectState
+  private lateinit var syncMessage: WireObjectMessage
+  private val value = WireObjectData(string = "value")
+  private var lastSerial = 0L
+
+  @Setup(Level.Trial)
+  public fun setup() {
+    ably = AblyRealtime(ClientOptions("keyName:Value").apply { autoConnect = false })
+    realtimeObject = DefaultRealtimeObject("benchmark", Adapter(ably))
+    liveMap = InternalLiveMap.zeroValue("map:benchmark@1", realtimeObject)
+
+    val mapEntries = HashMap<String, WireObjectsMapEntry>(entries * 2)
+    for (i in 0 until entries) {
+      mapEntries["key$i"] = WireObjectsMapEntry(tombstone = false, timeserial = serial(i.toLong()), data = value)
+    }
+    syncState = WireObjectState(
+      objectId = liveMap.objectId,
+      siteTimeserials = mapOf("site" to serial(entries.toLong())),
+      tombstone = false,
+      map = WireObjectsMap(semantics = WireObjectsMapSemantics.LWW, entries = mapEntries),
+    )
+    syncMessage = WireObjectMessage(objectState = syncState)
+    liveMap.applyObjectState(syncState, syncMessage)
+    lastSerial = entries.toLong()
+  }
+
+  @TearDown(Level.Trial)
+  public fun tearDown() {
+    realtimeObject.dispose(AblyException.fromErrorInfo(ErrorInfo("benchmark ended", 400, 40000)))
+    ably.close()
+  }
+
+  @Benchmark
+  public fun applyState(): Any {
+    return liveMap.applyObjectState(syncState, syncMessage)
+  }
+
+  @Benchmark
+  public fun applyMapSet(): Boolean {
+    val next = ++lastSerial
+    val operation = WireObjectOperation(
+      action = WireObjectOperationAction.MapSet,
+      objectId = liveMap.objectId,
+      mapSet = WireMapSet(key = "key${next % entries}", value = value),
+    )
+    return liveMap.applyObjectOperation(operation, WireObjectMessage(operation = operation, serial = serial(next)))
+  }
+
+  /* serials compare as strings, so they are padded to sort in numeric order */
+  private fun serial(n: Long): String = String.format(Locale.ROOT, "%020d", n)
+}
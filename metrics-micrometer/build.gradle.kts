@@ -0,0 +1,14 @@
+plugins {
+    `java-library`
+    alias(libs.plugins.maven.publish)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+dependencies {
+    compileOnly(project(":java"))
+    api(libs.micrometer.core)
+}
@@ -0,0 +1,182 @@
+package io.ably.lib.metrics;
+
+import io.ably.lib.types.ProtocolMessage;
+import io.ably.lib.util.MetricsRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@link MetricsRecorder} that publishes client metrics to a Micrometer {@link MeterRegistry}.
+ * <p>
+ * Usage:
+ * <pre>
+ * ClientOptions options = new ClientOptions(key);
+ * options.metricsRecorder = new MicrometerMetricsRecorder(registry, Tags.of("client", "orders"));
+ * </pre>
+ * The meters registered are:
+ * <ul>
+ *     <li>{@code ably.protocol.messages} and {@code ably.protocol.bytes}: protocol messages and their
+ *     size on the realtime transport, tagged with {@code direction} and {@code action};</li>
+ *     <li>{@code ably.protocol.parse}: time taken to parse a received protocol message;</li>
+ *     <li>{@code ably.channel.messages}: messages received on channels, tagged with {@code delivered};</li>
+ *     <li>{@code ably.channel.decode}: time taken to decode the messages of a protocol message;</li>
+ *     <li>{@code ably.publish.ack}: time from sending a message to its acknowledgement;</li>
+ *     <li>{@code ably.publish.failed}: published messages that were rejected or failed;</li>
+ *     <li>{@code ably.publish.pending}: messages awaiting acknowledgement;</li>
+ *     <li>{@code ably.http.requests}: HTTP request latency, tagged with {@code host}, {@code method} and {@code status},
+ *     the class of the status code ({@code 2xx}, {@code 4xx} and so on, or {@code none} if there was no response);</li>
+ *     <li>{@code ably.fallbacks}: uses of a fallback host, tagged with {@code host}.</li>
+ * </ul>
+ * Channel names are not used as tags, to keep the number of time series bounded.
+ */
+public class MicrometerMetricsRecorder implements MetricsRecorder {
+
+    private static final ProtocolMessage.Action[] ACTIONS = ProtocolMessage.Action.values();
+    /* values of the status tag of ably.http.requests, indexed by the first digit of the status code */
+    private static final String[] STATUS_CLASSES = { "none", "1xx", "2xx", "3xx", "4xx", "5xx" };
+
+    private final MeterRegistry registry;
+    private final Tags tags;
+
+    /* per-action meters, indexed by ordinal, so that recording does not look meters up */
+    private final Counter[] sentMessages = new Counter[ACTIONS.length];
+    private final DistributionSummary[] sentBytes = new DistributionSummary[ACTIONS.length];
+    private final Counter[] receivedMessages = new Counter[ACTIONS.length];
+    private final DistributionSummary[] receivedBytes = new DistributionSummary[ACTIONS.length];
+
+    private final Timer parseTimer;
+    private final Counter deliveredMessages;
+    private final Counter undeliveredMessages;
+    private final Timer decodeTimer;
+    private final Timer ackTimer;
+    private final Counter failedMessages;
+    private final AtomicInteger pendingMessages;
+
+    /* meters tagged with a host, created on first use, so that recording does not register meters */
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, AtomicReferenceArray<Timer>>> httpRequestTimers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Counter> fallbackCounters = new ConcurrentHashMap<>();
+
+    public MicrometerMetricsRecorder(MeterRegistry registry) {
+        this(registry, Tags.empty());
+    }
+
+    /**
+     * @param registry the registry to register meters with
+     * @param tags tags added to every meter, for example to tell several clients apart
+     */
+    public MicrometerMetricsRecorder(MeterRegistry registry, Iterable<Tag> tags) {
+        this.registry = registry;
+        this.tags = Tags.of(tags);
+
+        for (ProtocolMessage.Action action : ACTIONS) {
+            final String actionName = action.name().toLowerCase(Locale.ROOT);
+            sentMessages[action.ordinal()] = Counter.builder("ably.protocol.messages")
+                .tags(this.tags).tag("direction", "sent").tag("action", actionName).register(registry);
+            sentBytes[action.ordinal()] = DistributionSummary.builder("ably.protocol.bytes").baseUnit("bytes")
+                .tags(this.tags).tag("direction", "sent").tag("action", actionName).register(registry);
+            receivedMessages[action.ordinal()] = Counter.builder("ably.protocol.messages")
+                .tags(this.tags).tag("direction", "received").tag("action", actionName).register(registry);
+            receivedBytes[action.ordinal()] = DistributionSummary.builder("ably.protocol.bytes").baseUnit("bytes")
+                .tags(this.tags).tag("direction", "received").tag("action", actionName).register(registry);
+        }
+
+        parseTimer = Timer.builder("ably.protocol.parse").tags(this.tags).register(registry);
+        deliveredMessages = Counter.builder("ably.channel.messages").tags(this.tags).tag("delivered", "true").register(registry);
+        undeliveredMessages = Counter.builder("ably.channel.messages").tags(this.tags).tag("delivered", "false").register(registry);
+        decodeTimer = Timer.builder("ably.channel.decode").tags(this.tags).register(registry);
+        ackTimer = Timer.builder("ably.publish.ack").tags(this.tags).register(registry);
+        failedMessages = Counter.builder("ably.publish.failed").tags(this.tags).register(registry);
+        pendingMessages = registry.gauge("ably.publish.pending", this.tags, new AtomicInteger());
+    }
+
+    @Override
+    public void onProtocolMessageSent(ProtocolMessage.Action action, int size) {
+        if (action == null) return;
+        sentMessages[action.ordinal()].increment();
+        sentBytes[action.ordinal()].record(size);
+    }
+
+    @Override
+    public void onProtocolMessageReceived(ProtocolMessage.Action action, int size, long parseNanos) {
+        parseTimer.record(parseNanos, TimeUnit.NANOSECONDS);
+        if (action == null) return;
+        receivedMessages[action.ordinal()].increment();
+        receivedBytes[action.ordinal()].record(size);
+    }
+
+    @Override
+    public void onChannelMessages(String channelName, int count, int delivered, long decodeNanos) {
+        deliveredMessages.increment(delivered);
+        undeliveredMessages.increment(count - delivered);
+        decodeTimer.record(decodeNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onMessageAcknowledged(long latencyNanos) {
+        ackTimer.record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onMessagesFailed(int count) {
+        failedMessages.increment(count);
+    }
+
+    @Override
+    public void onPendingMessageDepth(int depth) {
+        pendingMessages.set(depth);
+    }
+
+    @Override
+    public void onHttpRequest(String host, String method, int statusCode, long durationNanos) {
+        int statusClass = (statusCode >= 100 && statusCode < 600) ? statusCode / 100 : 0;
+        httpRequestTimer(host, method, statusClass).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onFallbackHost(String failedHost, String fallbackHost) {
+        Counter counter = fallbackCounters.get(fallbackHost);
+        if (counter == null) {
+            counter = Counter.builder("ably.fallbacks").tags(tags).tag("host", fallbackHost).register(registry);
+            Counter existing = fallbackCounters.putIfAbsent(fallbackHost, counter);
+            if (existing != null) counter = existing;
+        }
+        counter.increment();
+    }
+
+    private Timer httpRequestTimer(String host, String method, int statusClass) {
+        ConcurrentHashMap<String, AtomicReferenceArray<Timer>> byMethod = httpRequestTimers.get(host);
+        if (byMethod == null) {
+            byMethod = new ConcurrentHashMap<>();
+            ConcurrentHashMap<String, AtomicReferenceArray<Timer>> existing = httpRequestTimers.putIfAbsent(host, byMethod);
+            if (existing != null) byMethod = existing;
+        }
+        AtomicReferenceArray<Timer> byStatusClass = byMethod.get(method);
+        if (byStatusClass == null) {
+            byStatusClass = new AtomicReferenceArray<>(STATUS_CLASSES.length);
+            AtomicReferenceArray<Timer> existing = byMethod.putIfAbsent(method, byStatusClass);
+            if (existing != null) byStatusClass = existing;
+        }
+        Timer timer = byStatusClass.get(statusClass);
+        if (timer == null) {
+            /* the registry returns the existing meter if another thread registered it first */
+            timer = Timer.builder("ably.http.requests")
+                .tags(tags)
+                .tag("host", host)
+                .tag("method", method)
+                .tag("status", STATUS_CLASSES[statusClass])
+                .register(registry);
+            byStatusClass.set(statusClass, timer);
+        }
+        return timer;
+    }
+}
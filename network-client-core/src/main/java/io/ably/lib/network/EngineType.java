@@ -2,5 +2,6 @@ package io.ably.lib.network;
 
 public enum EngineType {
     DEFAULT,
-    OKHTTP
+    OKHTTP,
+    JDK
 }
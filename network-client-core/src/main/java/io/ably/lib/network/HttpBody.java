@@ -1,14 +1,32 @@
 package io.ably.lib.network;
 
 import lombok.AccessLevel;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Setter;
 
+import java.io.InputStream;
+
 @Data
 @Setter(AccessLevel.NONE)
-@AllArgsConstructor
 public class HttpBody {
     private final String contentType;
     private final byte[] content;
+    /**
+     * The unread response body, when the request asked for the response to be streamed
+     * (see {@link HttpRequest#isStreamResponse()}); in that case content is null, and
+     * the caller must close the stream.
+     */
+    private final InputStream stream;
+
+    public HttpBody(String contentType, byte[] content) {
+        this.contentType = contentType;
+        this.content = content;
+        this.stream = null;
+    }
+
+    public HttpBody(String contentType, InputStream stream) {
+        this.contentType = contentType;
+        this.content = null;
+        this.stream = stream;
+    }
 }
@@ -11,6 +11,23 @@ public interface HttpCall {
      */
     HttpResponse execute();
 
+    /**
+     * Execute Http request without waiting for the response, which is passed to the callback.
+     * <p/>
+     * Engines that support it ({@link HttpEngine#isAsyncSupported()}) do not hold a thread while waiting on I/O;
+     * the default implementation executes the request on the calling thread.
+     */
+    default void enqueue(HttpCallback callback) {
+        HttpResponse response;
+        try {
+            response = execute();
+        } catch (Throwable t) {
+            callback.onFailure(t);
+            return;
+        }
+        callback.onResponse(response);
+    }
+
     /**
      * Cancel pending Http request
      */
@@ -0,0 +1,17 @@
+package io.ably.lib.network;
+
+/**
+ * Receives the outcome of an {@link HttpCall} executed with {@link HttpCall#enqueue(HttpCallback)}.
+ * Exactly one of the methods is called, once.
+ */
+public interface HttpCallback {
+    /**
+     * The server responded, with any status code
+     */
+    void onResponse(HttpResponse response);
+
+    /**
+     * The request failed without a response; a {@link FailedConnectionException} if the server could not be reached
+     */
+    void onFailure(Throwable error);
+}
@@ -15,4 +15,11 @@ public interface HttpEngine {
      * @return <code>true</code> if it uses proxy, <code>false</code>  otherwise
      */
     boolean isUsingProxy();
+
+    /**
+     * @return <code>true</code> if {@link HttpCall#enqueue(HttpCallback)} performs I/O without blocking the caller
+     */
+    default boolean isAsyncSupported() {
+        return false;
+    }
 }
@@ -12,4 +12,18 @@ import lombok.Setter;
 @AllArgsConstructor
 public class HttpEngineConfig {
     private final ProxyConfig proxy;
+
+    /**
+     * Maximum number of concurrent requests to a single host; 0 for the engine's default.
+     */
+    private final int maxConnectionsPerHost;
+
+    /**
+     * Time, in milliseconds, an idle connection is kept open for reuse; 0 for the engine's default.
+     */
+    private final long keepAliveTimeout;
+
+    public HttpEngineConfig(ProxyConfig proxy) {
+        this(proxy, 0, 0);
+    }
 }
@@ -7,10 +7,15 @@ import java.lang.reflect.InvocationTargetException;
  * for different implementations. Currently, it supports:
  * - HttpURLConnection ({@link  EngineType#DEFAULT})
  * - OkHttp ({@link  EngineType#OKHTTP})
+ * - java.net.http.HttpClient ({@link  EngineType#JDK}), on Java 11+
+ * <p>
+ * The JDK engine is preferred when its module is present, as it is never a default dependency.
  */
 public interface HttpEngineFactory {
 
     static HttpEngineFactory getFirstAvailable() {
+        HttpEngineFactory jdkFactory = tryGetJdkFactory();
+        if (jdkFactory != null) return jdkFactory;
         HttpEngineFactory okHttpFactory = tryGetOkHttpFactory();
         if (okHttpFactory != null) return okHttpFactory;
         HttpEngineFactory defaultFactory = tryGetDefaultFactory();
@@ -28,6 +33,17 @@ public interface HttpEngineFactory {
         }
     }
 
+    static HttpEngineFactory tryGetJdkFactory() {
+        try {
+            Class<?> jdkFactoryClass = Class.forName("io.ably.lib.network.JdkHttpEngineFactory");
+            return (HttpEngineFactory) jdkFactoryClass.getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | NoSuchMethodException |
+                 InvocationTargetException | LinkageError e) {
+            /* LinkageError: the module is present but the runtime is older than Java 11 */
+            return null;
+        }
+    }
+
     static HttpEngineFactory tryGetDefaultFactory() {
         try {
             Class<?> defaultFactoryClass = Class.forName("io.ably.lib.network.DefaultHttpEngineFactory");
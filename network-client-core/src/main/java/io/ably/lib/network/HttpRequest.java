@@ -27,6 +27,11 @@ public class HttpRequest {
     private final HttpBody body;
     @Getter(AccessLevel.NONE)
     private final Map<String, List<String>> headers;
+    /**
+     * Whether a successful response body may be returned unread, as {@link HttpBody#getStream()}.
+     * Engines that cannot stream return the body in full.
+     */
+    private final boolean streamResponse;
 
     public Map<String, List<String>> getHeaders() {
         Map<String, List<String>> headersCopy = new HashMap<>(headers);
@@ -49,6 +54,7 @@ public class HttpRequest {
         private int httpReadTimeout;
         private HttpBody body;
         private Map<String, List<String>> headers;
+        private boolean streamResponse;
 
         HttpRequestBuilder() {
         }
@@ -89,12 +95,17 @@ public class HttpRequest {
             return this;
         }
 
+        public HttpRequestBuilder streamResponse(boolean streamResponse) {
+            this.streamResponse = streamResponse;
+            return this;
+        }
+
         public HttpRequest build() {
-            return new HttpRequest(this.url, this.method, this.httpOpenTimeout, this.httpReadTimeout, this.body, this.headers);
+            return new HttpRequest(this.url, this.method, this.httpOpenTimeout, this.httpReadTimeout, this.body, this.headers, this.streamResponse);
         }
 
         public String toString() {
-            return "HttpRequest.HttpRequestBuilder(url=" + this.url + ", method=" + this.method + ", httpOpenTimeout=" + this.httpOpenTimeout + ", httpReadTimeout=" + this.httpReadTimeout + ", body=" + this.body + ", headers=" + this.headers + ")";
+            return "HttpRequest.HttpRequestBuilder(url=" + this.url + ", method=" + this.method + ", httpOpenTimeout=" + this.httpOpenTimeout + ", httpReadTimeout=" + this.httpReadTimeout + ", body=" + this.body + ", headers=" + this.headers + ", streamResponse=" + this.streamResponse + ")";
         }
     }
 }
@@ -1,5 +1,7 @@
 package io.ably.lib.network;
 
+import java.nio.ByteBuffer;
+
 /**
  * WebSocketClient instance bind to the specified URI.
  * The connection will be established once you call <var>connect</var>.
@@ -40,6 +42,21 @@ public interface WebSocketClient {
      */
     void send(byte[] message);
 
+    /**
+     * Sends the remaining bytes of <var>message</var> as a binary frame to the connected webSocket server.
+     * <p>
+     * The buffer may be reused by the caller once this method returns, so implementations that
+     * send asynchronously must copy it. The default implementation copies it and delegates to
+     * {@link #send(byte[])}.
+     *
+     * @param message The buffer of data to send to the WebSocket server.
+     */
+    default void send(ByteBuffer message) {
+        byte[] bytes = new byte[message.remaining()];
+        message.get(bytes);
+        send(bytes);
+    }
+
     /**
      * Sends <var>message</var> to the connected websocket server.
      *
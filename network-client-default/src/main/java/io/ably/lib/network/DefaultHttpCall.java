@@ -1,6 +1,7 @@
 package io.ably.lib.network;
 
 import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -20,6 +21,8 @@ class DefaultHttpCall implements HttpCall {
     private final Proxy proxy;
     private final HttpRequest request;
     private HttpURLConnection connection;
+    /* set once the response body is handed to the caller unread, to be disconnected when it is closed */
+    private boolean streaming;
 
     DefaultHttpCall(HttpRequest request, Proxy proxy) {
         this.request = request;
@@ -57,7 +60,9 @@ class DefaultHttpCall implements HttpCall {
         } catch (IOException ioe) {
             throw new RuntimeException(ioe);
         } finally {
-            cancel();
+            if (!streaming) {
+                cancel();
+            }
         }
     }
 
@@ -119,6 +124,12 @@ class DefaultHttpCall implements HttpCall {
 
         if (is == null) is = connection.getErrorStream();
 
+        if (is != null && request.isStreamResponse() && statusCode >= 200 && statusCode < 300) {
+            builder.body(new HttpBody(contentType, new ResponseStream(is)));
+            streaming = true;
+            return builder.build();
+        }
+
         try {
             byte[] body = readInputStream(is, contentLength);
             builder.body(new HttpBody(contentType, body));
@@ -162,4 +173,22 @@ class DefaultHttpCall implements HttpCall {
             return output;
         }
     }
+
+    /**
+     * A response body that disconnects the connection when it is closed
+     */
+    private class ResponseStream extends FilterInputStream {
+        ResponseStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                cancel();
+            }
+        }
+    }
 }
@@ -80,6 +80,19 @@ public class DefaultWebSocketClient extends org.java_websocket.client.WebSocketC
         }
     }
 
+    /**
+     * Java-WebSocket frames (and masks) the payload into a new buffer before returning,
+     * so the caller's buffer is not retained.
+     */
+    @Override
+    public void send(ByteBuffer bytes) {
+        try {
+            super.send(bytes);
+        } catch (WebsocketNotConnectedException e) {
+            throw new NotConnectedException(e);
+        }
+    }
+
     @Override
     public void send(String text) {
         try {
@@ -0,0 +1,14 @@
+plugins {
+    `java-library`
+    alias(libs.plugins.maven.publish)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    implementation(project(":network-client-core"))
+    testImplementation(libs.junit)
+}
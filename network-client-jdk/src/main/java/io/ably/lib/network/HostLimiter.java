@@ -0,0 +1,76 @@
+package io.ably.lib.network;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Bounds the number of requests in flight to each host. A request over the limit is not started
+ * until one to the same host completes; waiting requests start in the order they were submitted.
+ */
+class HostLimiter {
+
+    private final int maxPerHost;
+    /* hosts with requests in flight; guarded by this */
+    private final Map<String, Host> hosts = new HashMap<>();
+
+    /**
+     * @param maxPerHost the maximum number of requests in flight to a host; 0 for no limit
+     */
+    HostLimiter(int maxPerHost) {
+        this.maxPerHost = maxPerHost;
+    }
+
+    /**
+     * Runs the given request start now if the host is below the limit, and otherwise once a request
+     * to the host is released. Every started request must be released exactly once.
+     */
+    void submit(String host, Runnable start) {
+        if (maxPerHost <= 0) {
+            start.run();
+            return;
+        }
+        synchronized (this) {
+            Host state = hosts.get(host);
+            if (state == null) {
+                state = new Host();
+                hosts.put(host, state);
+            }
+            if (state.active >= maxPerHost) {
+                state.waiting.add(start);
+                return;
+            }
+            ++state.active;
+        }
+        start.run();
+    }
+
+    /**
+     * Records that a request to the host has completed, starting the next waiting request if any.
+     */
+    void release(String host) {
+        if (maxPerHost <= 0) {
+            return;
+        }
+        Runnable next;
+        synchronized (this) {
+            Host state = hosts.get(host);
+            if (state == null) {
+                return;
+            }
+            /* a waiting request takes over the slot of the completed one */
+            next = state.waiting.poll();
+            if (next == null && --state.active == 0) {
+                hosts.remove(host);
+            }
+        }
+        if (next != null) {
+            next.run();
+        }
+    }
+
+    private static class Host {
+        int active;
+        final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+    }
+}
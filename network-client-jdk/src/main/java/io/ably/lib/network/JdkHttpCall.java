@@ -0,0 +1,173 @@
+package io.ably.lib.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.URISyntaxException;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+class JdkHttpCall implements HttpCall {
+    private final HttpClient client;
+    private final HttpRequest request;
+    private final HostLimiter limiter;
+    private volatile boolean cancelled;
+    private volatile CompletableFuture<java.net.http.HttpResponse<Object>> pending;
+
+    JdkHttpCall(HttpClient client, HttpRequest request, HostLimiter limiter) {
+        this.client = client;
+        this.request = request;
+        this.limiter = limiter;
+    }
+
+    @Override
+    public HttpResponse execute() {
+        final CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+        enqueue(new HttpCallback() {
+            @Override
+            public void onResponse(HttpResponse response) {
+                result.complete(response);
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                result.completeExceptionally(error);
+            }
+        });
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            cancel();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+    }
+
+    @Override
+    public void enqueue(final HttpCallback callback) {
+        final java.net.http.HttpRequest jdkRequest;
+        try {
+            jdkRequest = toJdkRequest(request);
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            callback.onFailure(new RuntimeException(e));
+            return;
+        }
+        final String host = request.getUrl().getHost();
+        limiter.submit(host, () -> {
+            if (cancelled) {
+                limiter.release(host);
+                callback.onFailure(new RuntimeException(new IOException("Canceled")));
+                return;
+            }
+            CompletableFuture<java.net.http.HttpResponse<Object>> future;
+            try {
+                future = client.sendAsync(jdkRequest, bodyHandler());
+            } catch (RuntimeException e) {
+                /* this may be running in the completion of another request, where nothing would see the exception */
+                limiter.release(host);
+                callback.onFailure(translate(e));
+                return;
+            }
+            pending = future;
+            if (cancelled) {
+                future.cancel(true);
+            }
+            future.whenComplete((response, error) -> {
+                limiter.release(host);
+                if (error != null) {
+                    callback.onFailure(translate(error));
+                } else {
+                    callback.onResponse(toHttpResponse(response));
+                }
+            });
+        });
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        CompletableFuture<?> future = pending;
+        if (future != null) {
+            future.cancel(true);
+        }
+    }
+
+    /* a successful body is left unread if the request asks for that, and any other body is read in full */
+    private java.net.http.HttpResponse.BodyHandler<Object> bodyHandler() {
+        final boolean streamResponse = request.isStreamResponse();
+        return responseInfo -> (streamResponse && responseInfo.statusCode() / 100 == 2)
+            ? java.net.http.HttpResponse.BodySubscribers.mapping(java.net.http.HttpResponse.BodySubscribers.ofInputStream(), stream -> (Object) stream)
+            : java.net.http.HttpResponse.BodySubscribers.mapping(java.net.http.HttpResponse.BodySubscribers.ofByteArray(), bytes -> (Object) bytes);
+    }
+
+    private static java.net.http.HttpRequest toJdkRequest(HttpRequest request) throws URISyntaxException {
+        java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest.newBuilder(request.getUrl().toURI());
+        if (!"https".equalsIgnoreCase(request.getUrl().getProtocol())) {
+            /* h2c would add an Upgrade handshake to every plain-text request */
+            builder.version(HttpClient.Version.HTTP_1_1);
+        }
+        /* the client has a single connect timeout, so the request timeout bounds connecting and waiting for the response */
+        int timeout = request.getHttpOpenTimeout() + request.getHttpReadTimeout();
+        if (timeout > 0) {
+            builder.timeout(Duration.ofMillis(timeout));
+        }
+        for (Map.Entry<String, List<String>> entry : request.getHeaders().entrySet()) {
+            if (isRestrictedHeader(entry.getKey())) continue;
+            for (String headerValue : entry.getValue()) {
+                builder.header(entry.getKey(), headerValue);
+            }
+        }
+        builder.method(request.getMethod(), request.getBody() != null && request.getBody().getContent() != null
+            ? java.net.http.HttpRequest.BodyPublishers.ofByteArray(request.getBody().getContent())
+            : java.net.http.HttpRequest.BodyPublishers.noBody());
+        return builder.build();
+    }
+
+    /* headers the client sets itself, and rejects if given */
+    private static boolean isRestrictedHeader(String name) {
+        return HttpRequest.CONTENT_LENGTH.equalsIgnoreCase(name)
+            || "Host".equalsIgnoreCase(name)
+            || "Connection".equalsIgnoreCase(name)
+            || "Expect".equalsIgnoreCase(name)
+            || "Upgrade".equalsIgnoreCase(name);
+    }
+
+    private static HttpResponse toHttpResponse(java.net.http.HttpResponse<Object> response) {
+        HttpResponse.HttpResponseBuilder builder = HttpResponse.builder()
+            .code(response.statusCode())
+            /* HTTP/2 has no reason phrase, and the client does not expose the HTTP/1.1 one */
+            .message("")
+            .headers(response.headers().map());
+        if (response.statusCode() != 204) {
+            String contentType = response.headers().firstValue(HttpRequest.CONTENT_TYPE).orElse(null);
+            builder.body(response.body() instanceof InputStream
+                ? new HttpBody(contentType, (InputStream) response.body())
+                : new HttpBody(contentType, (byte[]) response.body()));
+        }
+        return builder.build();
+    }
+
+    private static RuntimeException translate(Throwable error) {
+        Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+        if (cause instanceof ConnectException || cause instanceof HttpTimeoutException
+            || cause instanceof UnknownHostException || cause instanceof NoRouteToHostException) {
+            return new FailedConnectionException(cause);
+        }
+        if (cause instanceof CancellationException) {
+            return new RuntimeException(new IOException("Canceled", cause));
+        }
+        return cause instanceof RuntimeException ? (RuntimeException) cause : new RuntimeException(cause);
+    }
+}
@@ -0,0 +1,40 @@
+package io.ably.lib.network;
+
+import java.net.http.HttpClient;
+
+/**
+ * An {@link HttpEngine} on {@link HttpClient}.
+ * <p>
+ * Requests to a host share its connections: over HTTPS they are multiplexed on an HTTP/2 connection
+ * when the server supports it, and otherwise use a pool of kept-alive HTTP/1.1 connections.
+ * The number of requests in flight to each host can be bounded with
+ * {@link HttpEngineConfig#getMaxConnectionsPerHost()}. Calls made with {@link HttpCall#enqueue(HttpCallback)}
+ * do not hold a thread while waiting on I/O.
+ */
+public class JdkHttpEngine implements HttpEngine {
+
+    private final HttpClient client;
+    private final HttpEngineConfig config;
+    private final HostLimiter limiter;
+
+    public JdkHttpEngine(HttpClient client, HttpEngineConfig config) {
+        this.client = client;
+        this.config = config;
+        this.limiter = new HostLimiter(config.getMaxConnectionsPerHost());
+    }
+
+    @Override
+    public HttpCall call(HttpRequest request) {
+        return new JdkHttpCall(client, request, limiter);
+    }
+
+    @Override
+    public boolean isUsingProxy() {
+        return config.getProxy() != null;
+    }
+
+    @Override
+    public boolean isAsyncSupported() {
+        return true;
+    }
+}
@@ -0,0 +1,66 @@
+package io.ably.lib.network;
+
+import java.net.Authenticator;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates {@link JdkHttpEngine} instances.
+ * <p>
+ * Engines with the same proxy share one {@link HttpClient}, and so its connection pool and
+ * selector thread, rather than each client library instance starting its own.
+ * <p>
+ * {@link HttpEngineConfig#getKeepAliveTimeout()} is not applied: the JDK has no per-client
+ * keep-alive setting, only the {@code jdk.httpclient.keepalive.timeout} system property, which
+ * applies to every HttpClient in the JVM and is read once. Applications that need a different
+ * keep-alive timeout can set that property themselves before making any request.
+ */
+public class JdkHttpEngineFactory implements HttpEngineFactory {
+
+    /* keyed by proxy, the only part of the config the client depends on; guarded by the map */
+    private static final Map<ProxyConfig, HttpClient> clients = new HashMap<>();
+
+    @Override
+    public HttpEngine create(HttpEngineConfig config) {
+        return new JdkHttpEngine(getClient(config.getProxy()), config);
+    }
+
+    @Override
+    public EngineType getEngineType() {
+        return EngineType.JDK;
+    }
+
+    private static HttpClient getClient(ProxyConfig proxyConfig) {
+        synchronized (clients) {
+            HttpClient client = clients.get(proxyConfig);
+            if (client == null) {
+                HttpClient.Builder clientBuilder = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_2)
+                    .followRedirects(HttpClient.Redirect.NORMAL);
+                injectProxySetting(proxyConfig, clientBuilder);
+                client = clientBuilder.build();
+                clients.put(proxyConfig, client);
+            }
+            return client;
+        }
+    }
+
+    private static void injectProxySetting(ProxyConfig proxyConfig, HttpClient.Builder clientBuilder) {
+        if (proxyConfig == null) return;
+        clientBuilder.proxy(ProxySelector.of(new InetSocketAddress(proxyConfig.getHost(), proxyConfig.getPort())));
+        if (proxyConfig.getUsername() == null || proxyConfig.getAuthType() != ProxyAuthType.BASIC) return;
+        final PasswordAuthentication credentials = new PasswordAuthentication(
+            proxyConfig.getUsername(),
+            proxyConfig.getPassword() == null ? new char[0] : proxyConfig.getPassword().toCharArray());
+        clientBuilder.authenticator(new Authenticator() {
+            @Override
+            protected PasswordAuthentication getPasswordAuthentication() {
+                return getRequestorType() == RequestorType.PROXY ? credentials : null;
+            }
+        });
+    }
+}
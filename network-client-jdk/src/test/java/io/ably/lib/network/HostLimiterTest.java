@@ -0,0 +1,64 @@
+package io.ably.lib.network;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class HostLimiterTest {
+
+    @Test
+    public void requests_over_the_limit_start_in_order_as_others_are_released() {
+        // Given
+        HostLimiter limiter = new HostLimiter(2);
+        List<String> started = new ArrayList<>();
+
+        // When
+        for (int i = 1; i <= 4; i++) {
+            final String request = "a" + i;
+            limiter.submit("a.example.com", () -> started.add(request));
+        }
+        limiter.submit("b.example.com", () -> started.add("b1"));
+
+        // Then
+        assertEquals(Arrays.asList("a1", "a2", "b1"), started);
+        limiter.release("a.example.com");
+        assertEquals(Arrays.asList("a1", "a2", "b1", "a3"), started);
+        limiter.release("a.example.com");
+        assertEquals(Arrays.asList("a1", "a2", "b1", "a3", "a4"), started);
+    }
+
+    @Test
+    public void released_slot_is_free_for_the_next_request() {
+        // Given
+        HostLimiter limiter = new HostLimiter(1);
+        List<String> started = new ArrayList<>();
+        limiter.submit("a.example.com", () -> started.add("a1"));
+
+        // When
+        limiter.release("a.example.com");
+        limiter.submit("a.example.com", () -> started.add("a2"));
+
+        // Then
+        assertEquals(Arrays.asList("a1", "a2"), started);
+    }
+
+    @Test
+    public void no_limit_starts_every_request_at_once() {
+        // Given
+        HostLimiter limiter = new HostLimiter(0);
+        List<String> started = new ArrayList<>();
+
+        // When
+        for (int i = 1; i <= 3; i++) {
+            final String request = "a" + i;
+            limiter.submit("a.example.com", () -> started.add(request));
+        }
+
+        // Then
+        assertEquals(Arrays.asList("a1", "a2", "a3"), started);
+    }
+}
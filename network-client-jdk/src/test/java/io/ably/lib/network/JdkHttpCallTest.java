@@ -0,0 +1,279 @@
+package io.ably.lib.network;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Authenticator;
+import java.net.CookieHandler;
+import java.net.InetSocketAddress;
+import java.net.ProxySelector;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLParameters;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JdkHttpCallTest {
+
+    private HttpServer server;
+    private final AtomicInteger received = new AtomicInteger();
+    private final CountDownLatch releaseResponses = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/held", exchange -> {
+            received.incrementAndGet();
+            try {
+                releaseResponses.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        releaseResponses.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    public void requests_to_a_host_are_limited() throws Exception {
+        // Given
+        JdkHttpEngine engine = createEngine(1);
+        ResultCallback first = new ResultCallback();
+        ResultCallback second = new ResultCallback();
+
+        // When
+        engine.call(request(serverUrl("/held"))).enqueue(first);
+        engine.call(request(serverUrl("/held"))).enqueue(second);
+        awaitReceived(1);
+        Thread.sleep(200);
+
+        // Then
+        assertEquals(1, received.get());
+        releaseResponses.countDown();
+        assertEquals(200, first.response().getCode());
+        assertEquals(200, second.response().getCode());
+        assertEquals(2, received.get());
+    }
+
+    @Test
+    public void cancelled_call_fails_and_frees_its_slot() throws Exception {
+        // Given
+        JdkHttpEngine engine = createEngine(1);
+        ResultCallback cancelled = new ResultCallback();
+        HttpCall call = engine.call(request(serverUrl("/held")));
+        call.enqueue(cancelled);
+        awaitReceived(1);
+
+        // When
+        call.cancel();
+
+        // Then
+        Throwable error = cancelled.failure();
+        assertTrue(error.getCause() instanceof IOException);
+        assertEquals("Canceled", error.getCause().getMessage());
+        releaseResponses.countDown();
+        assertEquals(200, engine.call(request(serverUrl("/held"))).execute().getCode());
+    }
+
+    @Test
+    public void refused_connection_is_a_failed_connection() throws Exception {
+        // Given
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        JdkHttpEngine engine = createEngine(1);
+
+        // When
+        try {
+            engine.call(request(new URL("http://127.0.0.1:" + port + "/time"))).execute();
+            fail("Expected the connection to fail");
+        } catch (FailedConnectionException e) {
+            // Then
+            assertTrue(e.getCause() instanceof java.net.ConnectException);
+        }
+    }
+
+    @Test
+    public void waiting_call_that_cannot_be_sent_fails_instead_of_hanging() throws Exception {
+        // Given
+        CompletableFuture<java.net.http.HttpResponse<Object>> held = new CompletableFuture<>();
+        HostLimiter limiter = new HostLimiter(1);
+        HttpClient client = new SendingClient(held);
+        ResultCallback first = new ResultCallback();
+        ResultCallback second = new ResultCallback();
+        new JdkHttpCall(client, request(serverUrl("/held")), limiter).enqueue(first);
+        new JdkHttpCall(client, request(serverUrl("/held")), limiter).enqueue(second);
+
+        // When
+        held.completeExceptionally(new IOException("closed"));
+
+        // Then
+        assertEquals("closed", first.failure().getCause().getMessage());
+        assertEquals("unable to send", second.failure().getMessage());
+        ResultCallback third = new ResultCallback();
+        new JdkHttpCall(client, request(serverUrl("/held")), limiter).enqueue(third);
+        assertEquals("unable to send", third.failure().getMessage());
+    }
+
+    private JdkHttpEngine createEngine(int maxPerHost) {
+        HttpEngineConfig config = new HttpEngineConfig(null, maxPerHost, 0);
+        return new JdkHttpEngine(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build(), config);
+    }
+
+    private URL serverUrl(String path) throws IOException {
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    private static HttpRequest request(URL url) {
+        return HttpRequest.builder()
+            .url(url)
+            .method("GET")
+            .httpOpenTimeout(5000)
+            .httpReadTimeout(5000)
+            .headers(Collections.emptyMap())
+            .build();
+    }
+
+    private void awaitReceived(int count) throws InterruptedException {
+        for (int i = 0; i < 500 && received.get() < count; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, received.get());
+    }
+
+    private static class ResultCallback implements HttpCallback {
+        private final CompletableFuture<HttpResponse> result = new CompletableFuture<>();
+
+        @Override
+        public void onResponse(HttpResponse response) {
+            result.complete(response);
+        }
+
+        @Override
+        public void onFailure(Throwable error) {
+            result.completeExceptionally(error);
+        }
+
+        HttpResponse response() throws Exception {
+            return result.get(5, TimeUnit.SECONDS);
+        }
+
+        Throwable failure() throws Exception {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                return e.getCause();
+            }
+            throw new AssertionError("Expected the call to fail");
+        }
+    }
+
+    /**
+     * A client whose first request completes with the given future, and which then fails to send
+     */
+    private static class SendingClient extends HttpClient {
+        private final AtomicReference<CompletableFuture<java.net.http.HttpResponse<Object>>> first;
+
+        SendingClient(CompletableFuture<java.net.http.HttpResponse<Object>> first) {
+            this.first = new AtomicReference<>(first);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> CompletableFuture<java.net.http.HttpResponse<T>> sendAsync(java.net.http.HttpRequest request, java.net.http.HttpResponse.BodyHandler<T> handler) {
+            CompletableFuture<java.net.http.HttpResponse<Object>> future = first.getAndSet(null);
+            if (future == null) {
+                throw new IllegalStateException("unable to send");
+            }
+            return (CompletableFuture<java.net.http.HttpResponse<T>>) (CompletableFuture<?>) future;
+        }
+
+        @Override
+        public <T> CompletableFuture<java.net.http.HttpResponse<T>> sendAsync(java.net.http.HttpRequest request, java.net.http.HttpResponse.BodyHandler<T> handler, java.net.http.HttpResponse.PushPromiseHandler<T> pushPromiseHandler) {
+            return sendAsync(request, handler);
+        }
+
+        @Override
+        public <T> java.net.http.HttpResponse<T> send(java.net.http.HttpRequest request, java.net.http.HttpResponse.BodyHandler<T> handler) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Optional<CookieHandler> cookieHandler() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<Duration> connectTimeout() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Redirect followRedirects() {
+            return Redirect.NEVER;
+        }
+
+        @Override
+        public Optional<ProxySelector> proxy() {
+            return Optional.empty();
+        }
+
+        @Override
+        public SSLContext sslContext() {
+            return null;
+        }
+
+        @Override
+        public SSLParameters sslParameters() {
+            return null;
+        }
+
+        @Override
+        public Optional<Authenticator> authenticator() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Version version() {
+            return Version.HTTP_1_1;
+        }
+
+        @Override
+        public Optional<Executor> executor() {
+            return Optional.empty();
+        }
+    }
+}
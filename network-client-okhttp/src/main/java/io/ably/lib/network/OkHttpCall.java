@@ -13,27 +13,41 @@ import java.net.UnknownHostException;
 
 public class OkHttpCall implements HttpCall {
     private final Call call;
+    private final boolean streamResponse;
 
     public OkHttpCall(Call call) {
+        this(call, false);
+    }
+
+    public OkHttpCall(Call call, boolean streamResponse) {
         this.call = call;
+        this.streamResponse = streamResponse;
     }
 
     @Override
     public HttpResponse execute() {
-        try (Response response = call.execute()) {
+        Response response = null;
+        boolean streaming = false;
+        try {
+            response = call.execute();
+            streaming = streamResponse && response.isSuccessful() && response.body() != null && response.body().contentType() != null;
             return HttpResponse.builder()
                 .headers(response.headers().toMultimap())
                 .code(response.code())
                 .message(response.message())
-                .body(buildHttpBody(response))
+                .body(streaming ? buildStreamingHttpBody(response) : buildHttpBody(response))
                 .build();
 
         } catch (ConnectException | SocketTimeoutException | UnknownHostException | NoRouteToHostException fce) {
             throw new FailedConnectionException(fce);
         } catch (IOException ioe) {
             throw new RuntimeException(ioe);
+        } finally {
+            /* a streamed body is closed by the caller, which releases the response */
+            if (response != null && !streaming) {
+                response.close();
+            }
         }
-
     }
 
     @Override
@@ -49,4 +63,9 @@ public class OkHttpCall implements HttpCall {
                 : null;
         }
     }
+
+    private HttpBody buildStreamingHttpBody(Response response) {
+        ResponseBody body = response.body();
+        return new HttpBody(body.contentType().toString(), body.byteStream());
+    }
 }
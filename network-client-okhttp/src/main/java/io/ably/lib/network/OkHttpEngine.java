@@ -22,7 +22,7 @@ public class OkHttpEngine implements HttpEngine {
             .readTimeout(request.getHttpReadTimeout(), TimeUnit.MILLISECONDS)
             .build()
             .newCall(OkHttpUtils.toOkhttpRequest(request));
-        return new OkHttpCall(call);
+        return new OkHttpCall(call, request.isStreamResponse());
     }
 
     @Override
@@ -1,12 +1,22 @@
 package io.ably.lib.network;
 
+import okhttp3.ConnectionPool;
 import okhttp3.OkHttpClient;
 
+import java.util.concurrent.TimeUnit;
+
 public class OkHttpEngineFactory implements HttpEngineFactory {
+
+    /* the number of idle connections OkHttp keeps by default */
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+
     @Override
     public HttpEngine create(HttpEngineConfig config) {
         OkHttpClient.Builder connectionBuilder = new OkHttpClient.Builder();
         OkHttpUtils.injectProxySetting(config.getProxy(), connectionBuilder);
+        if (config.getKeepAliveTimeout() > 0) {
+            connectionBuilder.connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, config.getKeepAliveTimeout(), TimeUnit.MILLISECONDS));
+        }
         return new OkHttpEngine(connectionBuilder.build(), config);
     }
 
@@ -46,6 +46,12 @@ public class OkHttpWebSocketClient implements WebSocketClient {
         webSocket.send(ByteString.of(bytes));
     }
 
+    @Override
+    public void send(ByteBuffer bytes) {
+        // ByteString.of copies the buffer, as OkHttp sends asynchronously
+        webSocket.send(ByteString.of(bytes));
+    }
+
     @Override
     public void send(String message) {
         webSocket.send(message);
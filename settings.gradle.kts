@@ -14,7 +14,10 @@ include("gradle-lint")
 include("network-client-core")
 include("network-client-default")
 include("network-client-okhttp")
+include("network-client-jdk")
+include("metrics-micrometer")
 include("pubsub-adapter")
 include("liveobjects")
 include("examples")
 include("uts")
+include("benchmarks")